@@ -2,11 +2,13 @@ package com.mock.service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Mock 服务平台启动类
  */
 @SpringBootApplication
+@EnableScheduling
 public class MockServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(MockServiceApplication.class, args);
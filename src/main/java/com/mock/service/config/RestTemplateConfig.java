@@ -1,14 +1,256 @@
 package com.mock.service.config;
 
+import com.mock.service.http.HostConcurrencyInterceptor;
+import com.mock.service.http.InstrumentedConnectionManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 出站 HTTP 客户端配置
+ * <p>
+ * ApiProxyController 和 TestExecutionService 的所有出站请求共用这里创建的 RestTemplate
+ * （透传代理使用不检查状态码的 passthroughRestTemplate，共用同一个连接池，
+ * 读取超时单独由 mock.proxy.passthrough.read-timeout-ms 配置，SSE 等长时间推送的响应不会被普通请求的读取超时中断）。
+ * 通过 mock.http-client.protocol 选择底层引擎：
+ * <ul>
+ *   <li>HTTP_1_1（默认）：Apache HttpClient 5 连接池，按主机限制连接数，连接空闲 keep-alive 复用，
+ *       后台线程回收过期和空闲超时的连接</li>
+ *   <li>HTTP_2：JDK HttpClient，协商 HTTP/2（不支持时回退 HTTP/1.1），同一主机的请求在一个连接上多路复用，
+ *       按主机的并发请求数由 {@link HostConcurrencyInterceptor} 限制</li>
+ * </ul>
+ * 两种引擎都配置了连接超时、读取超时和等待连接（名额）的超时。
+ * </p>
+ * <p>
+ * 指标：
+ * <ul>
+ *   <li>http.client.requests：每个请求的耗时，按方法、URI、状态码打标签（由 RestTemplateBuilder 注册）</li>
+ *   <li>httpcomponents.httpclient.pool.*：HTTP/1.1 连接池的已借出、空闲、等待中的连接数和上限</li>
+ *   <li>mock.http.client.wait：等待连接池连接（HTTP/1.1）或主机并发名额（HTTP/2）的时间</li>
+ *   <li>mock.http.client.active：正在进行的出站请求数（HTTP/2）</li>
+ * </ul>
+ * </p>
+ */
+@Slf4j
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * HTTP/1.1 连接池名称，用作连接池指标的 httpclient 标签
+     */
+    private static final String POOL_NAME = "outbound";
+
+    private final String protocol;
+
+    private final int maxTotal;
+
+    private final int maxPerHost;
+
+    private final long connectTimeoutMs;
+
+    private final long readTimeoutMs;
+
+    private final long poolTimeoutMs;
+
+    private final long keepAliveMs;
+
+    private final long idleEvictMs;
+
+    private final long passthroughReadTimeoutMs;
+
+    /**
+     * HTTP/2 引擎的 JDK HttpClient，透传代理的请求工厂共用；HTTP/1.1 时为 null
+     */
+    private HttpClient http2Client;
+
+    /**
+     * HTTP/2 引擎下按主机限制并发的拦截器，所有 RestTemplate 共用；HTTP/1.1 时为 null
+     */
+    private HostConcurrencyInterceptor hostConcurrencyInterceptor;
+
+    public RestTemplateConfig(@Value("${mock.http-client.protocol:HTTP_1_1}") String protocol,
+                              @Value("${mock.http-client.max-total:200}") int maxTotal,
+                              @Value("${mock.http-client.max-per-host:20}") int maxPerHost,
+                              @Value("${mock.http-client.connect-timeout-ms:5000}") long connectTimeoutMs,
+                              @Value("${mock.http-client.read-timeout-ms:30000}") long readTimeoutMs,
+                              @Value("${mock.http-client.pool-timeout-ms:5000}") long poolTimeoutMs,
+                              @Value("${mock.http-client.keep-alive-ms:30000}") long keepAliveMs,
+                              @Value("${mock.http-client.idle-evict-ms:60000}") long idleEvictMs,
+                              @Value("${mock.proxy.passthrough.read-timeout-ms:0}") long passthroughReadTimeoutMs) {
+        this.protocol = protocol;
+        this.maxTotal = maxTotal;
+        this.maxPerHost = maxPerHost;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.poolTimeoutMs = poolTimeoutMs;
+        this.keepAliveMs = keepAliveMs;
+        this.idleEvictMs = idleEvictMs;
+        this.passthroughReadTimeoutMs = passthroughReadTimeoutMs;
+    }
+
+    /**
+     * 通过 RestTemplateBuilder 创建，自动注册 http.client.requests 指标
+     */
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory outboundRequestFactory,
+                                     MeterRegistry meterRegistry) {
+        return configure(builder, outboundRequestFactory, meterRegistry).build();
+    }
+
+    /**
+     * 透传代理使用的 RestTemplate：与 {@link #restTemplate} 共用连接池，但不把 4xx/5xx 当作错误，
+     * 上游的任何状态码都原样返回给客户端；读取超时使用 mock.proxy.passthrough.read-timeout-ms（0 表示不超时）
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate passthroughRestTemplate(RestTemplateBuilder builder,
+                                                ClientHttpRequestFactory outboundRequestFactory,
+                                                MeterRegistry meterRegistry) {
+        return configure(builder, passthroughRequestFactory(outboundRequestFactory), meterRegistry)
+            .errorHandler(new ResponseErrorHandler() {
+                @Override
+                public boolean hasError(ClientHttpResponse response) {
+                    return false;
+                }
+
+                @Override
+                public void handleError(ClientHttpResponse response) {
+                }
+            })
+            .build();
+    }
+
+    /**
+     * 设置共用的请求工厂，HTTP/2 引擎下再加上按主机限制并发的拦截器
+     * （有拦截器时 RestTemplate 会在内存中缓冲请求体，透传代理的请求体同样受此影响）
+     */
+    private synchronized RestTemplateBuilder configure(RestTemplateBuilder builder,
+                                                       ClientHttpRequestFactory requestFactory,
+                                                       MeterRegistry meterRegistry) {
+        builder = builder.requestFactory(() -> requestFactory);
+        if (isHttp2()) {
+            if (hostConcurrencyInterceptor == null) {
+                hostConcurrencyInterceptor = new HostConcurrencyInterceptor(maxPerHost, poolTimeoutMs,
+                    waitTimer(meterRegistry), meterRegistry);
+            }
+            builder = builder.additionalInterceptors(hostConcurrencyInterceptor);
+        }
+        return builder;
+    }
+
+    /**
+     * 出站请求工厂，按 mock.http-client.protocol 选择 HTTP/1.1 连接池或 HTTP/2 引擎
+     */
+    @Bean
+    public ClientHttpRequestFactory outboundRequestFactory(MeterRegistry meterRegistry) {
+        log.info("出站 HTTP 客户端: protocol={}, maxTotal={}, maxPerHost={}, connectTimeout={}ms, readTimeout={}ms",
+            protocol, maxTotal, maxPerHost, connectTimeoutMs, readTimeoutMs);
+        return isHttp2() ? http2RequestFactory() : pooledRequestFactory(meterRegistry);
+    }
+
+    /**
+     * 透传代理的请求工厂：共用出站请求工厂的 HTTP 客户端（连接池），只替换读取超时。
+     * 不注册为 Bean，HTTP 客户端仍由 outboundRequestFactory 负责关闭
+     */
+    private ClientHttpRequestFactory passthroughRequestFactory(ClientHttpRequestFactory outboundRequestFactory) {
+        if (outboundRequestFactory instanceof HttpComponentsClientHttpRequestFactory pooled) {
+            HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(pooled.getHttpClient());
+            // 响应超时为 0 时 HttpClient 不限制等待上游数据的时间
+            RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(Math.max(0, passthroughReadTimeoutMs)))
+                .build();
+            factory.setHttpContextFactory((method, uri) -> {
+                HttpClientContext context = HttpClientContext.create();
+                context.setRequestConfig(requestConfig);
+                return context;
+            });
+            return factory;
+        }
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(http2Client);
+        if (passthroughReadTimeoutMs > 0) {
+            factory.setReadTimeout(Duration.ofMillis(passthroughReadTimeoutMs));
+        }
+        return factory;
+    }
+
+    private boolean isHttp2() {
+        return "HTTP_2".equalsIgnoreCase(protocol);
+    }
+
+    /**
+     * HTTP/1.1：Apache HttpClient 5 连接池
+     */
+    private ClientHttpRequestFactory pooledRequestFactory(MeterRegistry meterRegistry) {
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(waitTimer(meterRegistry));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerHost);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+            .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+            // 空闲超过 2 秒的连接在复用前检查是否已被服务端关闭
+            .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+            .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+            // 代理和测试步骤的请求来自不同用户，不在共享客户端中保存 Cookie
+            .disableCookieManagement()
+            // 不自动解压响应：透传代理按原始字节转发压缩内容（与原 HttpURLConnection 行为一致）
+            .disableContentCompression()
+            .build();
+        // 作为 Bean 销毁时关闭客户端和连接池
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * HTTP/2：JDK HttpClient
+     */
+    private ClientHttpRequestFactory http2RequestFactory() {
+        http2Client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(http2Client);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return requestFactory;
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry) {
+        return Timer.builder("mock.http.client.wait")
+            .description("出站 HTTP 请求等待连接池连接或主机并发名额的时间")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
     }
 }
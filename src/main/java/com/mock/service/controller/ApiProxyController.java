@@ -1,16 +1,22 @@
 package com.mock.service.controller;
 
+import com.mock.service.dto.ProxyRecordingStatus;
 import com.mock.service.dto.ProxyRequest;
 import com.mock.service.dto.ProxyResponse;
 import com.mock.service.dto.Result;
+import com.mock.service.service.ProxyBatchService;
+import com.mock.service.service.ProxyPassthroughService;
+import com.mock.service.service.ProxyRecordingService;
+import com.mock.service.service.ProxyService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -18,91 +24,80 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ApiProxyController {
 
-    private final RestTemplate restTemplate;
+    private final ProxyService proxyService;
 
-    public ApiProxyController(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-    }
-
-    @PostMapping
-    public Result<ProxyResponse> proxyRequest(@RequestBody ProxyRequest request) {
-        log.info("代理请求: {} {}", request.getMethod(), request.getUrl());
-
-        try {
-            // 构建 URL（包含 query 参数）
-            UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(request.getUrl());
-            if (request.getParams() != null) {
-                request.getParams().forEach(uriBuilder::queryParam);
-            }
-            String finalUrl = uriBuilder.toUriString();
-
-            // 构建请求头
-            HttpHeaders headers = new HttpHeaders();
-            if (request.getHeaders() != null) {
-                request.getHeaders().forEach(headers::add);
-            }
-
-            // 设置 Content-Type
-            if (request.getBody() != null) {
-                if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                }
-            }
-
-            // 构建请求实体
-            HttpEntity<Object> entity = new HttpEntity<>(request.getBody(), headers);
+    private final ProxyBatchService batchService;
 
-            // 发送请求
-            HttpMethod method = HttpMethod.valueOf(request.getMethod().toUpperCase());
-            ResponseEntity<String> response = restTemplate.exchange(
-                    finalUrl,
-                    method,
-                    entity,
-                    String.class
-            );
+    private final ProxyPassthroughService passthroughService;
 
-            // 构建响应
-            ProxyResponse proxyResponse = new ProxyResponse();
-            proxyResponse.setStatus(response.getStatusCode().value());
-            proxyResponse.setStatusText(response.getStatusCode().toString());
+    private final ProxyRecordingService recordingService;
 
-            // 转换响应头
-            Map<String, String> responseHeaders = new HashMap<>();
-            response.getHeaders().forEach((key, value) -> {
-                responseHeaders.put(key, String.join(", ", value));
-            });
-            proxyResponse.setHeaders(responseHeaders);
+    public ApiProxyController(ProxyService proxyService, ProxyBatchService batchService,
+                              ProxyPassthroughService passthroughService, ProxyRecordingService recordingService) {
+        this.proxyService = proxyService;
+        this.batchService = batchService;
+        this.passthroughService = passthroughService;
+        this.recordingService = recordingService;
+    }
 
-            // 尝试解析 JSON 响应
-            String body = response.getBody();
-            try {
-                // 如果是 JSON，尝试解析
-                if (body != null && (body.trim().startsWith("{") || body.trim().startsWith("["))) {
-                    proxyResponse.setData(body);
-                } else {
-                    proxyResponse.setData(body);
-                }
-            } catch (Exception e) {
-                proxyResponse.setData(body);
-            }
+    /**
+     * 透传代理：把请求原样转发到查询参数 url 指定的地址，上游响应的状态码、响应头和响应体直接流式返回，
+     * 不缓冲为字符串、不包装为 Result，适合大文件、二进制和流式响应。
+     * <p>
+     * 示例：POST /api/proxy/stream?url=https%3A%2F%2Fstaging.example.com%2Fapi%2Fupload
+     * </p>
+     */
+    @RequestMapping(value = "/stream", method = {
+        RequestMethod.GET,
+        RequestMethod.POST,
+        RequestMethod.PUT,
+        RequestMethod.DELETE,
+        RequestMethod.PATCH,
+        RequestMethod.OPTIONS,
+        RequestMethod.HEAD
+    })
+    public void proxyStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        passthroughService.forward(request, response);
+    }
 
-            log.info("代理请求成功: {} {}", response.getStatusCode(), finalUrl);
-            return Result.success(proxyResponse);
+    @PostMapping
+    public Result<ProxyResponse> proxyRequest(@RequestBody ProxyRequest request) {
+        return Result.success(proxyService.execute(request));
+    }
 
-        } catch (Exception e) {
-            log.error("代理请求失败: {}", e.getMessage(), e);
+    /**
+     * 批量代理：并发执行多个代理请求，每完成一个请求立即推送一条结果（含耗时），全部完成后推送汇总。
+     * <p>
+     * format=ndjson（默认）时每行一个 JSON，type 为 result 或 done；format=sse 时以 SSE 事件推送，事件名为 result / done。
+     * </p>
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ResponseBodyEmitter> proxyBatch(@RequestBody List<ProxyRequest> requests,
+                                                          @RequestParam(defaultValue = "ndjson") String format) {
+        boolean sse = "sse".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ProxyBatchService.contentType(sse))
+                .body(batchService.execute(requests, sse));
+    }
 
-            // 构建错误响应
-            ProxyResponse errorResponse = new ProxyResponse();
-            errorResponse.setStatus(500);
-            errorResponse.setStatusText("Internal Server Error");
-            errorResponse.setHeaders(new HashMap<>());
-            errorResponse.setData(Map.of(
-                    "error", e.getClass().getSimpleName(),
-                    "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
-            ));
+    /**
+     * 查询代理录制状态
+     */
+    @GetMapping("/recording")
+    public Result<ProxyRecordingStatus> getRecordingStatus() {
+        return Result.success(recordingService.getStatus());
+    }
 
-            return Result.success(errorResponse);
+    /**
+     * 切换代理录制模式：OFF（关闭）、RECORD（录制上游响应为 Mock）、REPLAY（优先回放录制的 Mock，未命中时访问上游并录制）
+     */
+    @PutMapping("/recording")
+    public Result<ProxyRecordingStatus> setRecordingMode(@RequestParam String mode) {
+        try {
+            recordingService.setMode(ProxyRecordingService.Mode.valueOf(mode.toUpperCase()));
+            return Result.success(recordingService.getStatus());
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, "不支持的录制模式: " + mode);
         }
     }
 }
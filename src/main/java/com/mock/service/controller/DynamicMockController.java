@@ -1,19 +1,37 @@
 package com.mock.service.controller;
 
 import com.mock.service.entity.MockConfig;
-import com.mock.service.service.MockConfigService;
+import com.mock.service.route.CapacityLimiter;
+import com.mock.service.route.CompiledMock;
+import com.mock.service.route.CompiledResponse;
+import com.mock.service.route.EventScript;
+import com.mock.service.route.LatencyDistribution;
+import com.mock.service.route.MockRoute;
+import com.mock.service.route.PathTemplateRouter.RouteMatch;
+import com.mock.service.route.PreparedResponse;
+import com.mock.service.route.ResponseTemplate;
+import com.mock.service.route.ResponseThrottle;
+import com.mock.service.service.MockCapacityService;
+import com.mock.service.service.MockCapacityService.Admission;
+import com.mock.service.service.MockDelayScheduler;
 import com.mock.service.service.MockHistoryService;
+import com.mock.service.service.MockResponseStreamer;
+import com.mock.service.service.MockRouteService;
+import com.mock.service.service.MockStatsService;
 import com.mock.service.service.ProtoService;
+import com.mock.service.service.ProtobufResponseCache;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 动态Mock接口控制器
@@ -25,11 +43,25 @@ import java.nio.charset.StandardCharsets;
  * 主要功能：
  * <ul>
  *   <li>支持所有HTTP方法（GET/POST/PUT/DELETE/PATCH/OPTIONS/HEAD）</li>
- *   <li>动态路径匹配：根据请求路径和方法查找启用的Mock配置</li>
- *   <li>响应延迟模拟：支持配置延迟时间（毫秒）</li>
- *   <li>自定义响应状态码和Content-Type</li>
- *   <li>支持 JSON 和 Protobuf 两种响应格式</li>
+ *   <li>动态路径匹配：根据请求路径和方法在内存路由表中查找启用的Mock配置，支持路径模板</li>
+ *   <li>响应模板：响应体可引用路径变量、查询参数、请求头、请求体字段、计数器、UUID 和时间戳，
+ *       语法见 {@link ResponseTemplate}，模板在构建路由表时编译</li>
+ *   <li>请求体匹配：同一路径可按请求体（EXACT/SUBSET/REGEX）配置多个Mock</li>
+ *   <li>响应变体：一个Mock可配置多个响应，按顺序轮流、按权重随机、每 N 次或按客户端固定返回，
+ *       返回变体时附带 X-Mock-Variant 响应头</li>
+ *   <li>响应延迟模拟：支持固定延迟或按分布（均匀、正态、对数正态、经验分位数表）逐请求采样，
+ *       延迟期间不占用请求线程，见 {@link LatencyDistribution}</li>
+ *   <li>限速输出：按带宽（字节/秒）或固定块间隔分块慢速输出响应体，用于测试客户端超时和流式解析，
+ *       非阻塞写出，不占用请求线程，见 {@link MockResponseStreamer}</li>
+ *   <li>自定义响应状态码和Content-Type，静态响应体在配置变更时预编码，并带强 ETag（If-None-Match 相同时返回 304）；
+ *       模板响应和 Protobuf 变体按请求生成，不带 ETag</li>
+ *   <li>支持 JSON 和 Protobuf 两种响应格式，Protobuf 编码结果按配置版本缓存</li>
+ *   <li>事件流：SSE 和 NDJSON 响应类型在一个长连接上按间隔发送脚本或模板生成的事件，
+ *       异步非阻塞发送，每个连接独立背压，并发流数量有上限（超出返回 503），见 {@link EventScript}</li>
+ *   <li>容量模拟：每个Mock可限制并发数和每秒请求数，超出时排队（排队时间计入响应耗时）
+ *       或按配置的状态码（如 429/503）拒绝，见 {@link CapacityLimiter}</li>
  *   <li>请求历史记录：异步保存每次调用的详细信息</li>
+ *   <li>实时统计：内存中记录每个Mock的命中次数、延迟分位数和RPS，以及未匹配的请求</li>
  * </ul>
  * </p>
  * <p>
@@ -43,6 +75,15 @@ import java.nio.charset.StandardCharsets;
  * POST http://localhost:8080/api/mock/users
  * -> 延迟1秒后返回responseBody
  *
+ * // Mock配置: path="/users/{id}", responseBody="{\"id\": \"{{path.id}}\", \"page\": {{query.page:1}}}"
+ * GET http://localhost:8080/api/mock/users/42?page=3
+ * -> 返回 {"id": "42", "page": 3}
+ *
+ * // Mock配置: path="/prices", responseType="SSE", streamInterval=500,
+ * //          responseBody="[{\"event\": \"price\", \"data\": {\"p\": 10}}, {\"event\": \"price\", \"data\": {\"p\": 11}}]"
+ * GET http://localhost:8080/api/mock/prices
+ * -> 每 500 毫秒发送一个 price 事件，共 2 个
+ *
  * // Mock配置: path="/proto/data", responseType="PROTOBUF"
  * GET http://localhost:8080/api/mock/proto/data
  * -> 返回protobuf二进制数据
@@ -52,8 +93,12 @@ import java.nio.charset.StandardCharsets;
  * @author Mock Service Team
  * @version 1.0
  * @since 2024-01-01
- * @see MockConfigService
+ * @see MockRouteService
  * @see MockHistoryService
+ * @see MockDelayScheduler
+ * @see MockResponseStreamer
+ * @see MockCapacityService
+ * @see MockStatsService
  * @see ProtoService
  */
 @Slf4j
@@ -63,32 +108,56 @@ import java.nio.charset.StandardCharsets;
 @CrossOrigin(origins = "*")
 public class DynamicMockController {
 
-    /** Mock配置服务，用于查找匹配的Mock配置 */
-    private final MockConfigService mockConfigService;
+    /** 指定客户端标识的请求头，STICKY 变体策略按此固定返回同一个变体 */
+    private static final String CLIENT_HEADER = "X-Mock-Client";
+
+    /** 返回响应变体时附带的响应头，值为变体名称 */
+    private static final String VARIANT_HEADER = "X-Mock-Variant";
+
+    /** Mock路由服务，用于在内存中查找匹配的Mock配置 */
+    private final MockRouteService mockRouteService;
 
     /** Mock历史服务，用于保存调用记录 */
     private final MockHistoryService mockHistoryService;
 
+    /** 延迟调度器，用于非阻塞地模拟响应延迟 */
+    private final MockDelayScheduler mockDelayScheduler;
+
+    /** 限速输出器，按配置的带宽或块间隔慢速输出响应体 */
+    private final MockResponseStreamer mockResponseStreamer;
+
+    /** 容量限制服务，按并发数和每秒请求数上限准入、排队或拒绝请求 */
+    private final MockCapacityService mockCapacityService;
+
+    /** 实时统计服务，记录命中次数、延迟分布和未匹配请求，并汇报 Micrometer 指标 */
+    private final MockStatsService mockStatsService;
+
     /** Proto服务，用于处理Protobuf格式响应 */
     private final ProtoService protoService;
 
+    /** Protobuf响应缓存，避免每次请求重复编码 */
+    private final ProtobufResponseCache protobufResponseCache;
+
     /**
      * 处理所有Mock请求
      * <p>
      * 这是核心的Mock处理方法，执行流程：
      * <ol>
      *   <li>解析请求路径和HTTP方法</li>
-     *   <li>查找匹配的Mock配置（必须是启用状态）</li>
-     *   <li>读取请求体内容</li>
-     *   <li>应用配置的响应延迟</li>
-     *   <li>根据responseType构建响应（JSON或Protobuf）</li>
-     *   <li>异步保存调用历史记录</li>
-     *   <li>返回模拟响应</li>
+     *   <li>查找匹配的路由（必须是启用状态）</li>
+     *   <li>读取请求体内容，按请求体选择具体的Mock配置</li>
+     *   <li>按容量限制准入：超出上限时排队（准入后重新分派回本方法继续处理）或拒绝</li>
+     *   <li>根据responseType构建响应（JSON或Protobuf），静态响应直接使用预编码或缓存的字节；
+     *       SSE/NDJSON 事件流进入异步发送</li>
+     *   <li>保存调用历史记录</li>
+     *   <li>返回模拟响应；配置了延迟时返回 DeferredResult，由定时器到期后完成</li>
      * </ol>
      * </p>
      *
      * @param request HttpServletRequest对象，包含请求的所有信息
-     * @return ResponseEntity 包含Mock配置的响应体、状态码和Content-Type
+     * @param response HttpServletResponse对象，预编码的响应直接写入其输出流
+     * @return 直接写出、限速输出、事件流响应或排队时返回 null；未匹配、拒绝或出错时为 ResponseEntity；
+     *         配置了延迟时为包装响应的 DeferredResult
      */
     @RequestMapping(value = "/**", method = {
         RequestMethod.GET,
@@ -99,8 +168,13 @@ public class DynamicMockController {
         RequestMethod.OPTIONS,
         RequestMethod.HEAD
     })
-    public ResponseEntity<?> handleMockRequest(HttpServletRequest request) {
-        long startTime = System.currentTimeMillis();
+    public Object handleMockRequest(HttpServletRequest request, HttpServletResponse response) {
+        // 排队后重新分派的请求沿用首次进入时的开始时间和请求体
+        Admission admission = mockCapacityService.resume(request);
+        long startTime = admission != null ? admission.getStartTime() : System.currentTimeMillis();
+        long startNanos = admission != null ? admission.getStartNanos() : System.nanoTime();
+        // 响应交给延迟或流式输出后，由它们在完成时归还并发许可
+        boolean handedOff = false;
 
         try {
             // 获取请求路径（去掉 /api/mock 前缀）
@@ -109,107 +183,222 @@ public class DynamicMockController {
 
             log.info("收到 Mock 请求: {} {}", method, requestPath);
 
-            // 查找匹配的 Mock 配置
-            MockConfig mockConfig = mockConfigService.findMockByPathAndMethod(requestPath, method);
+            // 查找匹配的路由（内存路由表，不访问数据库）
+            RouteMatch<MockRoute> match = mockRouteService.findRoute(requestPath, method);
 
-            if (mockConfig == null) {
+            if (match == null) {
                 log.warn("未找到匹配的 Mock 配置: {} {}", method, requestPath);
+                mockStatsService.recordMiss(method, requestPath, System.nanoTime() - startNanos);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("{\"error\": \"未找到匹配的 Mock 配置\"}");
             }
 
             // 读取请求体
-            String requestBody = null;
-            try {
-                requestBody = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
-            } catch (Exception e) {
-                log.error("读取请求体失败", e);
+            String requestBody = admission != null ? admission.getRequestBody() : null;
+            if (admission == null) {
+                try {
+                    requestBody = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+                } catch (Exception e) {
+                    log.error("读取请求体失败", e);
+                }
             }
 
-            // 模拟延迟
-            if (mockConfig.getDelay() != null && mockConfig.getDelay() > 0) {
-                Thread.sleep(mockConfig.getDelay());
+            // 按请求体选择具体的 Mock 配置
+            CompiledMock compiledMock = match.value().select(requestBody);
+            if (compiledMock == null) {
+                log.warn("未找到匹配请求体的 Mock 配置: {} {}", method, requestPath);
+                mockStatsService.recordMiss(method, requestPath, System.nanoTime() - startNanos);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("{\"error\": \"未找到匹配请求体的 Mock 配置\"}");
             }
+            MockConfig mockConfig = compiledMock.getConfig();
 
-            // 准备响应
-            String responseBody = mockConfig.getResponseBody();
-            Integer statusCode = mockConfig.getStatusCode();
-            String contentType = mockConfig.getContentType();
+            // 容量限制：超出并发或速率上限时排队（请求进入异步模式）或拒绝
+            if (admission == null) {
+                admission = mockCapacityService.admit(request, response, compiledMock, requestBody,
+                    startTime, startNanos);
+                if (admission.getOutcome() == Admission.Outcome.QUEUED) {
+                    return null;
+                }
+                if (admission.getOutcome() == Admission.Outcome.REJECTED) {
+                    log.debug("Mock 容量已满，拒绝请求: {} {}, status={}", method, requestPath, admission.getStatus());
+                    mockStatsService.recordHit(mockConfig, admission.getStatus(), 0, System.nanoTime() - startNanos);
+                    return ResponseEntity.status(admission.getStatus()).body(MockCapacityService.OVERLOAD_BODY);
+                }
+            }
 
-            // 计算响应时间
-            long responseTime = System.currentTimeMillis() - startTime;
+            // 按变体策略选择本次响应（未配置变体时即 Mock 配置本身的响应）
+            CompiledResponse selected = compiledMock.selectResponse(() -> clientKey(request));
 
-            // 保存历史记录（异步，记录原始 JSON 格式的 responseBody）
+            // 准备响应：优先使用构建路由表时预编码的响应，模板响应按请求渲染
+            PreparedResponse prepared = selected.getPreparedResponse();
+            ResponseTemplate template = selected.getTemplate();
+            boolean protobuf = "PROTOBUF".equals(mockConfig.getResponseType());
+            ResponseTemplate.Context context = new ResponseTemplate.Context(match.variables(),
+                request::getParameter, request::getHeader, requestBody);
+            // JSON/文本模板直接渲染为响应体字节，不经过 String；Protobuf 模板渲染出的 JSON 还要再编码
+            PreparedResponse rendered = template != null && !protobuf ? selected.render(context) : null;
+            String responseBody = rendered != null ? null
+                : template != null ? template.render(context) : selected.getResponseBody();
+            int statusCode = selected.getStatusCode();
+            // 按延迟分布采样本次延迟（线程本地随机数，无竞争）
+            long delay = selected.sampleDelay();
+
+            // 计算响应时间（包含配置的延迟）
+            long responseTime = System.currentTimeMillis() - startTime + delay;
+
+            // 保存历史记录（异步，记录原始 JSON 格式的 responseBody；渲染出的字节在写入线程中才解码）
             try {
-                mockHistoryService.saveHistory(
-                    mockConfig.getId(),
-                    mockConfig.getName(),
-                    request,
-                    requestBody,
-                    statusCode,
-                    responseBody,
-                    responseTime
-                );
+                if (rendered != null) {
+                    mockHistoryService.saveHistory(
+                        mockConfig.getId(),
+                        mockConfig.getName(),
+                        request,
+                        requestBody,
+                        statusCode,
+                        rendered.getBody(),
+                        PreparedResponse.charsetOf(rendered.getMediaType()),
+                        responseTime
+                    );
+                } else {
+                    mockHistoryService.saveHistory(
+                        mockConfig.getId(),
+                        mockConfig.getName(),
+                        request,
+                        requestBody,
+                        statusCode,
+                        responseBody,
+                        responseTime
+                    );
+                }
             } catch (Exception e) {
                 log.error("保存历史记录失败", e);
             }
 
-            // 根据响应类型返回不同格式
-            if ("PROTOBUF".equals(mockConfig.getResponseType())) {
-                return handleProtobufResponse(mockConfig, statusCode, responseBody);
+            if (selected.isVariant()) {
+                response.setHeader(VARIANT_HEADER, selected.getVariantName());
+            }
+
+            // SSE/NDJSON 事件流：在长连接上按间隔异步发送事件（延迟在第一个事件之前生效）
+            EventScript eventScript = selected.getEventScript();
+            if (eventScript != null) {
+                long count = mockConfig.getStreamCount() != null ? mockConfig.getStreamCount() : eventScript.size();
+                long interval = mockConfig.getStreamInterval() != null
+                    ? mockConfig.getStreamInterval() : EventScript.DEFAULT_INTERVAL_MS;
+                if (!mockResponseStreamer.streamEvents(request, response, statusCode, eventScript, context,
+                        count, interval, delay, admission::release)) {
+                    return streamLimitExceeded(startNanos);
+                }
+                handedOff = true;
+                mockStatsService.recordHit(mockConfig, statusCode, 0,
+                    System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delay));
+                return null;
             }
 
-            // 默认 JSON/文本响应
-            return ResponseEntity
-                .status(statusCode)
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(responseBody);
+            if (protobuf) {
+                // Protobuf 响应：配置本身的静态响应体的编码结果由缓存提供，变体和模板按请求编码
+                ResponseEntity<?> error = checkProtobufConfig(mockConfig);
+                if (error != null) {
+                    mockStatsService.recordError(System.nanoTime() - startNanos);
+                    return error;
+                }
+                String protoJson = responseBody;
+                prepared = template != null || selected.isVariant()
+                    ? PreparedResponse.dynamic(statusCode, ProtobufResponseCache.PROTOBUF_MEDIA_TYPE,
+                        encodeProtobuf(mockConfig, protoJson))
+                    : protobufResponseCache.get(mockConfig, () -> encodeProtobuf(mockConfig, protoJson));
+            } else if (rendered != null) {
+                prepared = rendered;
+            } else if (prepared == null) {
+                // 预编码失败的静态响应（如 Content-Type 无效）
+                prepared = PreparedResponse.of(statusCode, mockConfig.getContentType(), responseBody);
+            }
+
+            // 限速输出：异步非阻塞分块写出，块间隔由共享定时器驱动（延迟在第一块之前生效）
+            ResponseThrottle throttle = compiledMock.getThrottle();
+            if (throttle != null) {
+                if (!mockResponseStreamer.stream(request, response, prepared, throttle, delay, admission::release)) {
+                    return streamLimitExceeded(startNanos);
+                }
+                handedOff = true;
+                mockStatsService.recordHit(mockConfig, prepared.getStatus(), prepared.getContentLength(),
+                    System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delay));
+                return null;
+            }
+
+            // 模拟延迟：释放请求线程，由定时器到期后完成响应（统计耗时包含配置的延迟）
+            if (delay > 0) {
+                mockStatsService.recordHit(mockConfig, prepared.getStatus(), prepared.getContentLength(),
+                    System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delay));
+                handedOff = true;
+                return mockDelayScheduler.delay(prepared.toResponseEntity(), delay, admission::release);
+            }
+
+            // 直接写入输出流
+            prepared.writeTo(response, request.getHeader(HttpHeaders.IF_NONE_MATCH));
+            mockStatsService.recordHit(mockConfig, prepared.getStatus(), prepared.getContentLength(),
+                System.nanoTime() - startNanos);
+            return null;
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Mock 请求处理被中断", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("{\"error\": \"请求处理被中断\"}");
         } catch (Exception e) {
             log.error("处理 Mock 请求失败", e);
+            mockStatsService.recordError(System.nanoTime() - startNanos);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("{\"error\": \"" + e.getMessage() + "\"}");
+        } finally {
+            if (admission != null && !handedOff) {
+                admission.release();
+            }
         }
     }
 
     /**
-     * 处理 Protobuf 格式响应
-     * <p>
-     * 将 MockConfig 中的 JSON 格式 responseBody 转换为 Protobuf 二进制数据返回。
-     * </p>
+     * 并发流式响应数量达到上限时的响应
      */
-    private ResponseEntity<?> handleProtobufResponse(MockConfig mockConfig, Integer statusCode, String responseBody) {
-        try {
-            if (mockConfig.getProtoFileId() == null || mockConfig.getProtoMessageType() == null) {
-                log.error("Protobuf 响应配置不完整: protoFileId={}, protoMessageType={}",
-                    mockConfig.getProtoFileId(), mockConfig.getProtoMessageType());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("{\"error\": \"Protobuf 响应配置不完整，缺少 protoFileId 或 protoMessageType\"}");
-            }
+    private ResponseEntity<?> streamLimitExceeded(long startNanos) {
+        mockStatsService.recordError(System.nanoTime() - startNanos);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body("{\"error\": \"并发流式响应数量已达上限\"}");
+    }
+
+    /**
+     * STICKY 变体策略使用的客户端标识：优先取 X-Mock-Client 请求头，否则为客户端IP
+     */
+    private String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(CLIENT_HEADER);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+
+    /**
+     * 检查 Protobuf 响应配置是否完整
+     *
+     * @return 配置不完整时返回错误响应，否则返回 null
+     */
+    private ResponseEntity<?> checkProtobufConfig(MockConfig mockConfig) {
+        if (mockConfig.getProtoFileId() == null || mockConfig.getProtoMessageType() == null) {
+            log.error("Protobuf 响应配置不完整: protoFileId={}, protoMessageType={}",
+                mockConfig.getProtoFileId(), mockConfig.getProtoMessageType());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("{\"error\": \"Protobuf 响应配置不完整，缺少 protoFileId 或 protoMessageType\"}");
+        }
+        return null;
+    }
 
+    /**
+     * 将 MockConfig 中的 JSON 格式响应体转换为 Protobuf 二进制数据
+     */
+    private byte[] encodeProtobuf(MockConfig mockConfig, String responseBody) {
+        try {
             byte[] protoBytes = protoService.jsonToProtobuf(
                 mockConfig.getProtoFileId(),
                 mockConfig.getProtoMessageType(),
                 responseBody
             );
-
             log.info("Protobuf 响应生成成功: messageType={}, 大小={} bytes",
                 mockConfig.getProtoMessageType(), protoBytes.length);
-
-            return ResponseEntity
-                .status(statusCode)
-                .contentType(MediaType.parseMediaType("application/x-protobuf"))
-                .body(protoBytes);
-
-        } catch (Exception e) {
-            log.error("生成 Protobuf 响应失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("{\"error\": \"Protobuf 响应生成失败: " + e.getMessage() + "\"}");
+            return protoBytes;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Protobuf 响应生成失败: " + e.getMessage(), e);
         }
     }
 }
@@ -1,15 +1,23 @@
 package com.mock.service.controller;
 
 import com.mock.service.dto.MockConfigRequest;
+import com.mock.service.dto.MockImportResult;
 import com.mock.service.dto.Result;
 import com.mock.service.entity.MockConfig;
+import com.mock.service.route.MockRouteTable;
 import com.mock.service.service.MockConfigService;
+import com.mock.service.service.MockImportService;
+import com.mock.service.service.MockRouteService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Mock 配置管理 Controller
@@ -22,6 +30,8 @@ import java.util.List;
 public class MockConfigController {
 
     private final MockConfigService mockConfigService;
+    private final MockRouteService mockRouteService;
+    private final MockImportService mockImportService;
 
     /**
      * 创建 Mock 配置
@@ -118,18 +128,79 @@ public class MockConfigController {
         }
     }
 
+    /**
+     * 调整 Mock 显示顺序：移动到 afterId 之后，不传 afterId 时移动到最前面
+     */
+    @PutMapping("/{id}/move")
+    public Result<MockConfig> moveMock(@PathVariable Long id, @RequestParam(required = false) Long afterId) {
+        try {
+            MockConfig config = mockConfigService.moveMock(id, afterId);
+            return Result.success(config);
+        } catch (Exception e) {
+            log.error("调整 Mock 顺序失败", e);
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 批量导入 Mock 配置
+     * <p>
+     * 请求体为 Mock 配置 JSON 数组，流式解析并分批写入，返回各行的导入结果。
+     * 导入在本请求的线程中同步执行（请求体边上传边导入），请求在导入结束后才返回；
+     * 需要查看进度时由调用方指定 jobId，在导入过程中从另一个请求调用 GET /mock-config/import/{jobId} 查询。
+     * </p>
      */
     @PostMapping("/import")
-    public Result<List<MockConfig>> importMocks(@RequestBody List<MockConfigRequest> requests) {
+    public Result<MockImportResult> importMocks(HttpServletRequest request,
+                                                @RequestParam(required = false) String jobId) {
         try {
-            log.info("开始批量导入 Mock 配置，数量: {}", requests.size());
-            List<MockConfig> configs = mockConfigService.importMocks(requests);
-            return Result.success(configs);
+            log.info("开始批量导入 Mock 配置，jobId: {}, 大小: {} 字节", jobId, request.getContentLengthLong());
+            MockImportResult result = mockImportService.importMocks(request.getInputStream(), jobId);
+            return Result.success(result);
         } catch (Exception e) {
             log.error("批量导入 Mock 配置失败", e);
             return Result.error(e.getMessage());
         }
     }
+
+    /**
+     * 查询批量导入进度
+     */
+    @GetMapping("/import/{jobId}")
+    public Result<MockImportResult> getImportJob(@PathVariable String jobId) {
+        try {
+            return Result.success(mockImportService.getJob(jobId));
+        } catch (Exception e) {
+            log.error("查询导入进度失败", e);
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取内存路由表状态
+     */
+    @GetMapping("/route-table")
+    public Result<Map<String, Object>> getRouteTable() {
+        MockRouteTable table = mockRouteService.getRouteTable();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", table.getVersion());
+        stats.put("size", table.size());
+        stats.put("buildTimeMs", TimeUnit.NANOSECONDS.toMillis(table.getBuildNanos()));
+        stats.put("stalenessMs", mockRouteService.getStalenessMs());
+        return Result.success(stats);
+    }
+
+    /**
+     * 手动全量刷新内存路由表（例如直接修改数据库后）
+     */
+    @PostMapping("/route-table/refresh")
+    public Result<Void> refreshRouteTable() {
+        try {
+            mockRouteService.refresh("manual");
+            return Result.success();
+        } catch (Exception e) {
+            log.error("刷新 Mock 路由表失败", e);
+            return Result.error(e.getMessage());
+        }
+    }
 }
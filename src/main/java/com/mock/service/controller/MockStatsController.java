@@ -0,0 +1,64 @@
+package com.mock.service.controller;
+
+import com.mock.service.dto.MockMissSnapshot;
+import com.mock.service.dto.MockStatsSnapshot;
+import com.mock.service.dto.Result;
+import com.mock.service.service.MockStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Mock 实时统计 Controller
+ * <p>
+ * 提供内存中的命中次数、延迟分位数、RPS 和未匹配请求统计，不查询历史记录表。
+ * </p>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/mock-stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MockStatsController {
+
+    private final MockStatsService mockStatsService;
+
+    /**
+     * 获取所有 Mock 的实时统计（按命中次数降序）
+     */
+    @GetMapping
+    public Result<List<MockStatsSnapshot>> getAllStats() {
+        return Result.success(mockStatsService.getAllStats());
+    }
+
+    /**
+     * 获取指定 Mock 的实时统计
+     */
+    @GetMapping("/{mockConfigId}")
+    public Result<MockStatsSnapshot> getStats(@PathVariable Long mockConfigId) {
+        MockStatsSnapshot stats = mockStatsService.getStats(mockConfigId);
+        if (stats == null) {
+            return Result.error("该 Mock 暂无调用统计");
+        }
+        return Result.success(stats);
+    }
+
+    /**
+     * 获取未匹配到 Mock 配置（404）的请求统计
+     */
+    @GetMapping("/misses")
+    public Result<List<MockMissSnapshot>> getMissStats() {
+        return Result.success(mockStatsService.getMissStats());
+    }
+
+    /**
+     * 重置所有实时统计
+     */
+    @DeleteMapping
+    public Result<Void> reset() {
+        mockStatsService.reset();
+        return Result.success();
+    }
+}
@@ -2,7 +2,10 @@ package com.mock.service.controller;
 
 import com.mock.service.dto.Result;
 import com.mock.service.dto.TestExecutionResult;
+import com.mock.service.dto.TestSuiteRequest;
+import com.mock.service.dto.TestSuiteResult;
 import com.mock.service.service.TestExecutionService;
+import com.mock.service.service.TestSuiteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +22,8 @@ public class TestExecutionController {
 
     private final TestExecutionService executionService;
 
+    private final TestSuiteService suiteService;
+
     /**
      * 执行测试场景
      */
@@ -36,4 +41,41 @@ public class TestExecutionController {
             return Result.error(e.getMessage());
         }
     }
+
+    /**
+     * 并行执行多个测试场景（后台执行，立即返回 suiteId）
+     */
+    @PostMapping("/suite")
+    public Result<TestSuiteResult> startSuite(@RequestBody TestSuiteRequest request) {
+        try {
+            return Result.success(suiteService.startSuite(request));
+        } catch (Exception e) {
+            log.error("启动测试套件失败", e);
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询测试套件进度
+     */
+    @GetMapping("/suite/{suiteId}")
+    public Result<TestSuiteResult> getSuite(@PathVariable String suiteId) {
+        try {
+            return Result.success(suiteService.getSuite(suiteId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 取消测试套件
+     */
+    @DeleteMapping("/suite/{suiteId}")
+    public Result<TestSuiteResult> cancelSuite(@PathVariable String suiteId) {
+        try {
+            return Result.success(suiteService.cancelSuite(suiteId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
 }
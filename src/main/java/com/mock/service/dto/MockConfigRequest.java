@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * Mock 配置请求 DTO
  */
@@ -26,10 +28,43 @@ public class MockConfigRequest {
 
     private String requestBody;
 
+    /** 请求体匹配方式：EXACT（默认）、SUBSET、REGEX */
+    private String requestBodyMatchType = "EXACT";
+
     private String responseBody;
 
     private Integer delay = 0;
 
+    /** 延迟分布类型：FIXED（默认）、UNIFORM、NORMAL、LOG_NORMAL、PERCENTILE */
+    private String delayDistribution = "FIXED";
+
+    /** 延迟分布参数，如 "min=20,max=80"、"p50=20,p99=250" */
+    private String delayParams;
+
+    /** 限速带宽（字节/秒），为空表示不限速 */
+    private Integer throttleRate;
+
+    /** 限速输出时每块的字节数 */
+    private Integer chunkSize;
+
+    /** 限速输出时相邻两块的间隔（毫秒），不能与 throttleRate 同时配置 */
+    private Integer chunkDelay;
+
+    /** 并发上限，为空表示不限制 */
+    private Integer maxConcurrency;
+
+    /** 每秒准入的请求数上限，为空表示不限制 */
+    private Integer rateLimit;
+
+    /** 超出容量时最多排队的请求数，为空或 0 表示直接拒绝 */
+    private Integer maxQueue;
+
+    /** 排队等待的最长时间（毫秒），默认 10000 */
+    private Integer queueTimeout;
+
+    /** 因容量限制拒绝请求时返回的状态码，默认 503 */
+    private Integer overloadStatus;
+
     private Boolean enabled = true;
 
     private String description;
@@ -42,4 +77,16 @@ public class MockConfigRequest {
 
     /** Proto message 类型名称（仅 PROTOBUF 类型使用） */
     private String protoMessageType;
+
+    /** 事件流中相邻两个事件的间隔（毫秒，仅 SSE、NDJSON 类型使用） */
+    private Integer streamInterval;
+
+    /** 事件流发送的事件数，为空时发送脚本中的全部事件，0 表示不限（仅 SSE、NDJSON 类型使用） */
+    private Integer streamCount;
+
+    /** 响应变体选择策略：NONE（默认）、SEQUENCE、WEIGHTED、EVERY_NTH、STICKY */
+    private String variantStrategy = "NONE";
+
+    /** 响应变体，为 null 时更新不修改已有变体，空列表表示清空 */
+    private List<MockResponseVariantRequest> variants;
 }
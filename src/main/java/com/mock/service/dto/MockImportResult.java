@@ -0,0 +1,39 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mock 批量导入进度/结果 DTO
+ */
+@Data
+public class MockImportResult {
+    private String jobId;
+    private String status; // RUNNING / COMPLETED / FAILED
+
+    // 行数统计
+    private Integer processed; // 已解析的行数
+    private Integer imported;  // 成功写入的行数
+    private Integer skipped;   // 与已有配置冲突而跳过的行数
+    private Integer failed;    // 校验或写入失败的行数
+
+    private List<RowError> errors; // 失败行明细（最多保留前 1000 条）
+    private String errorMessage;   // 整体失败原因（如 JSON 格式错误）
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long duration; // 耗时（毫秒）
+
+    /**
+     * 单行错误
+     */
+    @Data
+    public static class RowError {
+        private Integer row; // 行号（从 1 开始）
+        private String method;
+        private String path;
+        private String message;
+    }
+}
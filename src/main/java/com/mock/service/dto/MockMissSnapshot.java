@@ -0,0 +1,17 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 未匹配到 Mock 配置（404）的请求统计快照 DTO
+ */
+@Data
+public class MockMissSnapshot {
+    private String method;
+    private String path; // 超出统计路径数上限时为 "*"
+    private Long count;
+    private Double rps60s;
+    private LocalDateTime lastSeenAt;
+}
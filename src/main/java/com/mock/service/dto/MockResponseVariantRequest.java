@@ -0,0 +1,34 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+/**
+ * Mock 响应变体请求 DTO
+ * <p>
+ * 状态码、Content-Type 和延迟为空时沿用所属 Mock 配置的值，顺序即列表中的顺序。
+ * </p>
+ */
+@Data
+public class MockResponseVariantRequest {
+
+    /** 变体名称，如 "成功"、"超时"、"服务不可用" */
+    private String name;
+
+    /** 响应状态码，为空时使用 Mock 配置的状态码 */
+    private Integer statusCode;
+
+    /** 响应 Content-Type，为空时使用 Mock 配置的 Content-Type */
+    private String contentType;
+
+    /** 响应体，支持与 Mock 配置相同的模板语法 */
+    private String responseBody;
+
+    /** 响应延迟（毫秒），为空时使用 Mock 配置的延迟 */
+    private Integer delay;
+
+    /** 权重（WEIGHTED、STICKY 使用），为空时为 1 */
+    private Integer weight;
+
+    /** 每 N 次调用返回一次该变体（EVERY_NTH 使用） */
+    private Integer everyN;
+}
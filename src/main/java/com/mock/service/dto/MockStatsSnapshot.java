@@ -0,0 +1,39 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单个 Mock 配置的实时统计快照 DTO
+ */
+@Data
+public class MockStatsSnapshot {
+    private Long mockConfigId;
+    private String name;
+    private String method;
+    private String path;
+
+    // 计数
+    private Long hits;
+    private Long clientErrors; // 4xx 响应次数
+    private Long serverErrors; // 5xx 响应次数
+
+    // 容量限制
+    private Long rejected; // 因容量限制而拒绝的次数
+    private Integer queued; // 当前排队的请求数
+
+    // 每秒请求数（最近 1/10/60 秒的平均值）
+    private Double rps1s;
+    private Double rps10s;
+    private Double rps60s;
+
+    // 延迟（毫秒，包含配置的延迟时间）
+    private Double meanMs;
+    private Double p50Ms;
+    private Double p90Ms;
+    private Double p99Ms;
+    private Double maxMs;
+
+    private LocalDateTime lastHitAt;
+}
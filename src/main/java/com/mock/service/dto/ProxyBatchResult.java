@@ -0,0 +1,17 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+/**
+ * 批量代理中单个请求的结果 DTO（每完成一个请求推送一条）
+ */
+@Data
+public class ProxyBatchResult {
+    private String type = "result";
+    private Integer index; // 请求在批量请求中的下标
+    private String method;
+    private String url;
+    private Long queuedMs; // 从批量请求开始到该请求开始执行的时间（毫秒）
+    private Long durationMs; // 请求耗时（毫秒）
+    private ProxyResponse response;
+}
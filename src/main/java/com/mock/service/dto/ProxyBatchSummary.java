@@ -0,0 +1,17 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+/**
+ * 批量代理汇总 DTO（全部请求完成后推送，作为最后一条）
+ */
+@Data
+public class ProxyBatchSummary {
+    private String type = "done";
+    private Integer total;
+    private Integer succeeded; // 状态码小于 400 的请求数
+    private Integer failed;
+    private Long elapsedMs; // 批量请求总耗时（毫秒）
+    private Long sumDurationMs; // 各请求耗时之和（毫秒），与 elapsedMs 对比可以看出并行节省的时间
+    private String errorMessage;
+}
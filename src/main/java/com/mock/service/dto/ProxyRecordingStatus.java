@@ -0,0 +1,19 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+/**
+ * 代理录制状态 DTO
+ */
+@Data
+public class ProxyRecordingStatus {
+    private String mode; // OFF / RECORD / REPLAY
+    private Integer pending; // 等待写入的录制数
+    private Long captured; // 已录制（进入写入队列）的请求数
+    private Long deduplicated; // 内容与已录制响应相同而跳过的请求数
+    private Long changed; // 内容与已录制响应不同而跳过的请求数（保留第一次录制的响应）
+    private Long dropped; // 写入队列已满而丢弃的请求数
+    private Long replayed; // 回放的请求数
+    private Long imported; // 写入数据库的 Mock 配置数
+    private Long skipped; // 数据库中已存在相同配置而跳过的数量
+}
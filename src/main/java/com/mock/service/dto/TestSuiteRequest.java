@@ -0,0 +1,15 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 测试套件执行请求 DTO
+ */
+@Data
+public class TestSuiteRequest {
+    private List<Long> scenarioIds; // 要执行的场景ID（重复的ID只执行一次）
+    private Long environmentId; // 环境ID，为空时不进行变量替换
+    private Integer parallelism; // 同时执行的场景数，为空时使用 mock.test.suite.parallelism
+    private Integer maxPerHost; // 同一目标主机同时进行的步骤请求数，为空时使用 mock.test.suite.max-per-host，0 表示不限制
+}
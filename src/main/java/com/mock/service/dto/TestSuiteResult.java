@@ -0,0 +1,47 @@
+package com.mock.service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 测试套件执行进度/结果 DTO
+ */
+@Data
+public class TestSuiteResult {
+    private String suiteId;
+    private String status; // RUNNING / COMPLETED / CANCELLED / FAILED
+    private Long environmentId;
+    private Integer parallelism;
+
+    // 场景统计
+    private Integer total;
+    private Integer completed; // 已执行完成的场景数（通过 + 失败）
+    private Integer passed;
+    private Integer failed;
+    private Integer cancelled; // 因取消未执行或被中断的场景数
+    private Integer savedHistories; // 已批量写入的执行历史条数
+
+    private List<ScenarioOutcome> scenarios; // 已完成场景的结果摘要（完成顺序）
+    private String errorMessage;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long duration; // 总耗时（毫秒）
+    private Long sumDuration; // 各场景耗时之和（毫秒），与 duration 对比可以看出并行节省的时间
+
+    /**
+     * 单个场景的结果摘要（步骤明细见执行历史）
+     */
+    @Data
+    public static class ScenarioOutcome {
+        private Long scenarioId;
+        private String scenarioName;
+        private Boolean success;
+        private Integer passedSteps;
+        private Integer failedSteps;
+        private Long duration; // 耗时（毫秒）
+        private String errorMessage;
+    }
+}
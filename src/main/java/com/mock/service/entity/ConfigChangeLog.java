@@ -0,0 +1,82 @@
+package com.mock.service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 配置变更日志实体
+ * <p>
+ * Mock 配置和 Proto 文件的每次变更都会在同一事务中写入一条记录，
+ * 自增 ID 即单调递增的配置版本号。集群中的各节点轮询该表，
+ * 只重新加载版本号之后发生变更的行，实现多副本之间的快照失效。
+ * </p>
+ */
+@Data
+@Entity
+@Table(name = "config_change_log", indexes = {
+    @Index(name = "idx_config_change_log_created_at", columnList = "createdAt")
+})
+public class ConfigChangeLog {
+
+    /**
+     * 实体类型：Mock 配置
+     */
+    public static final String ENTITY_MOCK_CONFIG = "MOCK_CONFIG";
+
+    /**
+     * 实体类型：Proto 文件
+     */
+    public static final String ENTITY_PROTO_FILE = "PROTO_FILE";
+
+    /**
+     * 变更类型：新增或修改
+     */
+    public static final String CHANGE_UPSERT = "UPSERT";
+
+    /**
+     * 变更类型：删除
+     */
+    public static final String CHANGE_DELETE = "DELETE";
+
+    /**
+     * 变更类型：批量变更，需要全量重新加载
+     */
+    public static final String CHANGE_RELOAD = "RELOAD";
+
+    /**
+     * 配置版本号（自增）
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 实体类型：MOCK_CONFIG / PROTO_FILE
+     */
+    @Column(nullable = false, length = 20)
+    private String entityType;
+
+    /**
+     * 变更的实体 ID（RELOAD 时为空）
+     */
+    private Long entityId;
+
+    /**
+     * 变更类型：UPSERT / DELETE / RELOAD
+     */
+    @Column(nullable = false, length = 10)
+    private String changeType;
+
+    /**
+     * 发起变更的节点
+     */
+    @Column(length = 100)
+    private String nodeId;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
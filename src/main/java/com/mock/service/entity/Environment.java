@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "environment")
+@Table(name = "environment", indexes = {
+    @Index(name = "idx_environment_display_order", columnList = "displayOrder")
+})
 public class Environment {
 
     @Id
@@ -6,6 +6,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Mock配置实体类
@@ -19,7 +20,7 @@ import java.time.LocalDateTime;
  * <p>
  * 主要特性：
  * <ul>
- *   <li>唯一性约束：path字段具有唯一约束，同一路径和方法组合不能重复</li>
+ *   <li>唯一性：同一路径、方法和请求体匹配内容的组合不能重复，同一路径可按请求体配置多个Mock</li>
  *   <li>自动时间戳：createdAt和updatedAt由Hibernate自动管理</li>
  *   <li>启用/禁用：支持通过enabled字段控制Mock是否生效</li>
  *   <li>响应延迟：支持模拟网络延迟</li>
@@ -32,7 +33,10 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "mock_config")
+@Table(name = "mock_config", indexes = {
+    @Index(name = "idx_mock_config_path_method", columnList = "path, method"),
+    @Index(name = "idx_mock_config_display_order", columnList = "displayOrder")
+})
 public class MockConfig {
 
     /**
@@ -45,8 +49,8 @@ public class MockConfig {
     /**
      * 显示序号
      * <p>
-     * 用于前端列表展示的连续序号，从1开始。
-     * 创建时自动分配为当前最大序号+1，删除后会重新排序。
+     * 用于前端列表排序，按 {@link com.mock.service.util.DisplayOrders#GAP} 间隔分配，不要求连续。
+     * 创建时分配为当前最大序号+间隔，删除时不重排其他记录，移动时取前后两条记录序号的中间值。
      * </p>
      */
     @Column
@@ -69,10 +73,14 @@ public class MockConfig {
      * 例如：/api/user/info, /api/v1/login
      * </p>
      * <p>
-     * 注意：具有唯一约束，同一路径和方法组合不能重复配置
+     * 支持路径模板：/users/{id}、/users/{id:\d+}、/files/*、/files/**、/files/{*rest}，
+     * 匹配规则见 {@link com.mock.service.route.PathTemplateRouter}。
+     * </p>
+     * <p>
+     * 注意：同一路径和方法可以配置多个Mock，通过请求体匹配区分
      * </p>
      */
-    @Column(nullable = false, unique = true, length = 500)
+    @Column(nullable = false, length = 500)
     private String path;
 
     /**
@@ -124,12 +132,29 @@ public class MockConfig {
      * <p>
      * 可选字段，用于更精确的Mock匹配。
      * 如果配置了此字段，只有当请求体与此字段匹配时才返回该Mock响应。
-     * 通常存储为JSON格式。
+     * 匹配方式由 requestBodyMatchType 决定，通常存储为JSON格式。
+     * </p>
+     * <p>
+     * 同一路径和方法下，未配置此字段的Mock作为默认响应，在所有请求体规则都不匹配时返回。
      * </p>
      */
     @Column(columnDefinition = "TEXT")
     private String requestBody;
 
+    /**
+     * 请求体匹配方式
+     * <p>
+     * <ul>
+     *   <li>EXACT: JSON 规范化后完全相等（忽略字段顺序和空白，默认）</li>
+     *   <li>SUBSET: 请求体 JSON 包含 requestBody 中的所有字段</li>
+     *   <li>REGEX: 请求体完整匹配 requestBody 正则表达式</li>
+     * </ul>
+     * 仅在配置了 requestBody 时生效。
+     * </p>
+     */
+    @Column(length = 20)
+    private String requestBodyMatchType = "EXACT";
+
     /**
      * 响应体内容
      * <p>
@@ -172,6 +197,78 @@ public class MockConfig {
     @Column
     private Integer delay = 0;
 
+    /**
+     * 延迟分布类型
+     * <p>
+     * <ul>
+     *   <li>FIXED: 固定延迟，即 delay（默认）</li>
+     *   <li>UNIFORM: 均匀分布，参数 min、max</li>
+     *   <li>NORMAL: 正态分布，参数 mean、stddev</li>
+     *   <li>LOG_NORMAL: 对数正态分布，参数 median、p99</li>
+     *   <li>PERCENTILE: 经验分位数表，参数 p50、p90、p99、p999 等</li>
+     * </ul>
+     * 每次请求按分布采样实际延迟，见 {@link com.mock.service.route.LatencyDistribution}。
+     * </p>
+     */
+    @Column(length = 20)
+    private String delayDistribution = "FIXED";
+
+    /**
+     * 延迟分布参数，"key=value" 逗号分隔，如 "p50=20,p90=60,p99=250,p999=900"（毫秒）
+     */
+    @Column(length = 500)
+    private String delayParams;
+
+    /**
+     * 限速带宽（字节/秒），为空表示不限速
+     * <p>
+     * 配置后响应体按该速率分块慢速输出，可用 chunkSize 指定每块大小。
+     * 也可以不配置带宽，改用 chunkSize + chunkDelay 按固定块间隔输出。
+     * 见 {@link com.mock.service.route.ResponseThrottle}。
+     * </p>
+     */
+    private Integer throttleRate;
+
+    /**
+     * 限速输出时每块的字节数
+     */
+    private Integer chunkSize;
+
+    /**
+     * 限速输出时相邻两块的间隔（毫秒），不能与 throttleRate 同时配置
+     */
+    private Integer chunkDelay;
+
+    /**
+     * 并发上限，为空表示不限制
+     * <p>
+     * 请求从准入到响应完成（包括延迟和限速/事件流输出）一直占用一个并发许可，
+     * 超出时排队（配置了 maxQueue）或按 overloadStatus 拒绝，用于模拟处理能力有限的后端。
+     * 见 {@link com.mock.service.route.CapacityLimiter}。
+     * </p>
+     */
+    private Integer maxConcurrency;
+
+    /**
+     * 每秒准入的请求数上限，为空表示不限制
+     */
+    private Integer rateLimit;
+
+    /**
+     * 超出并发或速率上限时最多排队的请求数，为空或 0 表示直接拒绝
+     */
+    private Integer maxQueue;
+
+    /**
+     * 排队等待的最长时间（毫秒），超时后拒绝，默认 10000
+     */
+    private Integer queueTimeout;
+
+    /**
+     * 因容量限制拒绝请求时返回的状态码，默认 503（也常用 429）
+     */
+    private Integer overloadStatus;
+
     /**
      * 启用状态
      * <p>
@@ -197,7 +294,22 @@ public class MockConfig {
     private String description;
 
     /**
-     * 响应类型：JSON（默认）或 PROTOBUF
+     * 配置来源
+     * <p>
+     * 手工创建或文件导入的配置为空；通过程序内部增量导入通道（{@code MockImportService#openAppender}）写入的配置
+     * 为该通道的来源标识，如代理录制创建的配置为 proxy-recording，代理回放据此识别录制的配置。
+     * 更新配置时保持不变。
+     * </p>
+     */
+    @Column(length = 50)
+    private String source;
+
+    /**
+     * 响应类型：JSON（默认）、PROTOBUF、SSE 或 NDJSON
+     * <p>
+     * SSE、NDJSON 为事件流：响应体是事件脚本（JSON 数组）或单个事件模板，
+     * 在一个长连接上按 streamInterval 间隔发送 streamCount 个事件，见 {@link com.mock.service.route.EventScript}。
+     * </p>
      */
     @Column(length = 20)
     private String responseType = "JSON";
@@ -213,6 +325,41 @@ public class MockConfig {
     @Column(length = 200)
     private String protoMessageType;
 
+    /**
+     * 事件流中相邻两个事件的间隔（毫秒，仅 SSE、NDJSON 类型使用），默认 1000
+     */
+    private Integer streamInterval;
+
+    /**
+     * 事件流发送的事件数（仅 SSE、NDJSON 类型使用）
+     * <p>
+     * 为空时发送脚本中的全部事件；大于脚本事件数时循环发送；0 表示一直发送直到客户端断开。
+     * </p>
+     */
+    private Integer streamCount;
+
+    /**
+     * 响应变体选择策略
+     * <p>
+     * <ul>
+     *   <li>NONE: 不使用变体，始终返回本配置的响应（默认）</li>
+     *   <li>SEQUENCE: 按顺序轮流返回各变体</li>
+     *   <li>WEIGHTED: 按权重随机返回变体</li>
+     *   <li>EVERY_NTH: 每 N 次调用返回一次对应变体，其余调用返回本配置的响应</li>
+     *   <li>STICKY: 按客户端（X-Mock-Client 请求头，缺省为客户端IP）固定返回同一个变体</li>
+     * </ul>
+     * 变体存储在 mock_response_variant 表中，见 {@link MockResponseVariant}。
+     * </p>
+     */
+    @Column(length = 20)
+    private String variantStrategy = "NONE";
+
+    /**
+     * 响应变体（不映射到本表，由服务层按需加载）
+     */
+    @Transient
+    private List<MockResponseVariant> variants;
+
     /**
      * 创建时间
      * <p>
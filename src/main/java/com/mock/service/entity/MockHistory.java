@@ -1,9 +1,13 @@
 package com.mock.service.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 
 /**
@@ -75,6 +79,22 @@ public class MockHistory {
     @Column(columnDefinition = "TEXT")
     private String responseBody;
 
+    /**
+     * 按请求渲染的模板响应体（已编码的字节，不落库），首次读取 responseBody 时才解码，
+     * 使请求线程不必为历史记录单独构建字符串，解码发生在历史写入线程
+     */
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] encodedResponseBody;
+
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Charset encodedResponseCharset;
+
     /**
      * 响应时间（毫秒）
      */
@@ -93,4 +113,23 @@ public class MockHistory {
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    /**
+     * 响应体；只有编码后的模板响应体时先解码
+     */
+    public String getResponseBody() {
+        if (responseBody == null && encodedResponseBody != null) {
+            responseBody = new String(encodedResponseBody, encodedResponseCharset);
+            encodedResponseBody = null;
+        }
+        return responseBody;
+    }
+
+    /**
+     * 记录已编码的响应体，写入数据库前才解码
+     */
+    public void setEncodedResponseBody(byte[] body, Charset charset) {
+        this.encodedResponseBody = body;
+        this.encodedResponseCharset = charset;
+    }
 }
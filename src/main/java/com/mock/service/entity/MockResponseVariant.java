@@ -0,0 +1,85 @@
+package com.mock.service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mock 响应变体实体
+ * <p>
+ * 一个 {@link MockConfig} 可以配置多个响应变体，按 {@link MockConfig#getVariantStrategy()}
+ * 选择本次返回哪一个（轮流、按权重随机、每 N 次、按客户端固定），用于模拟不稳定的上游服务。
+ * 状态码、Content-Type 和延迟为空时沿用所属 Mock 配置的值。
+ * </p>
+ * <p>
+ * 数据库表名：mock_response_variant，随所属 Mock 配置一起加载到内存路由表。
+ * </p>
+ */
+@Data
+@Entity
+@Table(name = "mock_response_variant", indexes = {
+    @Index(name = "idx_mock_response_variant_config", columnList = "mockConfigId, variantOrder")
+})
+public class MockResponseVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属 Mock 配置 ID
+     */
+    @Column(nullable = false)
+    private Long mockConfigId;
+
+    /**
+     * 变体顺序（从 0 开始，SEQUENCE 按此顺序轮流返回）
+     */
+    @Column(nullable = false)
+    private Integer variantOrder = 0;
+
+    /**
+     * 变体名称，如 "成功"、"超时"、"服务不可用"
+     */
+    @Column(length = 200)
+    private String name;
+
+    /**
+     * 响应状态码，为空时使用 Mock 配置的状态码
+     */
+    private Integer statusCode;
+
+    /**
+     * 响应 Content-Type，为空时使用 Mock 配置的 Content-Type
+     */
+    @Column(length = 100)
+    private String contentType;
+
+    /**
+     * 响应体，支持与 Mock 配置相同的模板语法
+     */
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    /**
+     * 响应延迟（毫秒），为空时使用 Mock 配置的延迟
+     */
+    private Integer delay;
+
+    /**
+     * 权重（WEIGHTED、STICKY 使用），为 0 时不会被选中
+     */
+    @Column(nullable = false)
+    private Integer weight = 1;
+
+    /**
+     * 每 N 次调用返回一次该变体（EVERY_NTH 使用），其余调用返回 Mock 配置本身的响应
+     */
+    private Integer everyN;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,128 @@
+package com.mock.service.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按主机限制并发请求数的拦截器
+ * <p>
+ * 用于 HTTP/2 引擎（JDK HttpClient）：HTTP/2 在一个连接上多路复用，客户端没有连接池上限可配，
+ * 这里用 {@link HostLimits} 按 "协议://主机:端口" 限制同时进行的请求数，请求从发出到响应体关闭一直占用一个名额，
+ * 与 HTTP/1.1 连接池的每主机连接数上限语义一致。等待超过 poolTimeoutMs 时抛出 {@link SocketTimeoutException}。
+ * </p>
+ * <p>
+ * 指标：
+ * <ul>
+ *   <li>mock.http.client.active：正在进行的出站请求数</li>
+ *   <li>mock.http.client.wait：等待名额的时间（与 HTTP/1.1 连接池的连接等待时间共用）</li>
+ * </ul>
+ * </p>
+ */
+public class HostConcurrencyInterceptor implements ClientHttpRequestInterceptor {
+
+    private final HostLimits hostLimits;
+
+    private final long poolTimeoutMs;
+
+    private final Timer waitTimer;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    public HostConcurrencyInterceptor(int maxPerHost, long poolTimeoutMs, Timer waitTimer,
+                                      MeterRegistry meterRegistry) {
+        this.hostLimits = new HostLimits(maxPerHost);
+        this.poolTimeoutMs = poolTimeoutMs;
+        this.waitTimer = waitTimer;
+        Gauge.builder("mock.http.client.active", active, AtomicInteger::get)
+            .description("正在进行的出站 HTTP 请求数")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+        throws IOException {
+        long start = System.nanoTime();
+        HostLimits.Permit permit;
+        try {
+            permit = hostLimits.tryAcquire(request.getURI(), poolTimeoutMs);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (permit == null) {
+            throw new SocketTimeoutException("等待 " + HostLimits.hostKey(request.getURI()) + " 的并发名额超时（"
+                + poolTimeoutMs + "ms）");
+        }
+
+        active.incrementAndGet();
+        try {
+            return new PermitResponse(execution.execute(request, body), permit);
+        } catch (IOException | RuntimeException e) {
+            active.decrementAndGet();
+            permit.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭时归还名额的响应
+     */
+    private final class PermitResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+
+        private final HostLimits.Permit permit;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitResponse(ClientHttpResponse delegate, HostLimits.Permit permit) {
+            this.delegate = delegate;
+            this.permit = permit;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    active.decrementAndGet();
+                    permit.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mock.service.http;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按主机限制并发数
+ * <p>
+ * 按 {@link #hostKey(URI)}（"协议://主机:端口"）分配名额，同一主机同时最多 maxPerHost 个调用方持有名额，其余调用方等待。
+ * 名额的范围由创建方决定：{@link HostConcurrencyInterceptor} 持有一个作用于共享 RestTemplate 的实例，
+ * 测试套件执行时每次执行创建一个实例。批量代理不在线程池线程中阻塞等待，按同样的主机键排队。
+ * </p>
+ */
+public final class HostLimits {
+
+    private final int maxPerHost;
+
+    private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    public HostLimits(int maxPerHost) {
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * 主机标识："协议://主机:端口"（未指定端口时为 -1）
+     */
+    public static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * 主机标识，地址无效时返回空字符串（所有无效地址共用一组名额）
+     */
+    public static String hostKey(String url) {
+        try {
+            return hostKey(URI.create(url));
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 获取目标主机的一个名额，名额不足时阻塞
+     *
+     * @param url 请求地址
+     * @return 关闭时归还名额
+     * @throws InterruptedIOException 等待时被中断
+     */
+    public Permit acquire(String url) throws InterruptedIOException {
+        String host = hostKey(url);
+        Semaphore permits = permits(host);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待 " + host + " 的并发名额时被中断");
+        }
+        return new Permit(permits);
+    }
+
+    /**
+     * 获取目标主机的一个名额，最多等待 timeoutMs
+     *
+     * @param uri 请求地址
+     * @return 关闭时归还名额；等待超时返回 null
+     * @throws InterruptedIOException 等待时被中断
+     */
+    public Permit tryAcquire(URI uri, long timeoutMs) throws InterruptedIOException {
+        String host = hostKey(uri);
+        Semaphore permits = permits(host);
+        try {
+            return permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS) ? new Permit(permits) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待 " + host + " 的并发名额时被中断");
+        }
+    }
+
+    private Semaphore permits(String host) {
+        return hosts.computeIfAbsent(host, k -> new Semaphore(maxPerHost));
+    }
+
+    /**
+     * 持有的名额，重复关闭只归还一次
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore permits;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mock.service.repository;
+
+import com.mock.service.entity.ConfigChangeLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 配置变更日志数据访问层
+ */
+@Repository
+public interface ConfigChangeLogRepository extends JpaRepository<ConfigChangeLog, Long> {
+
+    /**
+     * 查询指定版本号之后的变更 ID（只走主键索引，轮询开销很小）
+     */
+    @Query("SELECT c.id FROM ConfigChangeLog c WHERE c.id > :version ORDER BY c.id")
+    List<Long> findIdsAfter(@Param("version") Long version);
+
+    /**
+     * 查询当前最大版本号
+     */
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ConfigChangeLog c")
+    Long findMaxId();
+
+    /**
+     * 删除指定时间之前的变更记录
+     */
+    @Modifying
+    @Query("DELETE FROM ConfigChangeLog c WHERE c.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") LocalDateTime before);
+}
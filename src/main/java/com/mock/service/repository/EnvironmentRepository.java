@@ -2,6 +2,7 @@ package com.mock.service.repository;
 
 import com.mock.service.entity.Environment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +23,10 @@ public interface EnvironmentRepository extends JpaRepository<Environment, Long>
      * 按显示顺序排序查询所有环境
      */
     List<Environment> findAllByOrderByDisplayOrderAsc();
+
+    /**
+     * 查询当前最大显示顺序（走 display_order 索引）
+     */
+    @Query("SELECT MAX(e.displayOrder) FROM Environment e")
+    Integer findMaxDisplayOrder();
 }
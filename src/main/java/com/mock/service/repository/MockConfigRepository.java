@@ -2,6 +2,9 @@ package com.mock.service.repository;
 
 import com.mock.service.entity.MockConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,16 +16,6 @@ import java.util.Optional;
 @Repository
 public interface MockConfigRepository extends JpaRepository<MockConfig, Long> {
 
-    /**
-     * 根据路径和方法查找启用的 Mock 配置
-     */
-    Optional<MockConfig> findByPathAndMethodAndEnabledTrue(String path, String method);
-
-    /**
-     * 根据路径和方法查找 Mock 配置（包括禁用的）
-     */
-    Optional<MockConfig> findByPathAndMethod(String path, String method);
-
     /**
      * 查找所有启用的 Mock 配置
      */
@@ -37,4 +30,37 @@ public interface MockConfigRepository extends JpaRepository<MockConfig, Long> {
      * 检查路径和方法是否已存在（排除指定 ID）
      */
     boolean existsByPathAndMethodAndIdNot(String path, String method, Long id);
+
+    /**
+     * 查找路径和方法相同的所有 Mock 配置（包括禁用的），用于请求体唯一性检查
+     */
+    List<MockConfig> findAllByPathAndMethod(String path, String method);
+
+    /**
+     * 查找指定方法的所有 Mock 配置（包括禁用的），用于等价路径模板检查
+     */
+    List<MockConfig> findAllByMethod(String method);
+
+    /**
+     * 查询当前最大显示序号（走 display_order 索引）
+     */
+    @Query("SELECT MAX(m.displayOrder) FROM MockConfig m")
+    Integer findMaxDisplayOrder();
+
+    /**
+     * 查询显示序号大于指定值的第一条记录（排除指定 ID）
+     */
+    Optional<MockConfig> findFirstByDisplayOrderGreaterThanAndIdNotOrderByDisplayOrderAsc(Integer displayOrder, Long id);
+
+    /**
+     * 查询显示序号最小的记录（排除指定 ID）
+     */
+    Optional<MockConfig> findFirstByIdNotOrderByDisplayOrderAsc(Long id);
+
+    /**
+     * 只更新显示序号（不修改 updatedAt，避免影响按版本缓存的响应）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE MockConfig m SET m.displayOrder = :displayOrder WHERE m.id = :id")
+    int updateDisplayOrder(@Param("id") Long id, @Param("displayOrder") Integer displayOrder);
 }
@@ -0,0 +1,40 @@
+package com.mock.service.repository;
+
+import com.mock.service.entity.MockResponseVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mock 响应变体数据访问层
+ */
+@Repository
+public interface MockResponseVariantRepository extends JpaRepository<MockResponseVariant, Long> {
+
+    /**
+     * 查询指定 Mock 配置的所有变体（按顺序）
+     */
+    List<MockResponseVariant> findByMockConfigIdOrderByVariantOrderAscIdAsc(Long mockConfigId);
+
+    /**
+     * 批量查询多个 Mock 配置的变体（构建路由表时使用）
+     */
+    List<MockResponseVariant> findByMockConfigIdInOrderByMockConfigIdAscVariantOrderAscIdAsc(Collection<Long> mockConfigIds);
+
+    /**
+     * 查询所有变体（全量构建路由表时使用）
+     */
+    List<MockResponseVariant> findAllByOrderByMockConfigIdAscVariantOrderAscIdAsc();
+
+    /**
+     * 删除指定 Mock 配置的所有变体
+     */
+    @Modifying
+    @Query("DELETE FROM MockResponseVariant v WHERE v.mockConfigId = :mockConfigId")
+    int deleteByMockConfigId(@Param("mockConfigId") Long mockConfigId);
+}
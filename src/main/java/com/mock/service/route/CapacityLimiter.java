@@ -0,0 +1,345 @@
+package com.mock.service.route;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mock 容量限制（模拟后端有限的处理能力）
+ * <p>
+ * 配置方式（MockConfig.maxConcurrency / rateLimit / maxQueue / queueTimeout / overloadStatus）：
+ * <ul>
+ *   <li>maxConcurrency：同时处理的请求数上限，请求从准入到响应完成（包括延迟和流式输出）一直占用一个许可</li>
+ *   <li>rateLimit：每秒准入的请求数上限</li>
+ *   <li>maxQueue：超出容量时最多排队等待的请求数，为空或 0 时直接拒绝；
+ *       排队时间计入响应耗时，模拟服务端的请求队列</li>
+ *   <li>queueTimeout：排队等待的最长时间（毫秒），默认 10000，超时后拒绝</li>
+ *   <li>overloadStatus：拒绝时返回的状态码，默认 503（常用 429）</li>
+ * </ul>
+ * maxConcurrency 和 rateLimit 都未配置时不限制。
+ * </p>
+ * <p>
+ * 实现上不加锁：速率限制按分片令牌桶（GCRA，每个分片保存下一个可用时间，CAS 更新），
+ * 请求优先落在按线程选择的分片上，分片不能立即放行时再尝试其他分片，竞争分散在多个分片上；
+ * 并发限制为原子计数的许可，等待许可的请求放在无锁队列中，许可释放时直接交给队首请求。
+ * </p>
+ * <p>
+ * 与 {@link VariantSelector} 一样随路由表重建，配置变更前已准入的请求仍向旧实例归还许可，
+ * 重建后的短时间内实际并发可能略高于上限。
+ * </p>
+ */
+public final class CapacityLimiter {
+
+    /**
+     * 默认的拒绝状态码
+     */
+    public static final int DEFAULT_OVERLOAD_STATUS = 503;
+
+    /**
+     * 默认的排队超时（毫秒）
+     */
+    public static final int DEFAULT_QUEUE_TIMEOUT_MS = 10_000;
+
+    /**
+     * 速率限制的最大分片数
+     */
+    private static final int MAX_STRIPES = Math.min(16, Integer.highestOneBit(
+        Runtime.getRuntime().availableProcessors() * 2));
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final int WAITING = 0;
+
+    private static final int GRANTED = 1;
+
+    private static final int CANCELLED = 2;
+
+    /**
+     * 并发上限，0 表示不限制
+     */
+    private final int maxConcurrency;
+
+    private final int maxQueue;
+
+    private final long queueTimeoutMs;
+
+    private final int overloadStatus;
+
+    /**
+     * 速率限制分片，每个分片保存下一个可用时间（纳秒）；不限速率时为 null
+     */
+    private final AtomicLong[] stripes;
+
+    /**
+     * 每个分片相邻两次准入的间隔（纳秒）
+     */
+    private final long stripeIntervalNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<Ticket> waiters = new ConcurrentLinkedQueue<>();
+
+    private CapacityLimiter(int maxConcurrency, int rateLimit, int maxQueue, long queueTimeoutMs, int overloadStatus) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.overloadStatus = overloadStatus;
+        if (rateLimit > 0) {
+            // 每个分片至少每秒准入 1 个请求，低速率时减少分片数以保持精度
+            int count = Math.max(1, Math.min(MAX_STRIPES, rateLimit));
+            this.stripes = new AtomicLong[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new AtomicLong(Long.MIN_VALUE);
+            }
+            this.stripeIntervalNanos = count * NANOS_PER_SECOND / rateLimit;
+        } else {
+            this.stripes = null;
+            this.stripeIntervalNanos = 0;
+        }
+    }
+
+    /**
+     * 编译容量限制配置
+     *
+     * @param maxConcurrency 并发上限
+     * @param rateLimit 每秒请求数上限
+     * @param maxQueue 排队请求数上限
+     * @param queueTimeout 排队超时（毫秒）
+     * @param overloadStatus 拒绝时的状态码
+     * @return 容量限制；未配置 maxConcurrency 和 rateLimit 时返回 null
+     * @throws IllegalArgumentException 参数无效时
+     */
+    public static CapacityLimiter compile(Integer maxConcurrency, Integer rateLimit, Integer maxQueue,
+                                          Integer queueTimeout, Integer overloadStatus) {
+        if (maxConcurrency != null && maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency 必须大于 0");
+        }
+        if (rateLimit != null && rateLimit < 1) {
+            throw new IllegalArgumentException("rateLimit 必须大于 0");
+        }
+        if (maxQueue != null && maxQueue < 0) {
+            throw new IllegalArgumentException("maxQueue 不能为负数");
+        }
+        if (queueTimeout != null && queueTimeout < 1) {
+            throw new IllegalArgumentException("queueTimeout 必须大于 0");
+        }
+        if (overloadStatus != null && (overloadStatus < 400 || overloadStatus > 599)) {
+            throw new IllegalArgumentException("overloadStatus 必须是 4xx 或 5xx 状态码");
+        }
+        if (maxConcurrency == null && rateLimit == null) {
+            return null;
+        }
+        return new CapacityLimiter(
+            maxConcurrency != null ? maxConcurrency : 0,
+            rateLimit != null ? rateLimit : 0,
+            maxQueue != null ? maxQueue : 0,
+            queueTimeout != null ? queueTimeout : DEFAULT_QUEUE_TIMEOUT_MS,
+            overloadStatus != null ? overloadStatus : DEFAULT_OVERLOAD_STATUS);
+    }
+
+    /**
+     * 校验容量限制配置
+     *
+     * @throws IllegalArgumentException 参数无效时
+     */
+    public static void validate(Integer maxConcurrency, Integer rateLimit, Integer maxQueue,
+                                Integer queueTimeout, Integer overloadStatus) {
+        compile(maxConcurrency, rateLimit, maxQueue, queueTimeout, overloadStatus);
+    }
+
+    /**
+     * 按速率限制预约一个准入时间
+     *
+     * @param nowNanos 当前时间（System.nanoTime()）
+     * @param maxWaitNanos 可接受的最长等待时间，0 表示只接受立即准入
+     * @return 需要等待的纳秒数（0 表示立即准入）；在可接受的等待时间内无法准入时返回 -1
+     */
+    public long reserve(long nowNanos, long maxWaitNanos) {
+        if (stripes == null) {
+            return 0;
+        }
+        int count = stripes.length;
+        int home = (int) (Thread.currentThread().threadId() % count);
+        // 先在各分片上找能立即准入的
+        for (int i = 0; i < count; i++) {
+            if (tryReserve(stripes[(home + i) % count], nowNanos, 0) == 0) {
+                return 0;
+            }
+        }
+        if (maxWaitNanos <= 0) {
+            return -1;
+        }
+        // 都不能立即准入：排在下一个可用时间最早的分片上
+        AtomicLong earliest = stripes[home];
+        for (AtomicLong stripe : stripes) {
+            if (stripe.get() < earliest.get()) {
+                earliest = stripe;
+            }
+        }
+        return tryReserve(earliest, nowNanos, maxWaitNanos);
+    }
+
+    private long tryReserve(AtomicLong stripe, long nowNanos, long maxWaitNanos) {
+        while (true) {
+            long next = stripe.get();
+            long slot = Math.max(next, nowNanos);
+            long wait = slot - nowNanos;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (stripe.compareAndSet(next, slot + stripeIntervalNanos)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * 尝试立即获取一个并发许可，不限并发时总是成功
+     */
+    public boolean tryAcquire() {
+        if (maxConcurrency == 0) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还并发许可，有排队等待许可的请求时直接交给队首请求
+     */
+    public void release() {
+        if (maxConcurrency == 0) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * 占用一个排队位置
+     *
+     * @param onGrant 准入时执行的回调，在归还许可的线程（或调用 {@link #await(Ticket)} 的线程）中执行，应快速返回
+     * @return 排队凭证；队列已满时返回 null
+     */
+    public Ticket enqueue(Runnable onGrant) {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return null;
+        }
+        return new Ticket(onGrant);
+    }
+
+    /**
+     * 排队等待并发许可，有空闲许可时立即准入
+     */
+    public void await(Ticket ticket) {
+        waiters.add(ticket);
+        // 放入队列后再检查一次，避免许可在放入之前被归还而错过唤醒
+        drain();
+    }
+
+    /**
+     * 直接准入排队中的请求（已获得许可，或不需要并发许可）
+     *
+     * @return 凭证已被取消时返回 false
+     */
+    public boolean grant(Ticket ticket) {
+        if (!ticket.state.compareAndSet(WAITING, GRANTED)) {
+            return false;
+        }
+        queued.decrementAndGet();
+        ticket.onGrant.run();
+        return true;
+    }
+
+    /**
+     * 取消排队（超时或客户端断开）
+     *
+     * @return 请求已被准入时返回 false
+     */
+    public boolean cancel(Ticket ticket) {
+        if (!ticket.state.compareAndSet(WAITING, CANCELLED)) {
+            return false;
+        }
+        queued.decrementAndGet();
+        waiters.remove(ticket);
+        return true;
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Ticket ticket = waiters.poll();
+            if (ticket == null || !grant(ticket)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 是否限制并发（请求完成时需要归还许可）
+     */
+    public boolean isConcurrencyLimited() {
+        return maxConcurrency > 0;
+    }
+
+    /**
+     * 排队超时（毫秒）
+     */
+    public long getQueueTimeoutMs() {
+        return queueTimeoutMs;
+    }
+
+    /**
+     * 是否允许排队
+     */
+    public boolean isQueueEnabled() {
+        return maxQueue > 0;
+    }
+
+    /**
+     * 拒绝时返回的状态码
+     */
+    public int getOverloadStatus() {
+        return overloadStatus;
+    }
+
+    /**
+     * 正在处理的请求数（占用并发许可的请求）
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 正在排队的请求数
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * 排队凭证
+     * <p>
+     * 准入和取消通过状态 CAS 互斥，保证每个排队请求只会被准入或取消一次。
+     * </p>
+     */
+    public static final class Ticket {
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private final Runnable onGrant;
+
+        private Ticket(Runnable onGrant) {
+            this.onGrant = onGrant;
+        }
+    }
+}
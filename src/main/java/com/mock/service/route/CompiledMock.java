@@ -0,0 +1,157 @@
+package com.mock.service.route;
+
+import com.mock.service.entity.MockConfig;
+import com.mock.service.entity.MockResponseVariant;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 编译后的 Mock 配置
+ * <p>
+ * 路由表中的每个启用的 {@link MockConfig} 都会在构建时编译为一个 CompiledMock，
+ * 预先完成与请求无关的计算（响应体编码、模板解析、Content-Type 解析、延迟分布、限速和容量限制解析），请求时直接使用。
+ * 配置了响应变体时，各变体同样预先编译，并由 {@link VariantSelector} 按策略选择。
+ * 与路由表一样不可变（计数器和容量限制的许可除外），配置变更时随路由表整体重建。
+ * </p>
+ */
+@Slf4j
+public final class CompiledMock {
+
+    private final MockConfig config;
+
+    /**
+     * Mock 配置本身的响应
+     */
+    private final CompiledResponse defaultResponse;
+
+    /**
+     * 变体选择器；未使用变体时为 null
+     */
+    private final VariantSelector variantSelector;
+
+    /**
+     * 响应限速配置；不限速时为 null
+     */
+    private final ResponseThrottle throttle;
+
+    /**
+     * 容量限制；不限制时为 null
+     */
+    private final CapacityLimiter limiter;
+
+    private CompiledMock(MockConfig config, CompiledResponse defaultResponse, VariantSelector variantSelector,
+                         ResponseThrottle throttle, CapacityLimiter limiter) {
+        this.config = config;
+        this.defaultResponse = defaultResponse;
+        this.variantSelector = variantSelector;
+        this.throttle = throttle;
+        this.limiter = limiter;
+    }
+
+    /**
+     * 编译 Mock 配置（包括 {@link MockConfig#getVariants()} 中已加载的响应变体）
+     */
+    public static CompiledMock compile(MockConfig config) {
+        String responseType = config.getResponseType();
+        LatencyDistribution latency = compileLatency(config);
+        CompiledResponse defaultResponse = CompiledResponse.compile(config.getId(), null, config.getStatusCode(),
+            config.getContentType(), config.getResponseBody(), latency, responseType);
+
+        List<MockResponseVariant> definitions = config.getVariants() != null ? config.getVariants() : List.of();
+        CompiledResponse[] variants = new CompiledResponse[definitions.size()];
+        for (int i = 0; i < variants.length; i++) {
+            MockResponseVariant variant = definitions.get(i);
+            variants[i] = CompiledResponse.compile(config.getId(),
+                variant.getName() != null ? variant.getName() : "#" + (i + 1),
+                variant.getStatusCode() != null ? variant.getStatusCode() : config.getStatusCode(),
+                variant.getContentType() != null ? variant.getContentType() : config.getContentType(),
+                variant.getResponseBody(),
+                variant.getDelay() != null ? LatencyDistribution.fixed(variant.getDelay()) : latency,
+                responseType);
+        }
+        return new CompiledMock(config, defaultResponse,
+            VariantSelector.of(config.getVariantStrategy(), definitions, variants), compileThrottle(config),
+            compileLimiter(config));
+    }
+
+    /**
+     * 编译延迟分布，参数无效时退回固定延迟
+     */
+    private static LatencyDistribution compileLatency(MockConfig config) {
+        try {
+            return LatencyDistribution.compile(config.getDelayDistribution(), config.getDelayParams(),
+                config.getDelay());
+        } catch (IllegalArgumentException e) {
+            log.warn("Mock 延迟分布编译失败，按固定延迟处理: id={}, 错误: {}", config.getId(), e.getMessage());
+            return LatencyDistribution.fixed(config.getDelay() != null ? config.getDelay() : 0);
+        }
+    }
+
+    /**
+     * 编译限速配置，参数无效时不限速
+     */
+    private static ResponseThrottle compileThrottle(MockConfig config) {
+        try {
+            return ResponseThrottle.compile(config.getThrottleRate(), config.getChunkSize(), config.getChunkDelay());
+        } catch (IllegalArgumentException e) {
+            log.warn("Mock 限速配置无效，按不限速处理: id={}, 错误: {}", config.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 编译容量限制配置，参数无效时不限制
+     */
+    private static CapacityLimiter compileLimiter(MockConfig config) {
+        try {
+            return CapacityLimiter.compile(config.getMaxConcurrency(), config.getRateLimit(), config.getMaxQueue(),
+                config.getQueueTimeout(), config.getOverloadStatus());
+        } catch (IllegalArgumentException e) {
+            log.warn("Mock 容量限制配置无效，按不限制处理: id={}, 错误: {}", config.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    public MockConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Mock 配置本身的响应
+     */
+    public CompiledResponse getDefaultResponse() {
+        return defaultResponse;
+    }
+
+    /**
+     * 选择本次请求返回的响应：未使用变体时返回 {@link #getDefaultResponse()}
+     *
+     * @param clientKey 客户端标识（仅 STICKY 策略会调用）
+     */
+    public CompiledResponse selectResponse(Supplier<String> clientKey) {
+        return variantSelector != null ? variantSelector.select(clientKey, defaultResponse) : defaultResponse;
+    }
+
+    /**
+     * 响应限速配置（变体共用），不限速时返回 null
+     */
+    public ResponseThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * 容量限制（变体共用），不限制时返回 null
+     */
+    public CapacityLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 变体选择器，未使用变体时返回 null
+     */
+    public VariantSelector getVariantSelector() {
+        return variantSelector;
+    }
+}
@@ -0,0 +1,191 @@
+package com.mock.service.route;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.Charset;
+
+/**
+ * 编译后的单个响应（Mock 配置本身的响应或某个响应变体）
+ * <p>
+ * 构建路由表时一次性完成响应体编码、模板或事件流脚本解析、Content-Type 解析，请求时直接使用。
+ * 实例不可变（模板计数器除外），可在多个请求线程间共享。
+ * </p>
+ */
+@Slf4j
+public final class CompiledResponse {
+
+    /**
+     * 变体名称，Mock 配置本身的响应为 null
+     */
+    private final String variantName;
+
+    private final int statusCode;
+
+    /**
+     * 响应延迟分布
+     */
+    private final LatencyDistribution latency;
+
+    private final String responseBody;
+
+    /**
+     * 预编码的静态响应；Protobuf 响应或响应体为模板时为 null
+     */
+    private final PreparedResponse preparedResponse;
+
+    /**
+     * 编译后的响应体模板；响应体不含占位符时为 null
+     */
+    private final ResponseTemplate template;
+
+    /**
+     * 解析后的 Content-Type（模板响应按请求编码时使用）
+     */
+    private final MediaType mediaType;
+
+    /**
+     * 事件流脚本；仅 SSE、NDJSON 响应使用，其他类型为 null
+     */
+    private final EventScript eventScript;
+
+    private CompiledResponse(String variantName, int statusCode, LatencyDistribution latency, String responseBody,
+                             PreparedResponse preparedResponse, ResponseTemplate template, MediaType mediaType,
+                             EventScript eventScript) {
+        this.variantName = variantName;
+        this.statusCode = statusCode;
+        this.latency = latency;
+        this.responseBody = responseBody;
+        this.preparedResponse = preparedResponse;
+        this.template = template;
+        this.mediaType = mediaType;
+        this.eventScript = eventScript;
+    }
+
+    /**
+     * 编译响应
+     *
+     * @param mockId 所属 Mock 配置 ID（用于日志）
+     * @param variantName 变体名称，Mock 配置本身的响应传 null
+     * @param latency 响应延迟分布
+     * @param responseType 响应类型：Protobuf 响应（响应体为 JSON，按请求或经缓存编码）不预编码，
+     *                     SSE、NDJSON 响应编译为事件流脚本
+     */
+    static CompiledResponse compile(Long mockId, String variantName, Integer statusCode, String contentType,
+                                    String responseBody, LatencyDistribution latency, String responseType) {
+        int status = statusCode != null ? statusCode : 200;
+        if (EventScript.isStreamType(responseType)) {
+            EventScript script = compileEventScript(mockId, responseType, responseBody);
+            if (script != null) {
+                return new CompiledResponse(variantName, status, latency, responseBody, null, null,
+                    script.getMediaType(), script);
+            }
+        }
+        boolean protobuf = "PROTOBUF".equals(responseType);
+        MediaType mediaType = resolveMediaType(contentType);
+        ResponseTemplate template = compileTemplate(mockId, responseBody, PreparedResponse.charsetOf(mediaType));
+        PreparedResponse prepared = template == null && !protobuf
+            ? prepare(mockId, status, contentType, responseBody)
+            : null;
+        return new CompiledResponse(variantName, status, latency, responseBody, prepared, template, mediaType, null);
+    }
+
+    /**
+     * 是否为响应变体
+     */
+    public boolean isVariant() {
+        return variantName != null;
+    }
+
+    public String getVariantName() {
+        return variantName;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 采样本次请求的响应延迟（毫秒）
+     */
+    public long sampleDelay() {
+        return latency.sample();
+    }
+
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    /**
+     * 原始响应体（模板未渲染）
+     */
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * 预编码的静态响应，需要按请求动态生成时返回 null
+     */
+    public PreparedResponse getPreparedResponse() {
+        return preparedResponse;
+    }
+
+    /**
+     * 响应体模板，静态响应体返回 null
+     */
+    public ResponseTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * 事件流脚本，非 SSE、NDJSON 响应返回 null
+     */
+    public EventScript getEventScript() {
+        return eventScript;
+    }
+
+    /**
+     * 按请求渲染模板响应：片段直接编码进线程复用的字节缓冲区（{@link ResponseTemplate#renderBytes}）
+     * <p>
+     * 返回的响应不带 ETag：内容按请求变化，逐次计算摘要没有意义，因此模板响应不会响应 If-None-Match 返回 304。
+     * </p>
+     */
+    public PreparedResponse render(ResponseTemplate.Context context) {
+        return PreparedResponse.dynamic(statusCode, mediaType, template.renderBytes(context));
+    }
+
+    private static ResponseTemplate compileTemplate(Long mockId, String responseBody, Charset charset) {
+        try {
+            return ResponseTemplate.compile(responseBody, charset);
+        } catch (IllegalArgumentException e) {
+            log.warn("Mock 响应模板编译失败，按静态响应处理: id={}, 错误: {}", mockId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static EventScript compileEventScript(Long mockId, String responseType, String responseBody) {
+        try {
+            return EventScript.compile(responseType, responseBody);
+        } catch (IllegalArgumentException e) {
+            log.warn("Mock 事件流脚本编译失败，按静态响应处理: id={}, 错误: {}", mockId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static MediaType resolveMediaType(String contentType) {
+        try {
+            return PreparedResponse.resolveMediaType(contentType);
+        } catch (RuntimeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+    }
+
+    private static PreparedResponse prepare(Long mockId, int status, String contentType, String responseBody) {
+        try {
+            return PreparedResponse.of(status, contentType, responseBody);
+        } catch (RuntimeException e) {
+            log.warn("Mock 响应预编码失败，改为按请求生成: id={}, 错误: {}", mockId, e.getMessage());
+            return null;
+        }
+    }
+}
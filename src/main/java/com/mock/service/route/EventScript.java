@@ -0,0 +1,212 @@
+package com.mock.service.route;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 事件流脚本（responseType 为 SSE 或 NDJSON）
+ * <p>
+ * 响应体有两种写法：
+ * <ul>
+ *   <li>脚本：JSON 数组，每个元素是一个事件，按顺序发送</li>
+ *   <li>生成：非数组的响应体整体作为一个事件，配合 streamCount 重复发送，
+ *       可用 {{counter}}、{{uuid}}、{{timestamp}} 等模板占位符让每个事件不同</li>
+ * </ul>
+ * 事件内容都可以包含响应模板占位符（见 {@link ResponseTemplate}），每发送一个事件渲染一次。
+ * </p>
+ * <p>
+ * SSE 中，只包含 event、id、retry、data 字段且含 data 的对象视为完整的 SSE 事件，
+ * 如 {"event": "price", "id": "1", "data": {"price": 10}}；其他元素整体作为 data。
+ * data 为字符串时原样发送，否则按紧凑 JSON 发送，多行内容拆分为多个 data 行。
+ * NDJSON 中每个事件输出为一行紧凑 JSON。
+ * </p>
+ */
+public final class EventScript {
+
+    public static final String SSE = "SSE";
+
+    public static final String NDJSON = "NDJSON";
+
+    public static final MediaType NDJSON_MEDIA_TYPE = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * 未配置 streamInterval 时相邻两个事件的间隔（毫秒）
+     */
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+
+    private static final Set<String> SSE_FIELDS = Set.of("event", "id", "retry", "data");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final boolean sse;
+
+    private final Event[] events;
+
+    private EventScript(boolean sse, Event[] events) {
+        this.sse = sse;
+        this.events = events;
+    }
+
+    /**
+     * 是否为事件流响应类型
+     */
+    public static boolean isStreamType(String responseType) {
+        return SSE.equals(responseType) || NDJSON.equals(responseType);
+    }
+
+    /**
+     * 编译事件流脚本
+     *
+     * @param responseType SSE 或 NDJSON
+     * @param body 响应体（JSON 数组脚本或单个事件）
+     * @throws IllegalArgumentException 事件模板语法错误时
+     */
+    public static EventScript compile(String responseType, String body) {
+        boolean sse = SSE.equals(responseType);
+        List<Event> events = new ArrayList<>();
+        JsonNode root = parse(body);
+        if (root != null && root.isArray()) {
+            for (JsonNode element : root) {
+                events.add(sse ? sseEvent(element) : new Event(null, null, null, template(element.toString())));
+            }
+        } else {
+            events.add(new Event(null, null, null, template(body != null ? body : "")));
+        }
+        return new EventScript(sse, events.toArray(new Event[0]));
+    }
+
+    /**
+     * 校验事件流脚本和发送参数，非事件流类型不校验
+     *
+     * @param streamInterval 事件间隔（毫秒），为空时为默认值
+     * @param streamCount 事件数，为空时为脚本事件数，0 表示不限
+     * @throws IllegalArgumentException 事件模板语法错误或参数无效时
+     */
+    public static void validate(String responseType, String body, Integer streamInterval, Integer streamCount) {
+        if (!isStreamType(responseType)) {
+            return;
+        }
+        if (streamInterval != null && streamInterval < 0) {
+            throw new IllegalArgumentException("streamInterval 不能为负数");
+        }
+        if (streamCount != null && streamCount < 0) {
+            throw new IllegalArgumentException("streamCount 不能为负数");
+        }
+        if (streamCount != null && streamCount == 0 && streamInterval != null && streamInterval == 0) {
+            throw new IllegalArgumentException("不限事件数（streamCount=0）时 streamInterval 必须大于 0");
+        }
+        compile(responseType, body);
+    }
+
+    /**
+     * 脚本中的事件数
+     */
+    public int size() {
+        return events.length;
+    }
+
+    public MediaType getMediaType() {
+        return sse ? MediaType.TEXT_EVENT_STREAM : NDJSON_MEDIA_TYPE;
+    }
+
+    /**
+     * 生成第 index 个事件的字节（超出脚本长度时循环）
+     *
+     * @param index 事件序号，从 0 开始
+     * @param context 模板渲染上下文
+     */
+    public byte[] frame(long index, ResponseTemplate.Context context) {
+        Event event = events[(int) (index % events.length)];
+        String data = event.data.render(context);
+        StringBuilder frame = new StringBuilder(data.length() + 32);
+        if (!sse) {
+            // JSON 中的换行只会出现在字符串外（字符串内必须转义），替换为空格不改变含义
+            appendSingleLine(frame, data);
+            frame.append('\n');
+        } else {
+            if (event.id != null) {
+                frame.append("id: ").append(event.id).append('\n');
+            }
+            if (event.event != null) {
+                frame.append("event: ").append(event.event).append('\n');
+            }
+            if (event.retry != null) {
+                frame.append("retry: ").append(event.retry).append('\n');
+            }
+            for (String line : data.split("\r\n|\r|\n", -1)) {
+                frame.append("data: ").append(line).append('\n');
+            }
+            frame.append('\n');
+        }
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Event sseEvent(JsonNode element) {
+        if (element.isObject() && element.has("data") && allSseFields(element)) {
+            JsonNode data = element.get("data");
+            return new Event(text(element.get("id")), text(element.get("event")), text(element.get("retry")),
+                template(data.isTextual() ? data.asText() : data.toString()));
+        }
+        return new Event(null, null, null, template(element.isTextual() ? element.asText() : element.toString()));
+    }
+
+    private static boolean allSseFields(JsonNode element) {
+        Iterator<String> names = element.fieldNames();
+        while (names.hasNext()) {
+            if (!SSE_FIELDS.contains(names.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字段值去掉换行（SSE 字段值不能跨行）
+     */
+    private static String text(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return (node.isTextual() ? node.asText() : node.toString()).replaceAll("[\r\n]", " ");
+    }
+
+    private static void appendSingleLine(StringBuilder target, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            target.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+
+    private static EventTemplate template(String source) {
+        ResponseTemplate template = ResponseTemplate.compile(source);
+        return template != null ? template::render : context -> source;
+    }
+
+    private static JsonNode parse(String body) {
+        if (body == null || body.isBlank() || body.trim().charAt(0) != '[') {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readTree(body);
+        } catch (JsonProcessingException e) {
+            // 不是合法 JSON 数组（可能包含未加引号的模板占位符），整体作为一个事件
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface EventTemplate {
+        String render(ResponseTemplate.Context context);
+    }
+
+    private record Event(String id, String event, String retry, EventTemplate data) {
+    }
+}
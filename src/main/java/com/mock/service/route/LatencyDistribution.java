@@ -0,0 +1,312 @@
+package com.mock.service.route;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 响应延迟分布
+ * <p>
+ * 固定的 delay 不像真实的后端。Mock 配置可以声明一个延迟分布（MockConfig.delayDistribution），
+ * 参数以 "key=value" 逗号分隔的形式写在 MockConfig.delayParams 中：
+ * <ul>
+ *   <li>FIXED：固定延迟，即 delay 字段（默认）</li>
+ *   <li>UNIFORM：min~max 之间均匀分布，如 "min=20,max=80"</li>
+ *   <li>NORMAL：正态分布，如 "mean=100,stddev=15"</li>
+ *   <li>LOG_NORMAL：对数正态分布（长尾），按中位数和 p99 描述，如 "median=50,p99=400"</li>
+ *   <li>PERCENTILE：经验分位数表，在相邻分位点之间线性插值，如 "p50=20,p90=60,p99=250,p999=900"；
+ *       分位点按百分数理解（p5 = 5%，p99.9 = p999 = 99.9%），无法识别或重复的分位点会被拒绝；
+ *       可选 min（即 p0，默认 0）和 max（即 p100，默认最后一个分位点）</li>
+ * </ul>
+ * 所有分布都可以用 min/max 截断采样值，结果不会小于 0。
+ * </p>
+ * <p>
+ * 采样只使用 {@link ThreadLocalRandom}，没有共享状态，高并发下不会产生竞争；
+ * 实例在构建路由表时编译，不可变，可在多个请求线程间共享。
+ * </p>
+ */
+public abstract class LatencyDistribution {
+
+    public static final String FIXED = "FIXED";
+    public static final String UNIFORM = "UNIFORM";
+    public static final String NORMAL = "NORMAL";
+    public static final String LOG_NORMAL = "LOG_NORMAL";
+    public static final String PERCENTILE = "PERCENTILE";
+
+    private static final List<String> TYPES = List.of(FIXED, UNIFORM, NORMAL, LOG_NORMAL, PERCENTILE);
+
+    /**
+     * 标准正态分布的 0.99 分位数
+     */
+    private static final double Z_99 = 2.326347874;
+
+    private static final LatencyDistribution NO_DELAY = fixed(0);
+
+    /**
+     * 采样下限（毫秒）
+     */
+    private final long min;
+
+    /**
+     * 采样上限（毫秒）
+     */
+    private final long max;
+
+    private LatencyDistribution(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * 固定延迟
+     *
+     * @param delayMs 延迟毫秒数，小于 0 时按 0 处理
+     */
+    public static LatencyDistribution fixed(long delayMs) {
+        long delay = Math.max(0, delayMs);
+        return new LatencyDistribution(delay, delay) {
+            @Override
+            protected double draw(ThreadLocalRandom random) {
+                return delay;
+            }
+
+            @Override
+            public long sample() {
+                return delay;
+            }
+        };
+    }
+
+    /**
+     * 编译延迟分布
+     *
+     * @param type 分布类型，为空时为 FIXED
+     * @param params 分布参数
+     * @param delay 固定延迟（FIXED 类型使用）
+     * @throws IllegalArgumentException 类型不支持或参数无效时
+     */
+    public static LatencyDistribution compile(String type, String params, Integer delay) {
+        String normalized = normalizeType(type);
+        if (FIXED.equals(normalized)) {
+            return delay != null && delay > 0 ? fixed(delay) : NO_DELAY;
+        }
+        if (!TYPES.contains(normalized)) {
+            throw new IllegalArgumentException("不支持的延迟分布类型: " + type);
+        }
+        Map<String, Double> values = parseParams(params);
+        long min = Math.round(values.getOrDefault("min", 0d));
+        long max = Math.round(values.getOrDefault("max", (double) Long.MAX_VALUE));
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("min/max 无效: min=" + min + ", max=" + max);
+        }
+        switch (normalized) {
+            case UNIFORM:
+                return uniform(require(values, "min"), require(values, "max"));
+            case NORMAL:
+                return normal(require(values, "mean"), require(values, "stddev"), min, max);
+            case LOG_NORMAL:
+                return logNormal(require(values, "median"), require(values, "p99"), min, max);
+            default:
+                return percentile(values, min, max);
+        }
+    }
+
+    /**
+     * 校验延迟分布配置
+     *
+     * @throws IllegalArgumentException 类型不支持或参数无效时
+     */
+    public static void validate(String type, String params) {
+        compile(type, params, 0);
+    }
+
+    /**
+     * 规范化分布类型，为空时返回 FIXED
+     */
+    public static String normalizeType(String type) {
+        if (type == null || type.isBlank()) {
+            return FIXED;
+        }
+        return type.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 采样一次延迟
+     *
+     * @return 延迟毫秒数（>= 0）
+     */
+    public long sample() {
+        double value = draw(ThreadLocalRandom.current());
+        return Math.max(min, Math.min(max, Math.round(value)));
+    }
+
+    /**
+     * 按分布抽取一个（未截断的）值
+     */
+    protected abstract double draw(ThreadLocalRandom random);
+
+    private static LatencyDistribution uniform(double low, double high) {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("UNIFORM 需要 0 <= min <= max");
+        }
+        long lower = Math.round(low);
+        long upper = Math.round(high);
+        return new LatencyDistribution(lower, upper) {
+            @Override
+            protected double draw(ThreadLocalRandom random) {
+                return lower + random.nextLong(upper - lower + 1);
+            }
+        };
+    }
+
+    private static LatencyDistribution normal(double mean, double stddev, long min, long max) {
+        if (mean < 0 || stddev < 0) {
+            throw new IllegalArgumentException("NORMAL 的 mean、stddev 不能为负数");
+        }
+        return new LatencyDistribution(min, max) {
+            @Override
+            protected double draw(ThreadLocalRandom random) {
+                return mean + stddev * random.nextGaussian();
+            }
+        };
+    }
+
+    /**
+     * 对数正态分布：ln(X) ~ N(mu, sigma²)，mu = ln(median)，sigma = ln(p99 / median) / z(0.99)
+     */
+    private static LatencyDistribution logNormal(double median, double p99, long min, long max) {
+        if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("LOG_NORMAL 需要 0 < median <= p99");
+        }
+        double mu = Math.log(median);
+        double sigma = Math.log(p99 / median) / Z_99;
+        return new LatencyDistribution(min, max) {
+            @Override
+            protected double draw(ThreadLocalRandom random) {
+                return Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+
+    /**
+     * 经验分位数表：分位点 (0, min)、(q1, v1)...(1, max) 之间线性插值（逆变换采样）
+     */
+    private static LatencyDistribution percentile(Map<String, Double> values, long min, long max) {
+        Map<BigDecimal, String> keysByQuantile = new HashMap<>();
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[]{0, min});
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            String key = entry.getKey();
+            if ("min".equals(key) || "max".equals(key)) {
+                continue;
+            }
+            BigDecimal quantile = quantileOf(key);
+            String previous = keysByQuantile.putIfAbsent(quantile.stripTrailingZeros(), key);
+            if (previous != null) {
+                throw new IllegalArgumentException("PERCENTILE 的分位点重复: " + previous + " 和 " + key);
+            }
+            points.add(new double[]{quantile.doubleValue(), entry.getValue()});
+        }
+        if (points.size() == 1) {
+            throw new IllegalArgumentException("PERCENTILE 至少需要一个分位点，如 p50=20");
+        }
+        points.sort((a, b) -> Double.compare(a[0], b[0]));
+        double last = points.get(points.size() - 1)[1];
+        points.add(new double[]{1, max == Long.MAX_VALUE ? last : max});
+
+        double[] quantiles = new double[points.size()];
+        double[] latencies = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            quantiles[i] = points.get(i)[0];
+            latencies[i] = points.get(i)[1];
+            if (i > 0 && (quantiles[i] == quantiles[i - 1] || latencies[i] < latencies[i - 1])) {
+                throw new IllegalArgumentException("PERCENTILE 的分位点必须唯一且延迟随分位数递增");
+            }
+        }
+        return new LatencyDistribution(min, max) {
+            @Override
+            protected double draw(ThreadLocalRandom random) {
+                double u = random.nextDouble();
+                int i = 1;
+                while (i < quantiles.length - 1 && quantiles[i] <= u) {
+                    i++;
+                }
+                double fraction = (u - quantiles[i - 1]) / (quantiles[i] - quantiles[i - 1]);
+                return latencies[i - 1] + fraction * (latencies[i] - latencies[i - 1]);
+            }
+        };
+    }
+
+    /**
+     * 解析分位点键，数字按百分数理解：p5 = 0.05，p50 = 0.5，p99 = 0.99，p99.9 = 0.999；
+     * 三位及以上的纯数字只接受 p999、p9999 这种全 9 的写法（p999 = 0.999），其余请写成 p99.5 这样的小数形式
+     *
+     * @throws IllegalArgumentException 键不是合法分位点，或分位数不在 (0, 1) 之间时
+     */
+    private static BigDecimal quantileOf(String key) {
+        String digits = key.length() > 1 && key.charAt(0) == 'p' ? key.substring(1) : "";
+        BigDecimal quantile = null;
+        if (digits.matches("\\d{1,2}(\\.\\d+)?")) {
+            quantile = new BigDecimal(digits).movePointLeft(2);
+        } else if (digits.matches("9{3,}")) {
+            quantile = new BigDecimal("0." + digits);
+        }
+        if (quantile == null) {
+            throw new IllegalArgumentException("PERCENTILE 不支持的参数: " + key + "（分位点应写成 p50、p99、p99.9 或 p999）");
+        }
+        if (quantile.signum() <= 0 || quantile.compareTo(BigDecimal.ONE) >= 0) {
+            throw new IllegalArgumentException("PERCENTILE 的分位点必须在 p0 和 p100 之间: " + key);
+        }
+        return quantile;
+    }
+
+    private static double require(Map<String, Double> values, String key) {
+        Double value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少参数: " + key);
+        }
+        return value;
+    }
+
+    /**
+     * 解析 "key=value,key=value" 形式的参数，键统一为小写
+     */
+    private static Map<String, Double> parseParams(String params) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        if (params == null || params.isBlank()) {
+            return values;
+        }
+        for (String part : params.split("[,;\\s]+")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + part);
+            }
+            String key = part.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            if ("p0".equals(key)) {
+                key = "min";
+            } else if ("p100".equals(key)) {
+                key = "max";
+            }
+            try {
+                double value = Double.parseDouble(part.substring(eq + 1).trim());
+                if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new IllegalArgumentException("参数 " + key + " 必须是非负数");
+                }
+                if (values.put(key, value) != null) {
+                    throw new IllegalArgumentException("参数重复: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("参数 " + key + " 不是数字: " + part.substring(eq + 1));
+            }
+        }
+        return values;
+    }
+}
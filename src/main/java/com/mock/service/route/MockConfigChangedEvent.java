@@ -0,0 +1,13 @@
+package com.mock.service.route;
+
+/**
+ * Mock 配置变更事件
+ * <p>
+ * 由 MockConfigService 在增删改、启用切换、批量导入时发布，
+ * 事务提交后触发路由表重建。
+ * </p>
+ *
+ * @param reason 变更原因（用于日志）
+ */
+public record MockConfigChangedEvent(String reason) {
+}
@@ -0,0 +1,127 @@
+package com.mock.service.route;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mock.service.entity.MockConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同一路径模板 + HTTP 方法下的所有 Mock 配置
+ * <p>
+ * 按请求体选择具体的 {@link CompiledMock}，优先级：
+ * <ol>
+ *   <li>EXACT：按请求体指纹查哈希索引，O(1)</li>
+ *   <li>SUBSET / REGEX：按配置ID升序逐条尝试</li>
+ *   <li>未配置请求体的 Mock（默认响应）</li>
+ * </ol>
+ * 构建完成后不可变，可被多个请求线程并发读取。
+ * </p>
+ */
+@Slf4j
+public final class MockRoute {
+
+    private final Map<String, CompiledMock> exactBodies;
+
+    private final List<PatternRule> patternRules;
+
+    private final CompiledMock fallback;
+
+    private MockRoute(Map<String, CompiledMock> exactBodies, List<PatternRule> patternRules, CompiledMock fallback) {
+        this.exactBodies = exactBodies;
+        this.patternRules = patternRules;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 根据请求体选择 Mock 配置
+     *
+     * @param requestBody 原始请求体（可为 null）
+     * @return 匹配的 Mock 配置，都不匹配且没有默认配置时返回 null
+     */
+    public CompiledMock select(String requestBody) {
+        if (exactBodies.isEmpty() && patternRules.isEmpty()) {
+            return fallback;
+        }
+        JsonNode json = RequestBodyMatcher.parse(requestBody);
+        if (!exactBodies.isEmpty()) {
+            CompiledMock exact = exactBodies.get(RequestBodyMatcher.fingerprint(requestBody, json));
+            if (exact != null) {
+                return exact;
+            }
+        }
+        for (PatternRule rule : patternRules) {
+            if (rule.rule().matches(requestBody, json)) {
+                return rule.mock();
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * 是否配置了请求体匹配规则
+     */
+    public boolean hasBodyRules() {
+        return !exactBodies.isEmpty() || !patternRules.isEmpty();
+    }
+
+    /**
+     * 该路由下的 Mock 配置数量
+     */
+    public int size() {
+        return exactBodies.size() + patternRules.size() + (fallback != null ? 1 : 0);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private record PatternRule(CompiledMock mock, RequestBodyMatcher.Rule rule) {
+    }
+
+    /**
+     * 路由构建器，配置需按ID升序加入，重复规则保留先加入的
+     */
+    public static final class Builder {
+
+        private final Map<String, CompiledMock> exactBodies = new HashMap<>();
+
+        private final List<PatternRule> patternRules = new ArrayList<>();
+
+        private CompiledMock fallback;
+
+        public Builder add(CompiledMock mock) {
+            MockConfig config = mock.getConfig();
+            String body = config.getRequestBody();
+            if (body == null || body.isBlank()) {
+                if (fallback == null) {
+                    fallback = mock;
+                }
+                return this;
+            }
+            String type = RequestBodyMatcher.normalizeType(config.getRequestBodyMatchType());
+            try {
+                if (RequestBodyMatcher.EXACT.equals(type)) {
+                    exactBodies.putIfAbsent(RequestBodyMatcher.fingerprint(body), mock);
+                } else {
+                    patternRules.add(new PatternRule(mock, RequestBodyMatcher.compile(type, body)));
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("跳过请求体匹配规则无效的 Mock 配置: id={}, 错误: {}", config.getId(), e.getMessage());
+            }
+            return this;
+        }
+
+        public MockRoute build() {
+            return new MockRoute(
+                exactBodies.isEmpty() ? Collections.emptyMap() : Map.copyOf(exactBodies),
+                List.copyOf(patternRules),
+                fallback
+            );
+        }
+    }
+}
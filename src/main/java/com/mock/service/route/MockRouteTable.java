@@ -0,0 +1,201 @@
+package com.mock.service.route;
+
+import com.mock.service.entity.MockConfig;
+import com.mock.service.route.PathTemplateRouter.RouteMatch;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Mock 路由表（不可变快照）
+ * <p>
+ * 由所有启用的 Mock 配置一次性构建，构建完成后不再修改。
+ * 配置变更时生成新表并原子替换（copy-on-write），
+ * 因此请求线程无需加锁即可并发读取。
+ * </p>
+ * <p>
+ * 路由表保留所有已编译的 {@link CompiledMock}，增量变更（{@link #apply}）时
+ * 只编译变更的配置，其余配置直接复用。
+ * </p>
+ * <p>
+ * 每个 HTTP 方法对应一个 {@link PathTemplateRouter}，支持 <code>/users/{id}</code> 等路径模板。
+ * 等价路径模板（{@link PathTemplateRouter#normalize} 相同，如只有变量名不同）的多个配置合并为一个 {@link MockRoute}，
+ * 再按请求体选择；路由注册的是其中ID最小的配置的写法，路径变量名也以它为准。
+ * 冲突时按配置ID升序保留先创建的配置，保证匹配结果确定。
+ * </p>
+ */
+@Slf4j
+public final class MockRouteTable {
+
+    private static final MockRouteTable EMPTY =
+        new MockRouteTable(Collections.emptyMap(), Collections.emptyMap(), 0, 0, 0);
+
+    /**
+     * 路由索引，key = HTTP方法（大写）
+     */
+    private final Map<String, PathTemplateRouter<MockRoute>> routers;
+
+    /**
+     * 所有启用的已编译配置，key = 配置ID，按ID升序
+     */
+    private final Map<Long, CompiledMock> mocks;
+
+    /**
+     * 实际注册到路由索引中的 Mock 配置数量（路径模板无效或重复而被跳过的不计入）
+     */
+    private final int size;
+
+    /**
+     * 快照版本号（对应的配置变更日志版本）
+     */
+    private final long version;
+
+    /**
+     * 构建耗时（纳秒）
+     */
+    private final long buildNanos;
+
+    private MockRouteTable(Map<String, PathTemplateRouter<MockRoute>> routers, Map<Long, CompiledMock> mocks,
+                           int size, long version, long buildNanos) {
+        this.routers = routers;
+        this.mocks = mocks;
+        this.size = size;
+        this.version = version;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * 空路由表，用于应用启动完成前
+     */
+    public static MockRouteTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 根据 Mock 配置构建路由表
+     *
+     * @param configs 启用的 Mock 配置
+     * @param version 快照版本号
+     * @return 新的路由表
+     */
+    public static MockRouteTable build(Collection<MockConfig> configs, long version) {
+        long start = System.nanoTime();
+        Map<Long, CompiledMock> mocks = new TreeMap<>();
+        for (MockConfig config : configs) {
+            if (config.getId() != null && Boolean.TRUE.equals(config.getEnabled())) {
+                mocks.put(config.getId(), CompiledMock.compile(config));
+            }
+        }
+        return assemble(mocks, version, start);
+    }
+
+    /**
+     * 在当前路由表的基础上应用增量变更，生成新的路由表（当前表不变）
+     *
+     * @param changed 新增或修改的配置（未启用的配置会从路由表中移除）
+     * @param removedIds 已删除的配置ID
+     * @param version 新快照版本号
+     * @return 新的路由表
+     */
+    public MockRouteTable apply(Collection<MockConfig> changed, Set<Long> removedIds, long version) {
+        long start = System.nanoTime();
+        Map<Long, CompiledMock> next = new TreeMap<>(mocks);
+        next.keySet().removeAll(removedIds);
+        for (MockConfig config : changed) {
+            if (Boolean.TRUE.equals(config.getEnabled())) {
+                next.put(config.getId(), CompiledMock.compile(config));
+            } else {
+                next.remove(config.getId());
+            }
+        }
+        return assemble(next, version, start);
+    }
+
+    /**
+     * 按 方法 + 规范化路径模板 分组构建路由索引，配置按ID升序加入
+     */
+    private static MockRouteTable assemble(Map<Long, CompiledMock> mocks, long version, long start) {
+        Map<String, Map<String, RouteGroup>> grouped = new HashMap<>();
+        for (CompiledMock mock : mocks.values()) {
+            MockConfig config = mock.getConfig();
+            String method = config.getMethod().toUpperCase();
+            String key;
+            try {
+                key = PathTemplateRouter.normalize(config.getPath());
+            } catch (IllegalArgumentException e) {
+                log.warn("跳过路径模板无效的 Mock 配置: id={}, {} {}, 错误: {}",
+                    config.getId(), method, config.getPath(), e.getMessage());
+                continue;
+            }
+            RouteGroup group = grouped.computeIfAbsent(method, m -> new LinkedHashMap<>())
+                .computeIfAbsent(key, k -> new RouteGroup(config.getPath()));
+            if (!group.template.equals(config.getPath())) {
+                log.warn("Mock 配置的路径模板与已有配置等价，合并到同一路由，路径变量名按 {} 解析: id={}, {} {}",
+                    group.template, config.getId(), method, config.getPath());
+            }
+            group.route.add(mock);
+        }
+
+        Map<String, PathTemplateRouter<MockRoute>> routers = new HashMap<>();
+        int size = 0;
+        for (Map.Entry<String, Map<String, RouteGroup>> methodEntry : grouped.entrySet()) {
+            PathTemplateRouter.Builder<MockRoute> builder = PathTemplateRouter.builder();
+            for (RouteGroup group : methodEntry.getValue().values()) {
+                MockRoute route = group.route.build();
+                if (builder.add(group.template, route)) {
+                    size += route.size();
+                } else {
+                    log.warn("路径模板重复，跳过 {} 个 Mock 配置: {} {}",
+                        route.size(), methodEntry.getKey(), group.template);
+                }
+            }
+            routers.put(methodEntry.getKey(), builder.build());
+        }
+        return new MockRouteTable(Collections.unmodifiableMap(routers), Collections.unmodifiableMap(mocks),
+            size, version, System.nanoTime() - start);
+    }
+
+    /**
+     * 查找匹配的路由
+     *
+     * @param method HTTP方法（会自动转换为大写）
+     * @param path 请求路径
+     * @return 匹配结果（路由及路径变量），未找到返回 null
+     */
+    public RouteMatch<MockRoute> find(String method, String path) {
+        PathTemplateRouter<MockRoute> router = routers.get(method.toUpperCase());
+        return router != null ? router.match(path) : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * 一组等价路径模板的配置，template 为其中ID最小的配置的写法
+     */
+    private static final class RouteGroup {
+
+        private final String template;
+
+        private final MockRoute.Builder route = MockRoute.builder();
+
+        private RouteGroup(String template) {
+            this.template = template;
+        }
+    }
+}
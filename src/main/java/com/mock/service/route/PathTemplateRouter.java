@@ -0,0 +1,385 @@
+package com.mock.service.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 路径模板路由器
+ * <p>
+ * 将路径模板按 "/" 切分为段，编译成一棵前缀树（trie），查找耗时只与请求路径的段数有关，
+ * 与注册的模板数量无关。不含变量的路径直接走哈希表。
+ * </p>
+ * <p>
+ * 支持的模板语法：
+ * <ul>
+ *   <li>字面量：<code>/users/list</code></li>
+ *   <li>变量：<code>/users/{id}</code>，匹配任意单个路径段</li>
+ *   <li>正则变量：<code>/users/{id:\d+}</code>，段内容需完整匹配正则</li>
+ *   <li>单段通配：<code>/files/*</code></li>
+ *   <li>多段通配：<code>/files/**</code> 或捕获剩余路径 <code>/files/{*rest}</code>，只能作为最后一段</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 优先级（每一段依次比较，前面的分支匹配失败时回溯尝试后面的分支）：
+ * 字面量 &gt; 正则变量（按模板字符串排序）&gt; 普通变量 / 单段通配 &gt; 多段通配。
+ * 只有变量名不同的模板（如 <code>/users/{id}</code> 与 <code>/users/{userId}</code>）落在同一个节点上，
+ * 视为相同模板（见 {@link #normalize}），重复注册时保留先注册的。
+ * </p>
+ *
+ * @param <T> 路由目标类型
+ */
+public final class PathTemplateRouter<T> {
+
+    private final Map<String, T> exactRoutes;
+
+    private final Node<T> root;
+
+    private final int size;
+
+    private PathTemplateRouter(Map<String, T> exactRoutes, Node<T> root, int size) {
+        this.exactRoutes = exactRoutes;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 查找匹配的路由
+     *
+     * @param path 请求路径
+     * @return 匹配结果，未找到返回 null
+     */
+    public RouteMatch<T> match(String path) {
+        T exact = exactRoutes.get(path);
+        if (exact != null) {
+            return new RouteMatch<>(exact, Collections.emptyMap());
+        }
+        if (root.isEmpty()) {
+            return null;
+        }
+        List<String> segments = split(path);
+        String[] captured = new String[(segments.size() + 1) * 2];
+        Node<T> node = root.find(segments, 0, captured);
+        if (node == null) {
+            return null;
+        }
+        Map<String, String> variables = new LinkedHashMap<>();
+        for (int i = 0; i < captured.length; i += 2) {
+            if (captured[i] != null) {
+                variables.put(captured[i], captured[i + 1]);
+            }
+        }
+        return new RouteMatch<>(node.value, variables);
+    }
+
+    /**
+     * 已注册的路由数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 检查路径模板语法
+     *
+     * @param template 路径模板
+     * @throws IllegalArgumentException 语法错误时
+     */
+    public static void validate(String template) {
+        List<String> segments = split(template);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = parseSegment(segments.get(i));
+            if (segment.kind == SegmentKind.CATCH_ALL && i < segments.size() - 1) {
+                throw new IllegalArgumentException("多段通配只能出现在路径最后: " + template);
+            }
+        }
+    }
+
+    /**
+     * 规范化路径模板：抹去变量名，等价的模板（会注册到同一节点）得到相同结果
+     * <p>
+     * 如 <code>/users/{id}</code>、<code>/users/{userId}</code>、<code>/users/*</code> 都规范化为 <code>/users/{}</code>，
+     * <code>/files/**</code> 与 <code>/files/{*rest}</code> 都规范化为 <code>/files/{*}</code>。不含模板语法的路径原样返回。
+     * </p>
+     *
+     * @throws IllegalArgumentException 模板语法错误时
+     */
+    public static String normalize(String template) {
+        if (!isTemplate(template)) {
+            return template;
+        }
+        validate(template);
+        StringBuilder normalized = new StringBuilder();
+        for (String text : split(template)) {
+            Segment segment = parseSegment(text);
+            normalized.append('/');
+            switch (segment.kind) {
+                case LITERAL -> normalized.append(segment.text);
+                case REGEX -> normalized.append("{:").append(segment.pattern.pattern()).append('}');
+                case VARIABLE -> normalized.append("{}");
+                default -> normalized.append("{*}");
+            }
+        }
+        return normalized.length() > 0 ? normalized.toString() : "/";
+    }
+
+    /**
+     * 判断路径是否包含模板语法
+     */
+    public static boolean isTemplate(String path) {
+        return path.indexOf('{') >= 0 || path.indexOf('*') >= 0;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 路由构建器（非线程安全，构建完成后生成不可变路由器）
+     */
+    public static final class Builder<T> {
+
+        private final Map<String, T> exactRoutes = new HashMap<>();
+
+        private final Node<T> root = new Node<>();
+
+        private int size;
+
+        /**
+         * 注册路由，重复（含等价）的模板保留先注册的
+         *
+         * @return 是否注册成功，模板已被注册过时返回 false
+         * @throws IllegalArgumentException 模板语法错误时
+         */
+        public boolean add(String template, T value) {
+            if (!isTemplate(template)) {
+                if (exactRoutes.putIfAbsent(template, value) == null) {
+                    size++;
+                    return true;
+                }
+                return false;
+            }
+            validate(template);
+            Node<T> node = root;
+            for (String segment : split(template)) {
+                node = node.child(parseSegment(segment));
+            }
+            if (node.value == null) {
+                node.value = value;
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        public PathTemplateRouter<T> build() {
+            root.freeze();
+            return new PathTemplateRouter<>(exactRoutes, root, size);
+        }
+    }
+
+    /**
+     * 路由匹配结果
+     *
+     * @param value 路由目标
+     * @param variables 路径变量（模板中的 {name}）
+     */
+    public record RouteMatch<T>(T value, Map<String, String> variables) {
+    }
+
+    // ==================== 内部实现 ====================
+
+    private enum SegmentKind {
+        LITERAL, REGEX, VARIABLE, CATCH_ALL
+    }
+
+    private record Segment(SegmentKind kind, String text, String name, Pattern pattern) {
+    }
+
+    private static Segment parseSegment(String segment) {
+        if ("**".equals(segment)) {
+            return new Segment(SegmentKind.CATCH_ALL, segment, null, null);
+        }
+        if ("*".equals(segment)) {
+            return new Segment(SegmentKind.VARIABLE, segment, null, null);
+        }
+        if (segment.startsWith("{") && segment.endsWith("}")) {
+            String body = segment.substring(1, segment.length() - 1);
+            if (body.startsWith("*")) {
+                return new Segment(SegmentKind.CATCH_ALL, segment, requireName(body.substring(1), segment), null);
+            }
+            int colon = body.indexOf(':');
+            if (colon < 0) {
+                return new Segment(SegmentKind.VARIABLE, segment, requireName(body, segment), null);
+            }
+            String name = requireName(body.substring(0, colon), segment);
+            try {
+                return new Segment(SegmentKind.REGEX, segment, name, Pattern.compile(body.substring(colon + 1)));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("路径变量正则无效: " + segment, e);
+            }
+        }
+        if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0 || segment.indexOf('*') >= 0) {
+            throw new IllegalArgumentException("路径段模板语法无效: " + segment);
+        }
+        return new Segment(SegmentKind.LITERAL, segment, null, null);
+    }
+
+    private static String requireName(String name, String segment) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("路径变量缺少名称: " + segment);
+        }
+        return name;
+    }
+
+    /**
+     * 按 "/" 切分路径，忽略首尾和连续的分隔符
+     */
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static final class Node<T> {
+
+        private Map<String, Node<T>> literals = new HashMap<>();
+
+        private List<Node<T>> regexChildren = new ArrayList<>();
+
+        private Node<T> variableChild;
+
+        private Node<T> catchAllChild;
+
+        private Segment segment;
+
+        private T value;
+
+        Node<T> child(Segment segment) {
+            switch (segment.kind) {
+                case LITERAL:
+                    return literals.computeIfAbsent(segment.text, key -> newNode(segment));
+                case REGEX:
+                    for (Node<T> child : regexChildren) {
+                        if (child.segment.text.equals(segment.text)) {
+                            return child;
+                        }
+                    }
+                    Node<T> regexNode = newNode(segment);
+                    regexChildren.add(regexNode);
+                    return regexNode;
+                case VARIABLE:
+                    if (variableChild == null) {
+                        variableChild = newNode(segment);
+                    }
+                    return variableChild;
+                default:
+                    if (catchAllChild == null) {
+                        catchAllChild = newNode(segment);
+                    }
+                    return catchAllChild;
+            }
+        }
+
+        private Node<T> newNode(Segment segment) {
+            Node<T> node = new Node<>();
+            node.segment = segment;
+            return node;
+        }
+
+        boolean isEmpty() {
+            return value == null && literals.isEmpty() && regexChildren.isEmpty()
+                && variableChild == null && catchAllChild == null;
+        }
+
+        /**
+         * 固化子节点顺序，之后只读
+         */
+        void freeze() {
+            regexChildren.sort(Comparator.comparing(child -> child.segment.text));
+            literals = literals.isEmpty() ? Collections.emptyMap() : Map.copyOf(literals);
+            regexChildren = List.copyOf(regexChildren);
+            literals.values().forEach(Node::freeze);
+            regexChildren.forEach(Node::freeze);
+            if (variableChild != null) {
+                variableChild.freeze();
+            }
+            if (catchAllChild != null) {
+                catchAllChild.freeze();
+            }
+        }
+
+        /**
+         * 深度优先查找，按优先级尝试各分支
+         *
+         * @param captured 变量名/值交替存放，下标 2*index 对应第 index 个路径段
+         */
+        Node<T> find(List<String> segments, int index, String[] captured) {
+            if (index == segments.size()) {
+                if (value != null) {
+                    return this;
+                }
+                // "/files/**" 同样匹配 "/files"
+                if (catchAllChild != null && catchAllChild.value != null) {
+                    catchAllChild.capture(captured, index, "");
+                    return catchAllChild;
+                }
+                return null;
+            }
+            String current = segments.get(index);
+
+            Node<T> literal = literals.get(current);
+            if (literal != null) {
+                Node<T> found = literal.find(segments, index + 1, captured);
+                if (found != null) {
+                    return found;
+                }
+            }
+            for (Node<T> regex : regexChildren) {
+                if (regex.segment.pattern.matcher(current).matches()) {
+                    Node<T> found = regex.find(segments, index + 1, captured);
+                    if (found != null) {
+                        regex.capture(captured, index, current);
+                        return found;
+                    }
+                }
+            }
+            if (variableChild != null) {
+                Node<T> found = variableChild.find(segments, index + 1, captured);
+                if (found != null) {
+                    variableChild.capture(captured, index, current);
+                    return found;
+                }
+            }
+            if (catchAllChild != null && catchAllChild.value != null) {
+                catchAllChild.capture(captured, index, String.join("/", segments.subList(index, segments.size())));
+                return catchAllChild;
+            }
+            return null;
+        }
+
+        private void capture(String[] captured, int index, String text) {
+            if (segment.name != null) {
+                captured[index * 2] = segment.name;
+                captured[index * 2 + 1] = text;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.mock.service.route;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 预编码的 Mock 响应
+ * <p>
+ * 在配置变更构建路由表时一次性完成：响应体编码为字节、解析 Content-Type、
+ * 计算 Content-Length 和强 ETag。请求时直接写入 Servlet 输出流，
+ * 不再逐次解析媒体类型、编码字符串或分配大对象。
+ * </p>
+ * <p>
+ * 实例不可变，可在多个请求线程间共享（body 数组不会被修改）。
+ * 模板响应按请求渲染后也包装为本类（{@link #dynamic}），但不计算 ETag。
+ * </p>
+ */
+public final class PreparedResponse {
+
+    private final int status;
+
+    private final MediaType mediaType;
+
+    /**
+     * 完整的 Content-Type 头（text/* 等文本类型未声明字符集时补充 charset=UTF-8）
+     */
+    private final String contentType;
+
+    private final byte[] body;
+
+    private final String etag;
+
+    private PreparedResponse(int status, MediaType mediaType, String contentType, byte[] body, String etag) {
+        this.status = status;
+        this.mediaType = mediaType;
+        this.contentType = contentType;
+        this.body = body;
+        this.etag = etag;
+    }
+
+    /**
+     * 编码文本响应
+     *
+     * @param status 响应状态码
+     * @param contentType Content-Type（为空时默认 application/json）
+     * @param body 响应体（按 Content-Type 声明的字符集编码，默认 UTF-8）
+     * @throws org.springframework.http.InvalidMediaTypeException Content-Type 无效时
+     */
+    public static PreparedResponse of(int status, String contentType, String body) {
+        MediaType mediaType = resolveMediaType(contentType);
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(charsetOf(mediaType));
+        return of(status, mediaType, bytes);
+    }
+
+    /**
+     * 包装已编码的二进制响应
+     */
+    public static PreparedResponse of(int status, MediaType mediaType, byte[] body) {
+        return new PreparedResponse(status, mediaType, mediaType.toString(), body, etag(body));
+    }
+
+    /**
+     * 包装按请求生成的响应：不计算 ETag（每次内容都可能不同，摘要开销没有意义）
+     *
+     * @param mediaType 已由 {@link #resolveMediaType(String)} 解析的媒体类型
+     */
+    public static PreparedResponse dynamic(int status, MediaType mediaType, byte[] body) {
+        return new PreparedResponse(status, mediaType, mediaType.toString(), body, null);
+    }
+
+    /**
+     * 解析 Content-Type（text/* 类型未声明字符集时补充 charset=UTF-8）
+     *
+     * @param contentType Content-Type（为空时默认 application/json）
+     * @throws org.springframework.http.InvalidMediaTypeException Content-Type 无效时
+     */
+    public static MediaType resolveMediaType(String contentType) {
+        MediaType mediaType = contentType == null || contentType.isBlank()
+            ? MediaType.APPLICATION_JSON
+            : MediaType.parseMediaType(contentType);
+        if (mediaType.getCharset() == null && "text".equals(mediaType.getType())) {
+            mediaType = new MediaType(mediaType, StandardCharsets.UTF_8);
+        }
+        return mediaType;
+    }
+
+    /**
+     * 响应体编码使用的字符集（未声明时为 UTF-8）
+     */
+    public static Charset charsetOf(MediaType mediaType) {
+        Charset charset = mediaType.getCharset();
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 直接写入 Servlet 响应
+     *
+     * @param response Servlet 响应
+     * @param ifNoneMatch 请求的 If-None-Match 头，与 ETag 相同时返回 304
+     */
+    public void writeTo(HttpServletResponse response, String ifNoneMatch) throws IOException {
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (status < 300 && etag.equals(ifNoneMatch)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        response.setStatus(status);
+        response.setContentType(contentType);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * 转换为 ResponseEntity（用于 DeferredResult 等需要交给 Spring MVC 写出的场景）
+     */
+    public ResponseEntity<byte[]> toResponseEntity() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status)
+            .contentType(mediaType)
+            .contentLength(body.length);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(body);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getContentLength() {
+        return body.length;
+    }
+
+    /**
+     * 强 ETag，按请求生成的响应为 null
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
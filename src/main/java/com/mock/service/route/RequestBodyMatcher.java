@@ -0,0 +1,231 @@
+package com.mock.service.route;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 请求体匹配工具
+ * <p>
+ * 支持三种匹配方式（MockConfig.requestBodyMatchType）：
+ * <ul>
+ *   <li>EXACT：规范化 JSON 相等（忽略字段顺序和空白），非 JSON 内容按去除首尾空白后的字符串比较</li>
+ *   <li>SUBSET：请求体 JSON 包含配置中的所有字段且值相同（对象递归比较，数组按位置逐个比较）</li>
+ *   <li>REGEX：请求体完整匹配正则表达式（DOTALL 模式）</li>
+ * </ul>
+ * EXACT 规则按请求体指纹（规范化内容的 SHA-256）建立哈希索引，查找为 O(1)；
+ * SUBSET 和 REGEX 规则按顺序逐条尝试。
+ * </p>
+ */
+public final class RequestBodyMatcher {
+
+    public static final String EXACT = "EXACT";
+    public static final String SUBSET = "SUBSET";
+    public static final String REGEX = "REGEX";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private RequestBodyMatcher() {
+    }
+
+    /**
+     * 解析请求体为 JSON，非 JSON 或空内容返回 null
+     */
+    public static JsonNode parse(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        char first = body.strip().charAt(0);
+        if (first != '{' && first != '[') {
+            return null;
+        }
+        try {
+            return MAPPER.readTree(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 计算请求体指纹
+     *
+     * @param body 原始请求体
+     * @param json 已解析的 JSON（可为 null，表示非 JSON）
+     * @return 规范化内容的 SHA-256 十六进制字符串
+     */
+    public static String fingerprint(String body, JsonNode json) {
+        String canonical = json != null ? canonicalize(json) : (body == null ? "" : body.strip());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算请求体指纹（自动解析 JSON）
+     */
+    public static String fingerprint(String body) {
+        return fingerprint(body, parse(body));
+    }
+
+    /**
+     * 规范化 JSON：对象字段按名称排序，紧凑输出
+     */
+    public static String canonicalize(JsonNode json) {
+        try {
+            return MAPPER.writeValueAsString(sortKeys(json));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("JSON 规范化失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 判断 actual 是否包含 expected 的所有内容
+     */
+    public static boolean isSubset(JsonNode expected, JsonNode actual) {
+        if (expected == null) {
+            return true;
+        }
+        if (actual == null) {
+            return false;
+        }
+        if (expected.isObject()) {
+            if (!actual.isObject()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = expected.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!isSubset(field.getValue(), actual.get(field.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expected.isArray()) {
+            if (!actual.isArray() || actual.size() != expected.size()) {
+                return false;
+            }
+            for (int i = 0; i < expected.size(); i++) {
+                if (!isSubset(expected.get(i), actual.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expected.isNumber() && actual.isNumber()) {
+            return expected.decimalValue().compareTo(actual.decimalValue()) == 0;
+        }
+        return expected.equals(actual);
+    }
+
+    /**
+     * 规范化匹配类型，配置了请求体但未指定类型时默认 EXACT
+     */
+    public static String normalizeType(String type) {
+        if (type == null || type.isBlank()) {
+            return EXACT;
+        }
+        return type.trim().toUpperCase();
+    }
+
+    /**
+     * 请求体唯一性键，与路由表的去重方式一致：未配置请求体的配置共用空键（同一路径和方法只有一个兜底），
+     * 其余为匹配类型 + 规范化内容指纹，字段顺序或空白不同的 JSON 视为同一请求体
+     */
+    public static String uniqueKey(String type, String body) {
+        if (body == null || body.isBlank()) {
+            return "";
+        }
+        return normalizeType(type) + ':' + fingerprint(body);
+    }
+
+    /**
+     * 编译单条 SUBSET/REGEX 规则
+     *
+     * @throws IllegalArgumentException 配置内容与匹配类型不符时
+     */
+    public static Rule compile(String type, String body) {
+        switch (normalizeType(type)) {
+            case SUBSET:
+                JsonNode expected = parse(body);
+                if (expected == null) {
+                    throw new IllegalArgumentException("SUBSET 匹配的请求体必须是 JSON 对象或数组");
+                }
+                return (raw, json) -> isSubset(expected, json);
+            case REGEX:
+                try {
+                    Pattern pattern = Pattern.compile(body, Pattern.DOTALL);
+                    return (raw, json) -> raw != null && pattern.matcher(raw).matches();
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("请求体正则无效: " + e.getDescription());
+                }
+            case EXACT:
+                String fingerprint = fingerprint(body);
+                return (raw, json) -> fingerprint.equals(fingerprint(raw, json));
+            default:
+                throw new IllegalArgumentException("不支持的请求体匹配类型: " + type);
+        }
+    }
+
+    /**
+     * 校验请求体匹配配置
+     *
+     * @throws IllegalArgumentException 配置无效时
+     */
+    public static void validate(String type, String body) {
+        if (body != null && !body.isBlank()) {
+            compile(type, body);
+        }
+    }
+
+    private static JsonNode sortKeys(JsonNode node) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+            for (String name : names) {
+                sorted.set(name, sortKeys(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode(node.size());
+            for (JsonNode element : node) {
+                array.add(sortKeys(element));
+            }
+            return array;
+        }
+        return node;
+    }
+
+    /**
+     * 编译后的请求体匹配规则
+     */
+    @FunctionalInterface
+    public interface Rule {
+
+        /**
+         * @param raw 原始请求体
+         * @param json 已解析的 JSON（非 JSON 时为 null）
+         */
+        boolean matches(String raw, JsonNode json);
+    }
+}
@@ -0,0 +1,467 @@
+package com.mock.service.route;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 编译后的响应体模板
+ * <p>
+ * 响应体中的 {@code {{表达式}}} 占位符在构建路由表时一次性解析为片段数组，
+ * 请求时按顺序把各片段直接写入当前线程复用的字节缓冲区（{@link #renderBytes}），不再逐次查找或替换字符串：
+ * 文本片段在编译时已按响应字符集编码，只做数组复制；占位符的值按需编码后追加。
+ * 渲染完成后只复制一次得到大小恰好的响应体（响应可能在延迟结束后由其他线程写出，不能直接交出线程复用的缓冲区），
+ * 不再经过 String。需要文本时（Protobuf 的 JSON 源、事件流）使用 {@link #render(Context)}。
+ * 支持的表达式：
+ * <ul>
+ *   <li>{{path.id}}：路径变量</li>
+ *   <li>{{query.page}}：查询参数（多个值时取第一个）</li>
+ *   <li>{{header.X-Request-Id}}：请求头</li>
+ *   <li>{{body}}：完整请求体；{{body.user.id}}、{{body.items[0].name}}：请求体 JSON 字段
+ *       （文本字段输出原文，其他类型输出 JSON）</li>
+ *   <li>{{counter}}：该 Mock 的调用计数，从 1 开始，配置变更后重新计数</li>
+ *   <li>{{uuid}}：随机 UUID</li>
+ *   <li>{{timestamp}}：当前毫秒时间戳；{{now}}：当前时间（ISO-8601，UTC）</li>
+ * </ul>
+ * 取值类表达式可在冒号后指定默认值，如 {{query.page:1}}；取不到值且没有默认值时输出空串。
+ * 无法识别的占位符按原文输出。
+ * </p>
+ * <p>
+ * 实例不可变（计数器除外），可在多个请求线程间共享。
+ * </p>
+ */
+public final class ResponseTemplate {
+
+    private static final String OPEN = "{{";
+
+    private static final String CLOSE = "}}";
+
+    /**
+     * 渲染缓冲区超过该容量时不再复用，避免个别大响应长期占用内存
+     */
+    private static final int MAX_REUSED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private static final ThreadLocal<ByteSink> BYTES = ThreadLocal.withInitial(() -> new ByteSink(1024));
+
+    private final Segment[] segments;
+
+    /**
+     * 文本片段预编码和 {@link #renderBytes} 使用的字符集
+     */
+    private final Charset charset;
+
+    private ResponseTemplate(Segment[] segments, Charset charset) {
+        this.segments = segments;
+        this.charset = charset;
+    }
+
+    /**
+     * 编译响应体模板
+     *
+     * @param source 响应体
+     * @return 编译后的模板；不包含可识别的占位符时返回 null（可直接按静态响应处理）
+     * @throws IllegalArgumentException 占位符语法错误时（如 {{path.}}、{{body.a[x]}}）
+     */
+    public static ResponseTemplate compile(String source) {
+        return compile(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 编译响应体模板，文本片段按指定字符集预编码
+     *
+     * @param source 响应体
+     * @param charset 响应体字符集
+     * @return 编译后的模板；不包含可识别的占位符时返回 null（可直接按静态响应处理）
+     * @throws IllegalArgumentException 占位符语法错误时（如 {{path.}}、{{body.a[x]}}）
+     */
+    public static ResponseTemplate compile(String source, Charset charset) {
+        if (source == null || !source.contains(OPEN)) {
+            return null;
+        }
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean dynamic = false;
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf(OPEN, pos);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literal.append(source, pos, source.length());
+                break;
+            }
+            literal.append(source, pos, open);
+            String expression = source.substring(open + OPEN.length(), close).strip();
+            Segment segment = compileExpression(expression);
+            if (segment == null) {
+                literal.append(source, open, close + CLOSE.length());
+            } else {
+                if (!literal.isEmpty()) {
+                    segments.add(new Literal(literal.toString(), charset));
+                    literal.setLength(0);
+                }
+                segments.add(segment);
+                dynamic = true;
+            }
+            pos = close + CLOSE.length();
+        }
+        if (!dynamic) {
+            return null;
+        }
+        if (!literal.isEmpty()) {
+            segments.add(new Literal(literal.toString(), charset));
+        }
+        return new ResponseTemplate(segments.toArray(new Segment[0]), charset);
+    }
+
+    /**
+     * 校验响应体模板语法
+     *
+     * @throws IllegalArgumentException 占位符语法错误时
+     */
+    public static void validate(String source) {
+        compile(source);
+    }
+
+    /**
+     * 渲染到调用方提供的缓冲区
+     */
+    public void render(Context context, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.append(context, out);
+        }
+    }
+
+    /**
+     * 使用当前线程复用的 StringBuilder 渲染为文本
+     */
+    public String render(Context context) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        render(context, out);
+        String result = out.toString();
+        if (out.capacity() > MAX_REUSED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * 按编译时的字符集直接渲染为响应体字节，只在最后复制一次当前线程复用的字节缓冲区
+     */
+    public byte[] renderBytes(Context context) {
+        ByteSink out = BYTES.get();
+        out.reset();
+        for (Segment segment : segments) {
+            segment.write(context, out, charset);
+        }
+        byte[] result = out.toByteArray();
+        if (out.capacity() > MAX_REUSED_CAPACITY) {
+            BYTES.remove();
+        }
+        return result;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * 片段数量（用于诊断）
+     */
+    public int size() {
+        return segments.length;
+    }
+
+    private static Segment compileExpression(String expression) {
+        String name = expression;
+        String defaultValue = null;
+        int colon = expression.indexOf(':');
+        if (colon >= 0) {
+            name = expression.substring(0, colon).strip();
+            defaultValue = expression.substring(colon + 1);
+        }
+        String fallback = defaultValue != null ? defaultValue : "";
+
+        switch (name) {
+            case "body":
+                return (context, out) -> append(out, context.body(), fallback);
+            case "counter":
+                AtomicLong counter = new AtomicLong();
+                return (context, out) -> out.append(counter.incrementAndGet());
+            case "uuid":
+                return (context, out) -> out.append(randomUuid());
+            case "timestamp":
+                return (context, out) -> out.append(System.currentTimeMillis());
+            case "now":
+                return (context, out) -> out.append(Instant.now());
+            default:
+                break;
+        }
+
+        String namespace;
+        String key;
+        if (name.startsWith("body[")) {
+            // 请求体本身是数组：{{body[0].id}}
+            namespace = "body";
+            key = name.substring("body".length());
+        } else {
+            int dot = name.indexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            namespace = name.substring(0, dot);
+            key = name.substring(dot + 1);
+        }
+        if (!namespace.equals("path") && !namespace.equals("query")
+                && !namespace.equals("header") && !namespace.equals("body")) {
+            return null;
+        }
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("占位符缺少名称: {{" + expression + "}}");
+        }
+        switch (namespace) {
+            case "path":
+                return (context, out) -> append(out, context.pathVariables.get(key), fallback);
+            case "query":
+                return (context, out) -> append(out, context.queryParams.apply(key), fallback);
+            case "header":
+                return (context, out) -> append(out, context.headers.apply(key), fallback);
+            default:
+                JsonPointer pointer = toPointer(key, expression);
+                return (context, out) -> appendJson(out, context.json(), pointer, fallback);
+        }
+    }
+
+    /**
+     * 把 user.items[0].name 转换为 JSON Pointer /user/items/0/name
+     */
+    private static JsonPointer toPointer(String key, String expression) {
+        StringBuilder pointer = new StringBuilder();
+        for (String part : key.split("\\.", -1)) {
+            int bracket = part.indexOf('[');
+            String field = bracket < 0 ? part : part.substring(0, bracket);
+            if (field.isEmpty() && bracket != 0) {
+                throw new IllegalArgumentException("占位符字段名为空: {{" + expression + "}}");
+            }
+            if (!field.isEmpty()) {
+                pointer.append('/').append(field.replace("~", "~0").replace("/", "~1"));
+            }
+            while (bracket >= 0) {
+                int end = part.indexOf(']', bracket);
+                String index = end < 0 ? "" : part.substring(bracket + 1, end);
+                if (index.isEmpty() || !index.chars().allMatch(Character::isDigit)) {
+                    throw new IllegalArgumentException("占位符数组下标无效: {{" + expression + "}}");
+                }
+                pointer.append('/').append(index);
+                bracket = part.indexOf('[', end);
+                if (bracket < 0 && end != part.length() - 1) {
+                    throw new IllegalArgumentException("占位符语法无效: {{" + expression + "}}");
+                }
+            }
+        }
+        return JsonPointer.compile(pointer.toString());
+    }
+
+    private static void append(StringBuilder out, String value, String fallback) {
+        out.append(value != null ? value : fallback);
+    }
+
+    private static void appendJson(StringBuilder out, JsonNode json, JsonPointer pointer, String fallback) {
+        JsonNode node = json == null ? null : json.at(pointer);
+        if (node == null || node.isMissingNode() || node.isNull()) {
+            out.append(fallback);
+        } else if (node.isValueNode()) {
+            out.append(node.asText());
+        } else {
+            out.append(node);
+        }
+    }
+
+    /**
+     * 基于 ThreadLocalRandom 生成 v4 UUID（UUID.randomUUID 使用 SecureRandom，高并发下开销较大）
+     */
+    private static UUID randomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    @FunctionalInterface
+    private interface Segment {
+
+        void append(Context context, StringBuilder out);
+
+        /**
+         * 按字符集编码后写入字节缓冲区。占位符的值通常很短，先拼到当前线程的 StringBuilder 再编码
+         */
+        default void write(Context context, ByteSink out, Charset charset) {
+            StringBuilder text = BUFFER.get();
+            text.setLength(0);
+            append(context, text);
+            out.write(text, charset);
+        }
+    }
+
+    /**
+     * 文本片段：编译时按响应字符集编码一次，渲染时只做数组复制
+     */
+    private static final class Literal implements Segment {
+
+        private final String text;
+
+        private final byte[] bytes;
+
+        private final Charset charset;
+
+        private Literal(String text, Charset charset) {
+            this.text = text;
+            this.bytes = text.getBytes(charset);
+            this.charset = charset;
+        }
+
+        @Override
+        public void append(Context context, StringBuilder out) {
+            out.append(text);
+        }
+
+        @Override
+        public void write(Context context, ByteSink out, Charset charset) {
+            if (charset.equals(this.charset)) {
+                out.write(bytes);
+            } else {
+                out.write(text, charset);
+            }
+        }
+    }
+
+    /**
+     * 可增长的字节缓冲区（单线程使用）
+     */
+    private static final class ByteSink {
+
+        private byte[] buf;
+
+        private int size;
+
+        private ByteSink(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * UTF-8 直接逐字符编码，不分配中间数组；其他字符集借助 String 编码
+         */
+        void write(CharSequence text, Charset charset) {
+            if (!StandardCharsets.UTF_8.equals(charset)) {
+                write(text.toString().getBytes(charset));
+                return;
+            }
+            int length = text.length();
+            ensure(length * 3);
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    buf[size++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[size++] = (byte) (0xc0 | (c >> 6));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buf[size++] = (byte) (0xf0 | (codePoint >> 18));
+                    buf[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buf[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符，与 String.getBytes 一致替换为 '?'
+                    buf[size++] = '?';
+                } else {
+                    buf[size++] = (byte) (0xe0 | (c >> 12));
+                    buf[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * 单次请求的渲染上下文，请求体 JSON 在首次用到时才解析
+     */
+    public static final class Context {
+
+        private final Map<String, String> pathVariables;
+
+        private final Function<String, String> queryParams;
+
+        private final Function<String, String> headers;
+
+        private final String body;
+
+        private JsonNode json;
+
+        private boolean jsonParsed;
+
+        /**
+         * @param pathVariables 路径变量
+         * @param queryParams 按名称取查询参数
+         * @param headers 按名称取请求头
+         * @param body 请求体（可为 null）
+         */
+        public Context(Map<String, String> pathVariables, Function<String, String> queryParams,
+                       Function<String, String> headers, String body) {
+            this.pathVariables = pathVariables;
+            this.queryParams = queryParams;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        String body() {
+            return body;
+        }
+
+        JsonNode json() {
+            if (!jsonParsed) {
+                json = RequestBodyMatcher.parse(body);
+                jsonParsed = true;
+            }
+            return json;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.mock.service.route;
+
+/**
+ * 响应限速（慢速分块输出）
+ * <p>
+ * 两种配置方式（MockConfig.throttleRate / chunkSize / chunkDelay）：
+ * <ul>
+ *   <li>按带宽：throttleRate 字节/秒，可选 chunkSize 指定每块大小（默认每 50 毫秒一块），
+ *       块间隔 = chunkSize / throttleRate</li>
+ *   <li>按块：chunkSize 字节一块，相邻两块间隔 chunkDelay 毫秒</li>
+ * </ul>
+ * 两者都未配置时不限速。编译后的实例不可变，可在多个请求间共享。
+ * </p>
+ */
+public final class ResponseThrottle {
+
+    /**
+     * 按带宽限速且未指定块大小时，每秒输出的块数
+     */
+    private static final int DEFAULT_CHUNKS_PER_SECOND = 20;
+
+    /**
+     * 每秒最多输出的块数（块间隔下限 1 毫秒）
+     */
+    private static final int MAX_CHUNKS_PER_SECOND = 1000;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int chunkSize;
+
+    private final long intervalNanos;
+
+    private ResponseThrottle(int chunkSize, long intervalNanos) {
+        this.chunkSize = chunkSize;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * 编译限速配置
+     *
+     * @param throttleRate 带宽（字节/秒）
+     * @param chunkSize 每块字节数
+     * @param chunkDelay 块间隔（毫秒）
+     * @return 限速配置；未配置限速时返回 null
+     * @throws IllegalArgumentException 参数无效时
+     */
+    public static ResponseThrottle compile(Integer throttleRate, Integer chunkSize, Integer chunkDelay) {
+        if (throttleRate == null && chunkSize == null && chunkDelay == null) {
+            return null;
+        }
+        if (chunkSize != null && chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 必须大于 0");
+        }
+        if (throttleRate != null) {
+            if (throttleRate < 1) {
+                throw new IllegalArgumentException("throttleRate 必须大于 0");
+            }
+            if (chunkDelay != null) {
+                throw new IllegalArgumentException("throttleRate 与 chunkDelay 不能同时配置");
+            }
+            int size = chunkSize != null ? chunkSize : Math.max(1, throttleRate / DEFAULT_CHUNKS_PER_SECOND);
+            // 块过小会导致间隔低于 1 毫秒，按上限合并
+            size = Math.max(size, (throttleRate + MAX_CHUNKS_PER_SECOND - 1) / MAX_CHUNKS_PER_SECOND);
+            return new ResponseThrottle(size, size * NANOS_PER_SECOND / throttleRate);
+        }
+        if (chunkSize == null || chunkDelay == null) {
+            throw new IllegalArgumentException("按块输出需要同时配置 chunkSize 和 chunkDelay");
+        }
+        if (chunkDelay < 0) {
+            throw new IllegalArgumentException("chunkDelay 不能为负数");
+        }
+        return new ResponseThrottle(chunkSize, chunkDelay * 1_000_000L);
+    }
+
+    /**
+     * 校验限速配置
+     *
+     * @throws IllegalArgumentException 参数无效时
+     */
+    public static void validate(Integer throttleRate, Integer chunkSize, Integer chunkDelay) {
+        compile(throttleRate, chunkSize, chunkDelay);
+    }
+
+    /**
+     * 每块字节数
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 相邻两块的间隔（纳秒）
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+}
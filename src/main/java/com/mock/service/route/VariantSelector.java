@@ -0,0 +1,217 @@
+package com.mock.service.route;
+
+import com.mock.service.entity.MockResponseVariant;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 响应变体选择器
+ * <p>
+ * 支持的策略（MockConfig.variantStrategy）：
+ * <ul>
+ *   <li>NONE：不使用变体</li>
+ *   <li>SEQUENCE：按顺序轮流返回各变体</li>
+ *   <li>WEIGHTED：按权重随机返回（ThreadLocalRandom，无共享状态）</li>
+ *   <li>EVERY_NTH：第 N、2N、3N... 次调用返回 everyN=N 的变体（按顺序取第一个命中的），其余调用返回默认响应</li>
+ *   <li>STICKY：按客户端标识的哈希值在权重区间中固定选择，同一客户端始终得到同一个变体</li>
+ * </ul>
+ * 选择状态只有一个按配置独立的原子计数器（getAndIncrement，不加锁），配置变更后随路由表重建归零。
+ * </p>
+ * <p>
+ * SEQUENCE、EVERY_NTH 有意共用这一个计数器：它们的语义是“该 Mock 的第 k 次调用”，要求所有请求线程看到同一个全序。
+ * 分段计数（LongAdder 式）或按线程偏移只能保证各段/各线程内部轮流，同一客户端的连续请求落在不同线程时会看到
+ * 乱序或重复的变体，“第 N 次返回错误”也不再准确，测试场景无法复现。代价是同一个 Mock 的并发请求在该计数器的缓存行上竞争；
+ * 原子自增是单条指令，不会像 CAS 循环那样重试，不同 Mock 之间互不影响。只需要比例而不需要顺序的压测
+ * 请使用 WEIGHTED（ThreadLocalRandom）或 STICKY（客户端哈希），两者没有任何共享的可变状态，可随核数扩展。
+ * </p>
+ */
+public final class VariantSelector {
+
+    public static final String NONE = "NONE";
+    public static final String SEQUENCE = "SEQUENCE";
+    public static final String WEIGHTED = "WEIGHTED";
+    public static final String EVERY_NTH = "EVERY_NTH";
+    public static final String STICKY = "STICKY";
+
+    private static final List<String> STRATEGIES = List.of(NONE, SEQUENCE, WEIGHTED, EVERY_NTH, STICKY);
+
+    private final String strategy;
+
+    private final CompiledResponse[] variants;
+
+    /**
+     * 权重前缀和（WEIGHTED、STICKY 使用），cumulativeWeights[i] = 前 i+1 个变体的权重之和
+     */
+    private final long[] cumulativeWeights;
+
+    /**
+     * 各变体的 N（EVERY_NTH 使用），0 表示不参与
+     */
+    private final int[] everyN;
+
+    /**
+     * 调用计数（SEQUENCE、EVERY_NTH 使用），严格顺序需要一个全序，不能分段，见类注释
+     */
+    private final AtomicLong calls = new AtomicLong();
+
+    private VariantSelector(String strategy, CompiledResponse[] variants, long[] cumulativeWeights, int[] everyN) {
+        this.strategy = strategy;
+        this.variants = variants;
+        this.cumulativeWeights = cumulativeWeights;
+        this.everyN = everyN;
+    }
+
+    /**
+     * 创建选择器
+     *
+     * @param strategy 选择策略
+     * @param definitions 变体定义（按顺序）
+     * @param variants 与 definitions 一一对应的已编译响应
+     * @return 选择器；策略为 NONE 或没有变体时返回 null
+     */
+    static VariantSelector of(String strategy, List<MockResponseVariant> definitions, CompiledResponse[] variants) {
+        String normalized = normalizeStrategy(strategy);
+        if (NONE.equals(normalized) || variants.length == 0) {
+            return null;
+        }
+        long[] cumulativeWeights = new long[variants.length];
+        int[] everyN = new int[variants.length];
+        long total = 0;
+        for (int i = 0; i < variants.length; i++) {
+            MockResponseVariant definition = definitions.get(i);
+            total += definition.getWeight() != null ? Math.max(0, definition.getWeight()) : 1;
+            cumulativeWeights[i] = total;
+            everyN[i] = definition.getEveryN() != null ? Math.max(0, definition.getEveryN()) : 0;
+        }
+        return new VariantSelector(normalized, variants, cumulativeWeights, everyN);
+    }
+
+    /**
+     * 规范化选择策略，为空时返回 NONE
+     */
+    public static String normalizeStrategy(String strategy) {
+        if (strategy == null || strategy.isBlank()) {
+            return NONE;
+        }
+        return strategy.trim().toUpperCase();
+    }
+
+    /**
+     * 校验选择策略和变体配置（状态码、Content-Type、延迟、权重、everyN 和响应模板）
+     *
+     * @throws IllegalArgumentException 策略不支持或变体参数无效时
+     */
+    public static void validate(String strategy, List<MockResponseVariant> variants) {
+        String normalized = normalizeStrategy(strategy);
+        if (!STRATEGIES.contains(normalized)) {
+            throw new IllegalArgumentException("不支持的变体选择策略: " + strategy);
+        }
+        if (variants == null) {
+            return;
+        }
+        for (int i = 0; i < variants.size(); i++) {
+            MockResponseVariant variant = variants.get(i);
+            String label = variant.getName() != null ? variant.getName() : "#" + (i + 1);
+            if (variant.getStatusCode() != null && (variant.getStatusCode() < 100 || variant.getStatusCode() > 599)) {
+                throw new IllegalArgumentException("变体 " + label + " 的状态码无效: " + variant.getStatusCode());
+            }
+            if (variant.getContentType() != null && !variant.getContentType().isBlank()) {
+                try {
+                    MediaType.parseMediaType(variant.getContentType());
+                } catch (InvalidMediaTypeException e) {
+                    throw new IllegalArgumentException("变体 " + label + " 的 Content-Type 无效: " + variant.getContentType());
+                }
+            }
+            if (variant.getDelay() != null && variant.getDelay() < 0) {
+                throw new IllegalArgumentException("变体 " + label + " 的延迟不能为负数");
+            }
+            if (variant.getWeight() != null && variant.getWeight() < 0) {
+                throw new IllegalArgumentException("变体 " + label + " 的权重不能为负数");
+            }
+            if (EVERY_NTH.equals(normalized) && (variant.getEveryN() == null || variant.getEveryN() < 1)) {
+                throw new IllegalArgumentException("EVERY_NTH 策略下变体 " + label + " 必须配置 everyN（>= 1）");
+            }
+            try {
+                ResponseTemplate.validate(variant.getResponseBody());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("变体 " + label + " 的响应模板无效: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 选择本次请求的响应
+     *
+     * @param clientKey 客户端标识（仅 STICKY 策略调用）
+     * @param fallback 默认响应（Mock 配置本身的响应）
+     */
+    public CompiledResponse select(Supplier<String> clientKey, CompiledResponse fallback) {
+        switch (strategy) {
+            case SEQUENCE:
+                return variants[(int) Math.floorMod(calls.getAndIncrement(), (long) variants.length)];
+            case WEIGHTED:
+                return weighted(ThreadLocalRandom.current().nextLong(Math.max(1, totalWeight())), fallback);
+            case EVERY_NTH:
+                long call = calls.incrementAndGet();
+                for (int i = 0; i < variants.length; i++) {
+                    if (everyN[i] > 0 && call % everyN[i] == 0) {
+                        return variants[i];
+                    }
+                }
+                return fallback;
+            case STICKY:
+                String key = clientKey.get();
+                return weighted(Math.floorMod(mix(key != null ? key.hashCode() : 0), Math.max(1, totalWeight())),
+                    fallback);
+            default:
+                return fallback;
+        }
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int size() {
+        return variants.length;
+    }
+
+    private long totalWeight() {
+        return cumulativeWeights[cumulativeWeights.length - 1];
+    }
+
+    /**
+     * 在权重前缀和中查找 point 所在的变体，总权重为 0 时返回默认响应
+     */
+    private CompiledResponse weighted(long point, CompiledResponse fallback) {
+        if (totalWeight() == 0) {
+            return fallback;
+        }
+        // 第一个前缀和大于 point 的位置（权重为 0 的变体前缀和与前一个相同，不会被选中）
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > point) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return variants[low];
+    }
+
+    /**
+     * 打散哈希值（splitmix64 的混合步骤），避免相近的客户端标识集中到同一个变体
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,99 @@
+package com.mock.service.service;
+
+import com.mock.service.entity.ConfigChangeLog;
+import com.mock.service.repository.ConfigChangeLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+/**
+ * 配置变更日志服务
+ * <p>
+ * 在 Mock 配置 / Proto 文件变更的同一事务中写入变更记录，事务回滚时记录一并回滚，
+ * 因此变更日志与实际数据始终一致。各节点的 {@link MockRouteService} 轮询变更日志，
+ * 实现集群范围的快照失效。过期记录定期清理（mock.cluster.change-log-retention-hours）。
+ * </p>
+ */
+@Slf4j
+@Service
+public class ConfigChangeLogService {
+
+    private final ConfigChangeLogRepository changeLogRepository;
+
+    private final String nodeId;
+
+    private final long retentionHours;
+
+    public ConfigChangeLogService(ConfigChangeLogRepository changeLogRepository,
+                                  @Value("${mock.cluster.node-id:}") String nodeId,
+                                  @Value("${mock.cluster.change-log-retention-hours:24}") long retentionHours) {
+        this.changeLogRepository = changeLogRepository;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : ManagementFactory.getRuntimeMXBean().getName();
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * 记录一条 Mock 配置变更（加入调用方事务）
+     *
+     * @param mockConfigId Mock 配置ID
+     * @param changeType UPSERT / DELETE
+     */
+    @Transactional
+    public void recordMockChange(Long mockConfigId, String changeType) {
+        record(ConfigChangeLog.ENTITY_MOCK_CONFIG, mockConfigId, changeType);
+    }
+
+    /**
+     * 记录一次批量 Mock 配置变更，各节点收到后全量重新加载
+     */
+    @Transactional
+    public void recordMockReload() {
+        record(ConfigChangeLog.ENTITY_MOCK_CONFIG, null, ConfigChangeLog.CHANGE_RELOAD);
+    }
+
+    /**
+     * 记录一条 Proto 文件变更（加入调用方事务）
+     *
+     * @param protoFileId Proto 文件ID
+     * @param changeType UPSERT / DELETE
+     */
+    @Transactional
+    public void recordProtoChange(Long protoFileId, String changeType) {
+        record(ConfigChangeLog.ENTITY_PROTO_FILE, protoFileId, changeType);
+    }
+
+    /**
+     * 当前节点标识
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 定期清理过期的变更记录
+     */
+    @Scheduled(fixedDelayString = "${mock.cluster.cleanup-interval-ms:3600000}",
+            initialDelayString = "${mock.cluster.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = changeLogRepository.deleteByCreatedAtBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("已清理过期配置变更记录: {} 条", deleted);
+        }
+    }
+
+    private void record(String entityType, Long entityId, String changeType) {
+        ConfigChangeLog changeLog = new ConfigChangeLog();
+        changeLog.setEntityType(entityType);
+        changeLog.setEntityId(entityId);
+        changeLog.setChangeType(changeType);
+        changeLog.setNodeId(nodeId);
+        changeLogRepository.save(changeLog);
+    }
+}
@@ -4,6 +4,7 @@ import com.mock.service.entity.Environment;
 import com.mock.service.entity.EnvironmentVariable;
 import com.mock.service.repository.EnvironmentRepository;
 import com.mock.service.repository.EnvironmentVariableRepository;
+import com.mock.service.util.DisplayOrders;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -37,14 +38,9 @@ public class EnvironmentService {
             });
         }
 
-        // 计算显示顺序
+        // 计算显示顺序（追加到末尾，按间隔分配）
         if (environment.getDisplayOrder() == null) {
-            Integer maxOrder = environmentRepository.findAll().stream()
-                .map(Environment::getDisplayOrder)
-                .filter(order -> order != null)
-                .max(Integer::compareTo)
-                .orElse(0);
-            environment.setDisplayOrder(maxOrder + 1);
+            environment.setDisplayOrder(DisplayOrders.next(environmentRepository.findMaxDisplayOrder()));
         }
 
         return environmentRepository.save(environment);
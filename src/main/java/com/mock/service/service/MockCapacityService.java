@@ -0,0 +1,418 @@
+package com.mock.service.service;
+
+import com.mock.service.entity.MockConfig;
+import com.mock.service.route.CapacityLimiter;
+import com.mock.service.route.CompiledMock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mock 容量限制服务
+ * <p>
+ * 按 {@link CapacityLimiter} 决定请求立即处理、排队还是拒绝：
+ * <ul>
+ *   <li>容量充足时立即准入，请求在当前线程继续处理</li>
+ *   <li>超出容量且配置了队列时排队：请求进入 Servlet 异步模式，请求线程立即释放；
+ *       速率限制的等待由 {@link MockDelayScheduler} 的共享定时器计时，并发许可由归还许可的请求直接交接，
+ *       准入后重新分派（{@link AsyncContext#dispatch()}）回 Mock 控制器继续处理，排队时间计入响应耗时</li>
+ *   <li>队列已满或排队超时时按 overloadStatus（默认 503）拒绝</li>
+ * </ul>
+ * 占用并发许可的请求在响应完成（包括延迟和流式输出结束）时通过 {@link Admission#release()} 归还许可。
+ * </p>
+ * <p>
+ * 每个 Mock 的排队数和拒绝次数记录在 {@link MockStatsService} 的实时统计中；
+ * 同时向 Micrometer 汇报全局指标（不按 Mock 打标签）：
+ * <ul>
+ *   <li>mock.capacity.queued：正在排队的请求数</li>
+ *   <li>mock.capacity.rejected{reason=rate|concurrency|timeout}：因超出速率、超出并发或排队超时而拒绝的次数</li>
+ *   <li>mock.capacity.wait：排队请求从进入队列到准入的等待时间</li>
+ * </ul>
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockCapacityService {
+
+    /**
+     * 排队准入后重新分派时，保存准入信息的请求属性
+     */
+    private static final String ADMISSION_ATTRIBUTE = MockCapacityService.class.getName() + ".ADMISSION";
+
+    /**
+     * 拒绝请求时的响应体
+     */
+    public static final String OVERLOAD_BODY = "{\"error\": \"Mock 容量已满，请求被拒绝\"}";
+
+    private final MockDelayScheduler mockDelayScheduler;
+
+    private final MockStatsService mockStatsService;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Counter rateRejected;
+
+    private final Counter concurrencyRejected;
+
+    private final Counter timeoutRejected;
+
+    private final Timer waitTimer;
+
+    public MockCapacityService(MockDelayScheduler mockDelayScheduler, MockStatsService mockStatsService,
+                               MeterRegistry meterRegistry) {
+        this.mockDelayScheduler = mockDelayScheduler;
+        this.mockStatsService = mockStatsService;
+        Gauge.builder("mock.capacity.queued", queued, AtomicInteger::get)
+            .description("因 Mock 容量限制正在排队的请求数")
+            .register(meterRegistry);
+        this.rateRejected = rejectedCounter(meterRegistry, "rate");
+        this.concurrencyRejected = rejectedCounter(meterRegistry, "concurrency");
+        this.timeoutRejected = rejectedCounter(meterRegistry, "timeout");
+        this.waitTimer = Timer.builder("mock.capacity.wait")
+            .description("因 Mock 容量限制排队的请求从进入队列到准入的等待时间")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 对新请求做准入判断
+     * <p>
+     * 返回 {@link Admission.Outcome#QUEUED} 时请求已进入异步模式，控制器应直接返回 null，
+     * 准入后请求会重新分派到控制器，由 {@link #resume(HttpServletRequest)} 取回准入信息。
+     * </p>
+     *
+     * @param request Servlet 请求
+     * @param response Servlet 响应
+     * @param compiledMock 匹配到的 Mock
+     * @param requestBody 已读取的请求体（重新分派后无法再次读取）
+     * @param startTime 请求开始时间（毫秒）
+     * @param startNanos 请求开始时间（System.nanoTime()）
+     * @return 准入结果
+     */
+    public Admission admit(HttpServletRequest request, HttpServletResponse response, CompiledMock compiledMock,
+                           String requestBody, long startTime, long startNanos) {
+        CapacityLimiter limiter = compiledMock.getLimiter();
+        if (limiter == null) {
+            return Admission.UNLIMITED;
+        }
+        MockConfig config = compiledMock.getConfig();
+        long now = System.nanoTime();
+        // 先取并发许可再预约速率名额：因并发或队列已满被拒绝的请求不消耗速率名额
+        boolean acquired = limiter.tryAcquire();
+        if (acquired) {
+            if (limiter.reserve(now, 0) == 0) {
+                return new Admission(Admission.Outcome.ADMITTED, limiter, requestBody, startTime, startNanos);
+            }
+            limiter.release();
+        }
+        Counter reason = acquired ? rateRejected : concurrencyRejected;
+        if (!limiter.isQueueEnabled()) {
+            return reject(config, limiter, reason);
+        }
+
+        Waiting waiting = new Waiting(request, limiter, config, requestBody, startTime, startNanos);
+        CapacityLimiter.Ticket ticket = limiter.enqueue(waiting::dispatch);
+        if (ticket == null) {
+            return reject(config, limiter, reason);
+        }
+        // 预约排队超时之内最早的准入时间，到时再等待并发许可
+        long waitNanos = limiter.reserve(now, TimeUnit.MILLISECONDS.toNanos(limiter.getQueueTimeoutMs()));
+        if (waitNanos < 0) {
+            limiter.cancel(ticket);
+            return reject(config, limiter, rateRejected);
+        }
+
+        queued.incrementAndGet();
+        mockStatsService.queueEntered(config);
+        try {
+            AsyncContext asyncContext = request.startAsync(request, response);
+            asyncContext.setTimeout(limiter.getQueueTimeoutMs());
+            waiting.start(asyncContext, ticket, waitNanos);
+        } catch (RuntimeException e) {
+            if (limiter.cancel(ticket)) {
+                waiting.leaveQueue();
+            }
+            throw e;
+        }
+        return Admission.QUEUED;
+    }
+
+    /**
+     * 取回排队准入后重新分派的请求的准入信息
+     *
+     * @return 准入信息；不是重新分派的请求时返回 null
+     */
+    public Admission resume(HttpServletRequest request) {
+        Object admission = request.getAttribute(ADMISSION_ATTRIBUTE);
+        if (admission == null) {
+            return null;
+        }
+        request.removeAttribute(ADMISSION_ATTRIBUTE);
+        return (Admission) admission;
+    }
+
+    /**
+     * 获取正在排队的请求数
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    private Admission reject(MockConfig config, CapacityLimiter limiter, Counter reason) {
+        reason.increment();
+        mockStatsService.recordRejected(config);
+        return Admission.rejected(limiter.getOverloadStatus());
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("mock.capacity.rejected")
+            .description("因 Mock 容量限制而拒绝的请求次数")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 准入结果
+     * <p>
+     * 准入的请求可能持有一个并发许可，响应完成时必须调用 {@link #release()} 归还，重复调用无副作用。
+     * </p>
+     */
+    public static final class Admission {
+
+        public enum Outcome {
+            /** 准入，继续处理 */
+            ADMITTED,
+            /** 排队中，请求已进入异步模式 */
+            QUEUED,
+            /** 拒绝，按拒绝状态码返回 */
+            REJECTED
+        }
+
+        /**
+         * 未配置容量限制时的准入结果
+         */
+        public static final Admission UNLIMITED = new Admission(Outcome.ADMITTED, null, null, 0, 0);
+
+        static final Admission QUEUED = new Admission(Outcome.QUEUED, null, null, 0, 0);
+
+        private final Outcome outcome;
+
+        private final CapacityLimiter limiter;
+
+        private final int status;
+
+        private final String requestBody;
+
+        private final long startTime;
+
+        private final long startNanos;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(Outcome outcome, CapacityLimiter limiter, String requestBody, long startTime,
+                          long startNanos) {
+            this(outcome, limiter, 0, requestBody, startTime, startNanos);
+        }
+
+        private Admission(Outcome outcome, CapacityLimiter limiter, int status, String requestBody, long startTime,
+                          long startNanos) {
+            this.outcome = outcome;
+            this.limiter = limiter;
+            this.status = status;
+            this.requestBody = requestBody;
+            this.startTime = startTime;
+            this.startNanos = startNanos;
+        }
+
+        static Admission rejected(int status) {
+            return new Admission(Outcome.REJECTED, null, status, null, 0, 0);
+        }
+
+        /**
+         * 归还并发许可（未持有许可时无操作）
+         */
+        public void release() {
+            if (limiter != null && limiter.isConcurrencyLimited() && released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * 拒绝时返回的状态码
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * 排队前读取的请求体
+         */
+        public String getRequestBody() {
+            return requestBody;
+        }
+
+        /**
+         * 请求开始时间（毫秒，包含排队时间）
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * 请求开始时间（System.nanoTime()，包含排队时间）
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+    }
+
+    /**
+     * 单个排队中的请求
+     * <p>
+     * 准入（{@link #dispatch()}）和超时/断开（{@link AsyncListener}）都先通过排队凭证 CAS，
+     * 保证只有一方生效。
+     * </p>
+     */
+    private final class Waiting implements AsyncListener {
+
+        private final HttpServletRequest request;
+
+        private final CapacityLimiter limiter;
+
+        private final MockConfig config;
+
+        private final String requestBody;
+
+        private final long startTime;
+
+        private final long startNanos;
+
+        private final long enqueuedNanos = System.nanoTime();
+
+        private volatile AsyncContext asyncContext;
+
+        private volatile CapacityLimiter.Ticket ticket;
+
+        private volatile ScheduledFuture<?> rateWait;
+
+        private Waiting(HttpServletRequest request, CapacityLimiter limiter, MockConfig config, String requestBody,
+                        long startTime, long startNanos) {
+            this.request = request;
+            this.limiter = limiter;
+            this.config = config;
+            this.requestBody = requestBody;
+            this.startTime = startTime;
+            this.startNanos = startNanos;
+        }
+
+        private void start(AsyncContext asyncContext, CapacityLimiter.Ticket ticket, long waitNanos) {
+            this.asyncContext = asyncContext;
+            this.ticket = ticket;
+            asyncContext.addListener(this);
+            if (waitNanos > 0) {
+                rateWait = mockDelayScheduler.schedule(this::acquire, waitNanos);
+            } else {
+                acquire();
+            }
+        }
+
+        /**
+         * 速率限制的等待结束后获取并发许可，没有空闲许可时继续排队
+         */
+        private void acquire() {
+            if (limiter.tryAcquire()) {
+                if (!limiter.grant(ticket)) {
+                    limiter.release();
+                }
+            } else {
+                limiter.await(ticket);
+            }
+        }
+
+        /**
+         * 准入：重新分派到控制器继续处理
+         */
+        private void dispatch() {
+            leaveQueue();
+            waitTimer.record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+            Admission admission = new Admission(Admission.Outcome.ADMITTED, limiter, requestBody, startTime, startNanos);
+            try {
+                request.setAttribute(ADMISSION_ATTRIBUTE, admission);
+                asyncContext.dispatch();
+            } catch (IllegalStateException e) {
+                // 请求已结束（客户端断开后由容器完成）
+                log.debug("排队请求重新分派失败: {}", e.getMessage());
+                admission.release();
+            }
+        }
+
+        private void leaveQueue() {
+            queued.decrementAndGet();
+            mockStatsService.queueLeft(config);
+        }
+
+        private boolean cancel() {
+            if (!limiter.cancel(ticket)) {
+                return false;
+            }
+            if (rateWait != null) {
+                rateWait.cancel(false);
+            }
+            leaveQueue();
+            return true;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!cancel()) {
+                return;
+            }
+            timeoutRejected.increment();
+            mockStatsService.recordRejected(config);
+            int status = limiter.getOverloadStatus();
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            response.setStatus(status);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getOutputStream().write(OVERLOAD_BODY.getBytes(StandardCharsets.UTF_8));
+            mockStatsService.recordHit(config, status, 0, System.nanoTime() - startNanos);
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (cancel()) {
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
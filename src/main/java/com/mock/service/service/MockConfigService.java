@@ -1,25 +1,48 @@
 package com.mock.service.service;
 
 import com.mock.service.dto.MockConfigRequest;
+import com.mock.service.dto.MockResponseVariantRequest;
+import com.mock.service.entity.ConfigChangeLog;
 import com.mock.service.entity.MockConfig;
+import com.mock.service.entity.MockResponseVariant;
 import com.mock.service.repository.MockConfigRepository;
+import com.mock.service.repository.MockResponseVariantRepository;
+import com.mock.service.route.CapacityLimiter;
+import com.mock.service.route.MockConfigChangedEvent;
+import com.mock.service.route.PathTemplateRouter;
+import com.mock.service.route.RequestBodyMatcher;
+import com.mock.service.route.EventScript;
+import com.mock.service.route.LatencyDistribution;
+import com.mock.service.route.ResponseTemplate;
+import com.mock.service.route.ResponseThrottle;
+import com.mock.service.route.VariantSelector;
+import com.mock.service.util.DisplayOrders;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Mock配置服务类
  * <p>
- * 提供Mock配置的CRUD操作、分页查询、批量导入、启用/禁用切换等功能。
+ * 提供Mock配置的CRUD操作、分页查询、启用/禁用切换等功能，批量导入见 {@link MockImportService}。
  * 负责Mock配置的业务逻辑处理，包括路径冲突检查、显示序号管理等。
  * </p>
+ * <p>
+ * 所有变更操作都会发布 {@link MockConfigChangedEvent}，事务提交后由
+ * MockRouteService 重建内存路由表。
+ * </p>
  *
  * @author Mock Service Team
  * @version 1.0
@@ -30,44 +53,72 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MockConfigService {
 
+    /**
+     * 列表排序：显示序号升序，序号相同时按ID升序
+     */
+    private static final Sort DISPLAY_SORT = Sort.by(Sort.Direction.ASC, "displayOrder")
+        .and(Sort.by(Sort.Direction.ASC, "id"));
+
     /**
      * Mock配置数据访问层
      */
     private final MockConfigRepository mockConfigRepository;
 
+    /**
+     * 响应变体数据访问层
+     */
+    private final MockResponseVariantRepository variantRepository;
+
+    /**
+     * 事件发布器，用于通知路由表刷新
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Protobuf 响应缓存，配置更新或删除时清除对应条目
+     */
+    private final ProtobufResponseCache protobufResponseCache;
+
+    /**
+     * 实时统计服务，配置删除时清除对应统计
+     */
+    private final MockStatsService mockStatsService;
+
+    /**
+     * 配置变更日志，与配置变更在同一事务中写入，用于集群内其他节点同步
+     */
+    private final ConfigChangeLogService changeLogService;
+
     /**
      * 创建Mock配置
      * <p>
-     * 创建新的Mock配置，会自动分配显示序号（当前最大序号+1），
-     * 并检查路径和方法的唯一性，避免冲突。
+     * 创建新的Mock配置，会自动分配显示序号（当前最大序号+间隔），
+     * 并检查路径、方法和请求体匹配内容的唯一性，避免冲突。
      * </p>
      *
      * @param request Mock配置请求对象，包含所有必要的配置信息
      * @return 保存后的Mock配置实体（包含自动生成的ID和时间戳）
-     * @throws RuntimeException 如果路径和方法组合已存在
+     * @throws RuntimeException 如果路径、方法和请求体组合已存在，或匹配规则语法错误
      */
     @Transactional
     public MockConfig createMock(MockConfigRequest request) {
-        // 检查路径和方法是否已存在
-        if (mockConfigRepository.existsByPathAndMethod(request.getPath(), request.getMethod())) {
+        validateConfig(request);
+
+        // 检查路径、方法和请求体是否已存在
+        if (hasBodyConflict(request, null)) {
             throw new RuntimeException("该路径和方法的 Mock 已存在");
         }
-
-        // 计算新的显示序号（当前最大序号 + 1）
-        Integer maxOrder = mockConfigRepository.findAll().stream()
-            .map(MockConfig::getDisplayOrder)
-            .filter(order -> order != null)
-            .max(Integer::compareTo)
-            .orElse(0);
+        checkEquivalentTemplate(request, null);
 
         MockConfig config = new MockConfig();
-        config.setDisplayOrder(maxOrder + 1);
+        config.setDisplayOrder(DisplayOrders.next(mockConfigRepository.findMaxDisplayOrder()));
         config.setName(request.getName());
         config.setPath(request.getPath());
         config.setMethod(request.getMethod().toUpperCase());
         config.setStatusCode(request.getStatusCode());
         config.setContentType(request.getContentType());
-        config.setRequestBody(request.getRequestBody());
+        config.setRequestBody(normalizeRequestBody(request.getRequestBody()));
+        config.setRequestBodyMatchType(RequestBodyMatcher.normalizeType(request.getRequestBodyMatchType()));
         config.setResponseBody(request.getResponseBody());
         config.setDelay(request.getDelay());
         config.setEnabled(request.getEnabled());
@@ -75,7 +126,24 @@ public class MockConfigService {
         config.setResponseType(request.getResponseType() != null ? request.getResponseType() : "JSON");
         config.setProtoFileId(request.getProtoFileId());
         config.setProtoMessageType(request.getProtoMessageType());
-        return mockConfigRepository.save(config);
+        config.setVariantStrategy(VariantSelector.normalizeStrategy(request.getVariantStrategy()));
+        config.setDelayDistribution(LatencyDistribution.normalizeType(request.getDelayDistribution()));
+        config.setDelayParams(request.getDelayParams());
+        config.setThrottleRate(request.getThrottleRate());
+        config.setChunkSize(request.getChunkSize());
+        config.setChunkDelay(request.getChunkDelay());
+        config.setStreamInterval(request.getStreamInterval());
+        config.setStreamCount(request.getStreamCount());
+        config.setMaxConcurrency(request.getMaxConcurrency());
+        config.setRateLimit(request.getRateLimit());
+        config.setMaxQueue(request.getMaxQueue());
+        config.setQueueTimeout(request.getQueueTimeout());
+        config.setOverloadStatus(request.getOverloadStatus());
+        MockConfig saved = mockConfigRepository.save(config);
+        saved.setVariants(replaceVariants(saved.getId(), toVariants(request.getVariants())));
+        changeLogService.recordMockChange(saved.getId(), ConfigChangeLog.CHANGE_UPSERT);
+        eventPublisher.publishEvent(new MockConfigChangedEvent("create"));
+        return saved;
     }
 
     /**
@@ -94,20 +162,16 @@ public class MockConfigService {
     public MockConfig updateMock(Long id, MockConfigRequest request) {
         MockConfig config = mockConfigRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Mock 配置不存在"));
+        validateConfig(request);
 
         log.debug("更新前的 Mock 配置: id={}, name={}, path={}, method={}",
             config.getId(), config.getName(), config.getPath(), config.getMethod());
 
-        // 检查路径和方法是否与其他记录冲突（排除当前记录）
-        boolean exists = mockConfigRepository.existsByPathAndMethodAndIdNot(
-            request.getPath(),
-            request.getMethod().toUpperCase(),
-            id
-        );
-
-        if (exists) {
+        // 检查路径、方法和请求体是否与其他记录冲突（排除当前记录）
+        if (hasBodyConflict(request, id)) {
             throw new RuntimeException("该路径和方法的 Mock 已被其他配置使用");
         }
+        checkEquivalentTemplate(request, id);
 
         // 更新字段
         config.setName(request.getName());
@@ -115,7 +179,8 @@ public class MockConfigService {
         config.setMethod(request.getMethod().toUpperCase());
         config.setStatusCode(request.getStatusCode());
         config.setContentType(request.getContentType());
-        config.setRequestBody(request.getRequestBody());
+        config.setRequestBody(normalizeRequestBody(request.getRequestBody()));
+        config.setRequestBodyMatchType(RequestBodyMatcher.normalizeType(request.getRequestBodyMatchType()));
         config.setResponseBody(request.getResponseBody());
         config.setDelay(request.getDelay());
         config.setEnabled(request.getEnabled());
@@ -123,6 +188,19 @@ public class MockConfigService {
         config.setResponseType(request.getResponseType() != null ? request.getResponseType() : "JSON");
         config.setProtoFileId(request.getProtoFileId());
         config.setProtoMessageType(request.getProtoMessageType());
+        config.setVariantStrategy(VariantSelector.normalizeStrategy(request.getVariantStrategy()));
+        config.setDelayDistribution(LatencyDistribution.normalizeType(request.getDelayDistribution()));
+        config.setDelayParams(request.getDelayParams());
+        config.setThrottleRate(request.getThrottleRate());
+        config.setChunkSize(request.getChunkSize());
+        config.setChunkDelay(request.getChunkDelay());
+        config.setStreamInterval(request.getStreamInterval());
+        config.setStreamCount(request.getStreamCount());
+        config.setMaxConcurrency(request.getMaxConcurrency());
+        config.setRateLimit(request.getRateLimit());
+        config.setMaxQueue(request.getMaxQueue());
+        config.setQueueTimeout(request.getQueueTimeout());
+        config.setOverloadStatus(request.getOverloadStatus());
 
         log.info("准备保存更新: name={}, path={}, method={}, statusCode={}, responseType={}, responseBody={}",
             config.getName(), config.getPath(), config.getMethod(), config.getStatusCode(), config.getResponseType(),
@@ -131,18 +209,23 @@ public class MockConfigService {
         // 保存并刷新
         MockConfig savedConfig = mockConfigRepository.save(config);
         mockConfigRepository.flush();
+        savedConfig.setVariants(request.getVariants() != null
+            ? replaceVariants(id, toVariants(request.getVariants()))
+            : variantRepository.findByMockConfigIdOrderByVariantOrderAscIdAsc(id));
 
         log.debug("更新后的 Mock 配置: id={}, name={}, path={}, method={}",
             savedConfig.getId(), savedConfig.getName(), savedConfig.getPath(), savedConfig.getMethod());
 
+        protobufResponseCache.evictMock(id);
+        changeLogService.recordMockChange(id, ConfigChangeLog.CHANGE_UPSERT);
+        eventPublisher.publishEvent(new MockConfigChangedEvent("update"));
         return savedConfig;
     }
 
     /**
      * 删除Mock配置
      * <p>
-     * 根据ID删除Mock配置，删除后会自动重新排序所有剩余配置的显示序号，
-     * 确保序号连续且从1开始。
+     * 根据ID删除Mock配置。显示序号按间隔分配，删除后不需要重排其他配置。
      * </p>
      *
      * @param id 要删除的Mock配置ID
@@ -150,58 +233,263 @@ public class MockConfigService {
     @Transactional
     public void deleteMock(Long id) {
         mockConfigRepository.deleteById(id);
-        // 删除后重新排序所有 displayOrder
-        reorderDisplayOrder();
+        variantRepository.deleteByMockConfigId(id);
+        protobufResponseCache.evictMock(id);
+        mockStatsService.remove(id);
+        changeLogService.recordMockChange(id, ConfigChangeLog.CHANGE_DELETE);
+        eventPublisher.publishEvent(new MockConfigChangedEvent("delete"));
+    }
+
+    /**
+     * 用新的变体替换指定配置的全部响应变体
+     *
+     * @param variants 新的变体列表（{@link #toVariants} 转换的结果）
+     * @return 保存后的变体（按顺序）
+     */
+    private List<MockResponseVariant> replaceVariants(Long mockConfigId, List<MockResponseVariant> variants) {
+        variantRepository.deleteByMockConfigId(mockConfigId);
+        if (variants.isEmpty()) {
+            return List.of();
+        }
+        variants.forEach(variant -> variant.setMockConfigId(mockConfigId));
+        return variantRepository.saveAll(variants);
     }
 
     /**
-     * 重新排序所有Mock的显示序号
+     * 把请求中的变体转换为实体（尚未设置所属配置 ID），顺序即列表中的顺序
      * <p>
-     * 私有方法，用于在删除Mock后重新分配连续的显示序号。
-     * 按ID升序排序后，依次分配序号1, 2, 3...
+     * 同时供 {@link MockImportService} 导入变体使用。
      * </p>
+     *
+     * @param requests 请求中的变体，为 null 时视为空
      */
-    private void reorderDisplayOrder() {
-        List<MockConfig> allMocks = mockConfigRepository.findAll();
-        // 按 ID 排序
-        allMocks.sort((a, b) -> Long.compare(a.getId(), b.getId()));
-
-        // 重新分配连续的序号
-        for (int i = 0; i < allMocks.size(); i++) {
-            allMocks.get(i).setDisplayOrder(i + 1);
+    static List<MockResponseVariant> toVariants(List<MockResponseVariantRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return List.of();
+        }
+        List<MockResponseVariant> variants = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            MockResponseVariantRequest source = requests.get(i);
+            if (source == null) {
+                throw new RuntimeException("响应变体 #" + (i + 1) + " 不能为空");
+            }
+            MockResponseVariant variant = new MockResponseVariant();
+            variant.setVariantOrder(i);
+            variant.setName(source.getName());
+            variant.setStatusCode(source.getStatusCode());
+            variant.setContentType(StringUtils.hasText(source.getContentType()) ? source.getContentType() : null);
+            variant.setResponseBody(source.getResponseBody());
+            variant.setDelay(source.getDelay());
+            variant.setWeight(source.getWeight() != null ? source.getWeight() : 1);
+            variant.setEveryN(source.getEveryN());
+            variants.add(variant);
         }
+        return variants;
+    }
 
-        mockConfigRepository.saveAll(allMocks);
+    /**
+     * 校验配置：路径模板语法（如 /users/{id}、/files/**）、请求体匹配配置、响应模板、响应变体、延迟分布、限速、事件流、容量限制和 Content-Type
+     * <p>
+     * 同时供 {@link MockImportService} 逐行校验导入数据使用。
+     * </p>
+     *
+     * @param request Mock配置请求
+     * @throws RuntimeException 如果路径模板、请求体匹配配置、响应模板、响应变体、延迟分布、限速、事件流、容量限制或 Content-Type 无效
+     */
+    static void validateConfig(MockConfigRequest request) {
+        try {
+            PathTemplateRouter.validate(request.getPath());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Mock 路径模板无效: " + e.getMessage());
+        }
+        try {
+            RequestBodyMatcher.validate(request.getRequestBodyMatchType(), request.getRequestBody());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("请求体匹配配置无效: " + e.getMessage());
+        }
+        try {
+            ResponseTemplate.validate(request.getResponseBody());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("响应模板无效: " + e.getMessage());
+        }
+        try {
+            VariantSelector.validate(request.getVariantStrategy(), toVariants(request.getVariants()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("响应变体配置无效: " + e.getMessage());
+        }
+        try {
+            LatencyDistribution.validate(request.getDelayDistribution(), request.getDelayParams());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("延迟分布配置无效: " + e.getMessage());
+        }
+        try {
+            ResponseThrottle.validate(request.getThrottleRate(), request.getChunkSize(), request.getChunkDelay());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("限速配置无效: " + e.getMessage());
+        }
+        try {
+            EventScript.validate(request.getResponseType(), request.getResponseBody(),
+                request.getStreamInterval(), request.getStreamCount());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("事件流配置无效: " + e.getMessage());
+        }
+        try {
+            CapacityLimiter.validate(request.getMaxConcurrency(), request.getRateLimit(), request.getMaxQueue(),
+                request.getQueueTimeout(), request.getOverloadStatus());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("容量限制配置无效: " + e.getMessage());
+        }
+        if (StringUtils.hasText(request.getContentType())) {
+            try {
+                MediaType.parseMediaType(request.getContentType());
+            } catch (InvalidMediaTypeException e) {
+                throw new RuntimeException("Content-Type 无效: " + request.getContentType());
+            }
+        }
+    }
+
+    /**
+     * 同一路径和方法下是否已有请求体相同的配置（按 {@link RequestBodyMatcher#uniqueKey} 比较，
+     * 与路由表的去重方式一致，避免保存后被路由表静默忽略）
+     *
+     * @param excludeId 排除的配置ID（更新时为当前配置），可为 null
+     */
+    private boolean hasBodyConflict(MockConfigRequest request, Long excludeId) {
+        String key = RequestBodyMatcher.uniqueKey(request.getRequestBodyMatchType(), request.getRequestBody());
+        return mockConfigRepository.findAllByPathAndMethod(request.getPath(), request.getMethod().toUpperCase())
+            .stream()
+            .filter(other -> !other.getId().equals(excludeId))
+            .anyMatch(other -> key.equals(
+                RequestBodyMatcher.uniqueKey(other.getRequestBodyMatchType(), other.getRequestBody())));
     }
 
     /**
-     * 获取Mock配置详情
+     * 同一方法下不允许写法不同但等价的路径模板（如 /users/{id} 与 /users/{userId}）：
+     * 路由表按 {@link PathTemplateRouter#normalize} 分组，等价模板合并为一个路由，路径变量名只能按其中一种写法解析
+     *
+     * @param excludeId 排除的配置ID（更新时为当前配置），可为 null
+     * @throws RuntimeException 已有等价但写法不同的路径模板时
+     */
+    private void checkEquivalentTemplate(MockConfigRequest request, Long excludeId) {
+        if (!PathTemplateRouter.isTemplate(request.getPath())) {
+            return;
+        }
+        String normalized = PathTemplateRouter.normalize(request.getPath());
+        for (MockConfig other : mockConfigRepository.findAllByMethod(request.getMethod().toUpperCase())) {
+            if (!other.getId().equals(excludeId) && !request.getPath().equals(other.getPath())
+                    && normalized.equals(normalizeQuietly(other.getPath()))) {
+                throw new RuntimeException("已存在等价的路径模板 " + other.getPath() + "（id=" + other.getId()
+                    + "），请使用相同的写法");
+            }
+        }
+    }
+
+    private static String normalizeQuietly(String path) {
+        try {
+            return PathTemplateRouter.normalize(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 空白请求体视为未配置（匹配任意请求体）
+     */
+    static String normalizeRequestBody(String requestBody) {
+        return StringUtils.hasText(requestBody) ? requestBody : null;
+    }
+
+    /**
+     * 移动Mock配置的显示位置
+     * <p>
+     * 新序号取前后两条记录序号的中间值，只更新被移动的一行；
+     * 前后序号之间没有空隙时先按间隔重新编号全部配置（很少发生）。
+     * </p>
+     *
+     * @param id 要移动的Mock配置ID
+     * @param afterId 移动到该配置之后，为空时移动到最前面
+     * @return 移动后的Mock配置实体
+     * @throws RuntimeException 如果Mock配置不存在
+     */
+    @Transactional
+    public MockConfig moveMock(Long id, Long afterId) {
+        MockConfig config = getMock(id);
+        if (id.equals(afterId)) {
+            return config;
+        }
+        Integer order = orderAfter(id, afterId);
+        if (order == null) {
+            rebalanceDisplayOrder();
+            order = orderAfter(id, afterId);
+            if (order == null) {
+                throw new RuntimeException("调整 Mock 顺序失败，请重试");
+            }
+        }
+        mockConfigRepository.updateDisplayOrder(id, order);
+        config.setDisplayOrder(order);
+        return config;
+    }
+
+    /**
+     * 计算移动到 afterId 之后的新序号，没有空隙时返回 null
+     */
+    private Integer orderAfter(Long id, Long afterId) {
+        if (afterId == null) {
+            Integer first = mockConfigRepository.findFirstByIdNotOrderByDisplayOrderAsc(id)
+                .map(MockConfig::getDisplayOrder)
+                .orElse(null);
+            return DisplayOrders.between(null, first);
+        }
+        Integer before = getMock(afterId).getDisplayOrder();
+        Integer after = mockConfigRepository.findFirstByDisplayOrderGreaterThanAndIdNotOrderByDisplayOrderAsc(before, id)
+            .map(MockConfig::getDisplayOrder)
+            .orElse(null);
+        return DisplayOrders.between(before, after);
+    }
+
+    /**
+     * 按当前顺序以固定间隔重新编号所有Mock配置
+     */
+    private void rebalanceDisplayOrder() {
+        List<MockConfig> allMocks = mockConfigRepository.findAll(DISPLAY_SORT);
+        int order = 0;
+        for (MockConfig mock : allMocks) {
+            order += DisplayOrders.GAP;
+            mockConfigRepository.updateDisplayOrder(mock.getId(), order);
+        }
+        log.info("Mock 显示序号已重新编号: {} 条", allMocks.size());
+    }
+
+    /**
+     * 获取Mock配置详情（包含响应变体）
      *
      * @param id Mock配置ID
      * @return Mock配置实体
      * @throws RuntimeException 如果Mock配置不存在
      */
     public MockConfig getMock(Long id) {
-        return mockConfigRepository.findById(id)
+        MockConfig config = mockConfigRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Mock 配置不存在"));
+        config.setVariants(variantRepository.findByMockConfigIdOrderByVariantOrderAscIdAsc(id));
+        return config;
     }
 
     /**
      * 获取所有Mock配置
      * <p>
-     * 按ID升序返回所有Mock配置。
+     * 按显示序号升序返回所有Mock配置。
      * </p>
      *
      * @return Mock配置列表
      */
     public List<MockConfig> getAllMocks() {
-        return mockConfigRepository.findAll(Sort.by(Sort.Direction.ASC, "id"));
+        return mockConfigRepository.findAll(DISPLAY_SORT);
     }
 
     /**
      * 分页获取Mock配置
      * <p>
-     * 支持分页查询，按ID升序排序。
+     * 支持分页查询，按显示序号升序排序。
      * </p>
      *
      * @param page 页码（从0开始）
@@ -209,7 +497,7 @@ public class MockConfigService {
      * @return 分页结果对象，包含当前页数据和总数等信息
      */
     public Page<MockConfig> getMocksByPage(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "id"));
+        Pageable pageable = PageRequest.of(page, size, DISPLAY_SORT);
         return mockConfigRepository.findAll(pageable);
     }
 
@@ -222,21 +510,6 @@ public class MockConfigService {
         return mockConfigRepository.findByEnabledTrue();
     }
 
-    /**
-     * 根据路径和方法查找Mock配置
-     * <p>
-     * 只返回启用状态的Mock配置。用于动态Mock匹配。
-     * </p>
-     *
-     * @param path 请求路径
-     * @param method HTTP方法（会自动转换为大写）
-     * @return 匹配的Mock配置，如果未找到返回null
-     */
-    public MockConfig findMockByPathAndMethod(String path, String method) {
-        return mockConfigRepository.findByPathAndMethodAndEnabledTrue(path, method.toUpperCase())
-            .orElse(null);
-    }
-
     /**
      * 切换Mock启用状态
      * <p>
@@ -251,58 +524,9 @@ public class MockConfigService {
     public MockConfig toggleEnabled(Long id) {
         MockConfig config = getMock(id);
         config.setEnabled(!config.getEnabled());
-        return mockConfigRepository.save(config);
-    }
-
-    /**
-     * 批量导入Mock配置
-     * <p>
-     * 批量创建Mock配置，自动跳过路径和方法组合已存在的配置。
-     * 导入过程中的错误不会影响其他配置的导入。
-     * </p>
-     *
-     * @param requests Mock配置请求列表
-     * @return 成功导入的Mock配置列表
-     */
-    @Transactional
-    public List<MockConfig> importMocks(List<MockConfigRequest> requests) {
-        List<MockConfig> configs = new java.util.ArrayList<>();
-        int successCount = 0;
-        int skipCount = 0;
-
-        for (MockConfigRequest request : requests) {
-            try {
-                // 检查路径和方法是否已存在
-                if (mockConfigRepository.existsByPathAndMethod(request.getPath(), request.getMethod())) {
-                    log.warn("跳过已存在的 Mock: {} {}", request.getMethod(), request.getPath());
-                    skipCount++;
-                    continue;
-                }
-
-                MockConfig config = new MockConfig();
-                config.setName(request.getName());
-                config.setPath(request.getPath());
-                config.setMethod(request.getMethod().toUpperCase());
-                config.setStatusCode(request.getStatusCode() != null ? request.getStatusCode() : 200);
-                config.setContentType(request.getContentType() != null ? request.getContentType() : "application/json");
-                config.setRequestBody(request.getRequestBody());
-                config.setResponseBody(request.getResponseBody());
-                config.setDelay(request.getDelay() != null ? request.getDelay() : 0);
-                config.setEnabled(request.getEnabled() != null ? request.getEnabled() : true);
-                config.setDescription(request.getDescription());
-                config.setResponseType(request.getResponseType() != null ? request.getResponseType() : "JSON");
-                config.setProtoFileId(request.getProtoFileId());
-                config.setProtoMessageType(request.getProtoMessageType());
-
-                MockConfig saved = mockConfigRepository.save(config);
-                configs.add(saved);
-                successCount++;
-            } catch (Exception e) {
-                log.error("导入 Mock 失败: {} {}, 错误: {}", request.getMethod(), request.getPath(), e.getMessage());
-            }
-        }
-
-        log.info("批量导入完成: 成功 {}, 跳过 {}, 总计 {}", successCount, skipCount, requests.size());
-        return configs;
+        MockConfig saved = mockConfigRepository.save(config);
+        changeLogService.recordMockChange(id, ConfigChangeLog.CHANGE_UPSERT);
+        eventPublisher.publishEvent(new MockConfigChangedEvent("toggle"));
+        return saved;
     }
 }
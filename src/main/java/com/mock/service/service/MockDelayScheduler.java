@@ -0,0 +1,129 @@
+package com.mock.service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mock 延迟调度器
+ * <p>
+ * 替代在 Tomcat 工作线程中 Thread.sleep：延迟响应以 {@link DeferredResult} 的形式返回，
+ * 请求线程立即释放，由共享的定时器线程在到期后完成响应。
+ * 等待中的请求不占用任何线程，数千个并发延迟请求只需要一个定时器线程。
+ * 限速响应（{@link MockResponseStreamer}）的分块输出也由同一个定时器驱动。
+ * </p>
+ * <p>
+ * 指标：
+ * <ul>
+ *   <li>mock.delay.pending：等待中的延迟响应数量</li>
+ *   <li>mock.delay.lateness：实际完成时间相对预定时间的滞后（延迟精度）</li>
+ * </ul>
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockDelayScheduler {
+
+    /**
+     * 异步请求超时相对延迟时间的余量（毫秒）
+     */
+    private static final long TIMEOUT_MARGIN_MS = 30_000;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Timer latenessTimer;
+
+    public MockDelayScheduler(MeterRegistry meterRegistry,
+                              @Value("${mock.delay.scheduler-threads:1}") int schedulerThreads) {
+        AtomicLong threadIndex = new AtomicLong();
+        this.scheduler = new ScheduledThreadPoolExecutor(schedulerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "mock-delay-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+
+        Gauge.builder("mock.delay.pending", pending, AtomicInteger::get)
+            .description("等待中的 Mock 延迟响应数量")
+            .register(meterRegistry);
+        this.latenessTimer = Timer.builder("mock.delay.lateness")
+            .description("Mock 延迟响应实际完成时间相对预定时间的滞后")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 在指定延迟后返回结果
+     *
+     * @param result 要返回的响应
+     * @param delayMs 延迟毫秒数
+     * @return 到期后由定时器完成的 DeferredResult
+     */
+    public <T> DeferredResult<T> delay(T result, long delayMs) {
+        return delay(result, delayMs, null);
+    }
+
+    /**
+     * 在指定延迟后返回结果，响应完成（包括客户端断开或超时）后执行回调
+     *
+     * @param result 要返回的响应
+     * @param delayMs 延迟毫秒数
+     * @param onCompletion 响应完成后执行的回调（如归还容量限制的并发许可），可为 null
+     * @return 到期后由定时器完成的 DeferredResult
+     */
+    public <T> DeferredResult<T> delay(T result, long delayMs, Runnable onCompletion) {
+        DeferredResult<T> deferred = new DeferredResult<>(delayMs + TIMEOUT_MARGIN_MS);
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+
+        pending.incrementAndGet();
+        ScheduledFuture<?> future = scheduler.schedule(() -> {
+            latenessTimer.record(Math.max(0, System.nanoTime() - due), TimeUnit.NANOSECONDS);
+            deferred.setResult(result);
+        }, delayMs, TimeUnit.MILLISECONDS);
+
+        // 客户端断开或超时时取消定时任务
+        deferred.onCompletion(() -> {
+            future.cancel(false);
+            pending.decrementAndGet();
+            if (onCompletion != null) {
+                onCompletion.run();
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * 在共享定时器上执行一次任务（如限速响应的下一块输出）
+     *
+     * @param task 到期后执行的任务，应快速返回
+     * @param delayNanos 延迟纳秒数
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取等待中的延迟响应数量
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
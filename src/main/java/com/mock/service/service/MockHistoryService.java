@@ -12,6 +12,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -20,6 +21,10 @@ import java.util.Map;
 
 /**
  * Mock 历史记录服务
+ * <p>
+ * 调用历史由 {@link MockHistoryWriter} 异步批量写入，保存操作不阻塞请求线程。
+ * 队列深度和写入耗时等指标由 MockHistoryWriter 汇报。
+ * </p>
  */
 @Slf4j
 @Service
@@ -27,13 +32,16 @@ import java.util.Map;
 public class MockHistoryService {
 
     private final MockHistoryRepository mockHistoryRepository;
+    private final MockHistoryWriter mockHistoryWriter;
     private final ObjectMapper objectMapper;
 
     /**
      * 保存 Mock 调用历史
+     * <p>
+     * 在请求线程中提取请求信息后放入写入队列，不访问数据库。
+     * </p>
      */
-    @Transactional
-    public MockHistory saveHistory(
+    public void saveHistory(
         Long mockConfigId,
         String mockName,
         HttpServletRequest request,
@@ -41,6 +49,40 @@ public class MockHistoryService {
         Integer responseStatus,
         String responseBody,
         Long responseTime
+    ) {
+        MockHistory history = newHistory(mockConfigId, mockName, request, requestBody, responseStatus, responseTime);
+        history.setResponseBody(responseBody);
+        mockHistoryWriter.submit(history);
+    }
+
+    /**
+     * 保存 Mock 调用历史，响应体为已编码的字节（按请求渲染的模板响应）
+     * <p>
+     * 响应体在历史写入线程中才解码为文本，请求线程不为历史记录单独构建字符串。
+     * </p>
+     */
+    public void saveHistory(
+        Long mockConfigId,
+        String mockName,
+        HttpServletRequest request,
+        String requestBody,
+        Integer responseStatus,
+        byte[] responseBody,
+        Charset responseCharset,
+        Long responseTime
+    ) {
+        MockHistory history = newHistory(mockConfigId, mockName, request, requestBody, responseStatus, responseTime);
+        history.setEncodedResponseBody(responseBody, responseCharset);
+        mockHistoryWriter.submit(history);
+    }
+
+    private MockHistory newHistory(
+        Long mockConfigId,
+        String mockName,
+        HttpServletRequest request,
+        String requestBody,
+        Integer responseStatus,
+        Long responseTime
     ) {
         MockHistory history = new MockHistory();
         history.setMockConfigId(mockConfigId);
@@ -58,11 +100,10 @@ public class MockHistoryService {
         history.setRequestBody(requestBody);
 
         history.setResponseStatus(responseStatus);
-        history.setResponseBody(responseBody);
         history.setResponseTime(responseTime);
         history.setClientIp(getClientIp(request));
-
-        return mockHistoryRepository.save(history);
+        history.setCreatedAt(LocalDateTime.now());
+        return history;
     }
 
     /**
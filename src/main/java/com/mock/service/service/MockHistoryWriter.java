@@ -0,0 +1,255 @@
+package com.mock.service.service;
+
+import com.mock.service.entity.MockHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock 历史记录异步批量写入器
+ * <p>
+ * 请求线程只把 {@link MockHistory} 放入有界内存队列，由独立的写入线程批量取出，
+ * 通过 JDBC batch 一次插入多行（MySQL 需在连接串中开启 rewriteBatchedStatements），
+ * Mock 响应耗时不再包含数据库往返。
+ * </p>
+ * <p>
+ * 队列满时的处理策略（mock.history.overflow-policy）：
+ * <ul>
+ *   <li>BLOCK：阻塞请求线程直到队列有空位</li>
+ *   <li>DROP_OLDEST：丢弃队列中最旧的记录</li>
+ *   <li>DROP_NEW：丢弃当前记录（默认）</li>
+ * </ul>
+ * 应用正常关闭时会把队列中剩余的记录全部写入后再退出。
+ * </p>
+ * <p>
+ * 指标：mock.history.submitted、mock.history.queue.size（队列深度）、mock.history.write（批量写入耗时）、
+ * mock.history.batch.size、mock.history.dropped{policy}、mock.history.failed
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockHistoryWriter {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, DROP_NEW
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO mock_history (mock_config_id, mock_name, request_path, "
+        + "request_method, request_params, request_headers, request_body, response_status, response_body, "
+        + "response_time, client_ip, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<MockHistory> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int batchSize;
+
+    private final long flushIntervalMs;
+
+    private final long shutdownTimeoutMs;
+
+    private final boolean virtualThreads;
+
+    private final Counter submittedCounter;
+
+    private final Counter droppedOldestCounter;
+
+    private final Counter droppedNewCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer writeTimer;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running = true;
+
+    private Thread writerThread;
+
+    public MockHistoryWriter(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${mock.history.queue-capacity:10000}") int queueCapacity,
+                             @Value("${mock.history.batch-size:200}") int batchSize,
+                             @Value("${mock.history.flush-interval-ms:200}") long flushIntervalMs,
+                             @Value("${mock.history.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                             @Value("${mock.history.overflow-policy:DROP_NEW}") OverflowPolicy overflowPolicy,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.virtualThreads = virtualThreads;
+
+        Gauge.builder("mock.history.queue.size", queue, BlockingQueue::size)
+            .description("等待写入的 Mock 历史记录数量")
+            .register(meterRegistry);
+        this.submittedCounter = Counter.builder("mock.history.submitted")
+            .description("提交写入的 Mock 历史记录数量")
+            .register(meterRegistry);
+        this.droppedOldestCounter = Counter.builder("mock.history.dropped")
+            .description("队列满时丢弃的 Mock 历史记录数量")
+            .tag("policy", OverflowPolicy.DROP_OLDEST.name())
+            .register(meterRegistry);
+        this.droppedNewCounter = Counter.builder("mock.history.dropped")
+            .description("队列满时丢弃的 Mock 历史记录数量")
+            .tag("policy", OverflowPolicy.DROP_NEW.name())
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("mock.history.failed")
+            .description("写入数据库失败的 Mock 历史记录数量")
+            .register(meterRegistry);
+        this.writeTimer = Timer.builder("mock.history.write")
+            .description("Mock 历史记录批量写入耗时")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("mock.history.batch.size")
+            .description("Mock 历史记录每批写入行数")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // 开启虚拟线程模式时写入线程也使用虚拟线程，等待数据库期间不占用平台线程
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writerThread = builder.name("mock-history-writer").start(this::runLoop);
+        log.info("Mock 历史写入器已启动: capacity={}, batchSize={}, overflowPolicy={}, virtualThread={}",
+            queue.remainingCapacity(), batchSize, overflowPolicy, virtualThreads);
+    }
+
+    /**
+     * 提交一条历史记录（不访问数据库）
+     */
+    public void submit(MockHistory history) {
+        submittedCounter.increment();
+        if (!running) {
+            droppedNewCounter.increment();
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(history);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedNewCounter.increment();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(history)) {
+                    if (queue.poll() != null) {
+                        droppedOldestCounter.increment();
+                    }
+                }
+                break;
+            default:
+                if (!queue.offer(history)) {
+                    droppedNewCounter.increment();
+                }
+        }
+    }
+
+    /**
+     * 当前队列中等待写入的记录数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 停止接收新记录，写完队列中剩余的记录后退出
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Mock 历史写入器关闭超时，{} 条记录未写入", queue.size());
+        } else {
+            log.info("Mock 历史写入器已关闭，队列已清空");
+        }
+    }
+
+    private void runLoop() {
+        List<MockHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                MockHistory first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Mock 历史写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<MockHistory> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, history) -> {
+                    ps.setLong(1, history.getMockConfigId());
+                    ps.setString(2, history.getMockName());
+                    ps.setString(3, history.getRequestPath());
+                    ps.setString(4, history.getRequestMethod());
+                    ps.setString(5, history.getRequestParams());
+                    ps.setString(6, history.getRequestHeaders());
+                    ps.setString(7, history.getRequestBody());
+                    ps.setInt(8, history.getResponseStatus());
+                    ps.setString(9, history.getResponseBody());
+                    if (history.getResponseTime() != null) {
+                        ps.setLong(10, history.getResponseTime());
+                    } else {
+                        ps.setNull(10, Types.BIGINT);
+                    }
+                    ps.setString(11, history.getClientIp());
+                    ps.setTimestamp(12, Timestamp.valueOf(history.getCreatedAt()));
+                }));
+            batchSizeSummary.record(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("批量写入 Mock 历史记录失败: {} 条, 错误: {}", batch.size(), e.getMessage());
+        } finally {
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
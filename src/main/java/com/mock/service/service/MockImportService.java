@@ -0,0 +1,657 @@
+package com.mock.service.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.service.dto.MockConfigRequest;
+import com.mock.service.dto.MockImportResult;
+import com.mock.service.entity.MockResponseVariant;
+import com.mock.service.route.LatencyDistribution;
+import com.mock.service.route.MockConfigChangedEvent;
+import com.mock.service.route.PathTemplateRouter;
+import com.mock.service.route.RequestBodyMatcher;
+import com.mock.service.route.VariantSelector;
+import com.mock.service.util.DisplayOrders;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Mock 配置流式批量导入服务
+ * <p>
+ * 请求体是 {@link MockConfigRequest} 组成的 JSON 数组，用 Jackson 流式 API 逐个元素解析，
+ * 不会把整个数组读入内存。冲突检查基于导入开始时一次性加载的（方法、路径、请求体）键集合，
+ * 新行通过 JDBC batch 插入（mock.import.batch-size），每 mock.import.commit-interval 行提交一次事务；
+ * 带响应变体（variants）的行需要生成的配置 ID，单独插入后再批量插入其变体，与其他行在同一个事务中。
+ * 导入结束后只写一条 RELOAD 变更日志并发布一次路由表刷新事件。
+ * </p>
+ * <p>
+ * 单行的校验或写入错误只记录到结果中，不影响其他行；JSON 语法错误会中止导入，已提交的行保留。
+ * 导入在调用线程中同步执行，结束后才返回结果；导入过程中可从其他线程（请求）按 jobId 查询进度，
+ * 最近 {@value #MAX_JOBS} 个任务的结果保留在内存中。事务回滚的行从冲突键集合中移除，后面相同的行仍可导入。
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockImportService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String INSERT_SQL = "INSERT INTO mock_config (display_order, name, path, method, status_code, "
+        + "content_type, request_body, request_body_match_type, response_body, delay, enabled, description, "
+        + "response_type, proto_file_id, proto_message_type, variant_strategy, "
+        + "delay_distribution, delay_params, throttle_rate, chunk_size, chunk_delay, "
+        + "stream_interval, stream_count, max_concurrency, rate_limit, max_queue, queue_timeout, overload_status, "
+        + "source, created_at, updated_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String VARIANT_INSERT_SQL = "INSERT INTO mock_response_variant (mock_config_id, "
+        + "variant_order, name, status_code, content_type, response_body, delay, weight, every_n, created_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * 每个任务保留的错误明细上限
+     */
+    private static final int MAX_ERRORS = 1000;
+
+    /**
+     * 内存中保留的任务数上限
+     */
+    private static final int MAX_JOBS = 20;
+
+    private final ObjectMapper objectMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ConfigChangeLogService changeLogService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+
+    private final int commitInterval;
+
+    private final List<Appender> appenders = new CopyOnWriteArrayList<>();
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    public MockImportService(ObjectMapper objectMapper,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ConfigChangeLogService changeLogService,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${mock.import.batch-size:500}") int batchSize,
+                             @Value("${mock.import.commit-interval:5000}") int commitInterval) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.changeLogService = changeLogService;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitInterval = Math.max(this.batchSize, commitInterval);
+    }
+
+    /**
+     * 从输入流导入 Mock 配置（在调用线程中同步执行）
+     *
+     * @param inputStream JSON 数组输入流
+     * @param jobId 任务ID，为空时自动生成
+     * @return 导入结果
+     * @throws RuntimeException 如果同名任务正在执行
+     */
+    public MockImportResult importMocks(InputStream inputStream, String jobId) {
+        ImportJob job = registerJob(StringUtils.hasText(jobId) ? jobId : UUID.randomUUID().toString());
+        log.info("开始流式导入 Mock 配置: jobId={}, batchSize={}, commitInterval={}", job.jobId, batchSize, commitInterval);
+
+        ImportRun run = new ImportRun(job, null);
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("导入内容必须是 JSON 数组");
+            }
+            run.existingKeys = loadExistingKeys();
+            run.nextDisplayOrder = DisplayOrders.next(loadMaxDisplayOrder());
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("JSON 数组不完整");
+                }
+                JsonNode node = parser.readValueAsTree();
+                run.accept(node, job.nextRow());
+            }
+            run.commit();
+            job.finish(STATUS_COMPLETED, null);
+        } catch (Exception e) {
+            run.abort(e);
+            String message = e instanceof IOException ? "JSON 解析失败: " + e.getMessage() : e.getMessage();
+            log.error("流式导入 Mock 配置失败: jobId={}, 第 {} 行, 错误: {}", job.jobId, job.processed, message);
+            job.finish(STATUS_FAILED, message);
+        }
+        return complete(job, "import");
+    }
+
+    /**
+     * 打开一个程序内部的增量导入通道（如代理录制），与流式导入共用校验、冲突检查和 JDBC batch 写入
+     * <p>
+     * 不登记导入任务：不占用最近任务列表，也不能按 jobId 查询。冲突键集合在第一次写入时加载，
+     * 之后在多次写入之间保留，只在其他来源的配置变更提交后重新加载。
+     * </p>
+     *
+     * @param source 导入来源，写入配置的 source 字段，也用作路由表刷新事件的原因；同一来源自己的写入不会使冲突键集合失效
+     * @return 导入通道，写入在调用线程中同步执行
+     */
+    public Appender openAppender(String source) {
+        Appender appender = new Appender(source);
+        appenders.add(appender);
+        return appender;
+    }
+
+    /**
+     * 其他来源的 Mock 配置变更提交后，增量导入通道的冲突键集合需要重新加载
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMockConfigChanged(MockConfigChangedEvent event) {
+        for (Appender appender : appenders) {
+            if (!appender.source.equals(event.reason())) {
+                appender.stale = true;
+            }
+        }
+    }
+
+    /**
+     * 导入结束：有新增配置时记录变更日志并刷新路由表
+     *
+     * @param reason 路由表刷新事件的原因
+     */
+    private MockImportResult complete(ImportJob job, String reason) {
+        if (job.imported > 0) {
+            changeLogService.recordMockReload();
+            eventPublisher.publishEvent(new MockConfigChangedEvent(reason));
+        }
+        MockImportResult result = job.snapshot();
+        log.info("批量导入完成: jobId={}, 状态 {}, 成功 {}, 跳过 {}, 失败 {}, 总计 {}, 耗时 {}ms",
+            result.getJobId(), result.getStatus(), result.getImported(), result.getSkipped(),
+            result.getFailed(), result.getProcessed(), result.getDuration());
+        return result;
+    }
+
+    /**
+     * 查询导入任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务进度/结果
+     * @throws RuntimeException 如果任务不存在或已过期
+     */
+    public MockImportResult getJob(String jobId) {
+        ImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new RuntimeException("导入任务不存在: " + jobId);
+        }
+        return job.snapshot();
+    }
+
+    private ImportJob registerJob(String jobId) {
+        synchronized (jobs) {
+            ImportJob existing = jobs.get(jobId);
+            if (existing != null && STATUS_RUNNING.equals(existing.status)) {
+                throw new RuntimeException("导入任务正在执行: " + jobId);
+            }
+            ImportJob job = new ImportJob(jobId);
+            jobs.remove(jobId);
+            jobs.put(jobId, job);
+            return job;
+        }
+    }
+
+    /**
+     * 一次查询加载已有配置的冲突键
+     */
+    private Set<String> loadExistingKeys() {
+        Set<String> keys = new HashSet<>();
+        jdbcTemplate.query("SELECT method, path, request_body_match_type, request_body FROM mock_config",
+            rs -> {
+                keys.add(conflictKey(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                keys.addAll(templateKeys(rs.getString(1), rs.getString(2)));
+            });
+        return keys;
+    }
+
+    private Integer loadMaxDisplayOrder() {
+        return jdbcTemplate.queryForObject("SELECT MAX(display_order) FROM mock_config", Integer.class);
+    }
+
+    /**
+     * 冲突键：方法 + 路径 + 请求体唯一性键（匹配类型 + 规范化内容摘要，请求体可能很大，只保留摘要）
+     */
+    private static String conflictKey(String method, String path, String matchType, String requestBody) {
+        return method + ' ' + path + ' ' + RequestBodyMatcher.uniqueKey(matchType, requestBody);
+    }
+
+    /**
+     * 等价路径模板键（与 {@link MockConfigService} 保存时的检查一致）：第一个键表示该方法下已有这种规范化模板，
+     * 第二个键记录具体写法，只有第一个键存在时说明已有写法不同的等价模板。不是模板或模板无效时返回空列表
+     */
+    private static List<String> templateKeys(String method, String path) {
+        if (path == null || !PathTemplateRouter.isTemplate(path)) {
+            return List.of();
+        }
+        try {
+            String key = "TEMPLATE " + method + ' ' + PathTemplateRouter.normalize(path);
+            return List.of(key, key + ' ' + path);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * 程序内部的增量导入通道，见 {@link #openAppender(String)}
+     */
+    public final class Appender {
+
+        private final String source;
+
+        /**
+         * 多次写入之间保留的冲突键集合，只在写入线程中访问
+         */
+        private Set<String> existingKeys;
+
+        /**
+         * 冲突键集合需要重新加载（尚未加载，或其他来源的配置已变更）
+         */
+        private volatile boolean stale = true;
+
+        private Appender(String source) {
+            this.source = source;
+        }
+
+        /**
+         * 导入一批 Mock 配置，已存在相同（方法、路径、请求体）的配置记为跳过
+         *
+         * @param requests Mock 配置
+         * @return 本批的导入结果
+         */
+        public synchronized MockImportResult append(List<MockConfigRequest> requests) {
+            ImportJob job = new ImportJob(source);
+            ImportRun run = new ImportRun(job, source);
+            try {
+                if (stale) {
+                    // 先清除标记：加载期间到达的变更会再次标记，下一批重新加载
+                    stale = false;
+                    existingKeys = loadExistingKeys();
+                }
+                run.existingKeys = existingKeys;
+                run.nextDisplayOrder = DisplayOrders.next(loadMaxDisplayOrder());
+                for (MockConfigRequest request : requests) {
+                    run.accept(objectMapper.valueToTree(request), job.nextRow());
+                }
+                run.commit();
+                job.finish(STATUS_COMPLETED, null);
+            } catch (Exception e) {
+                run.abort(e);
+                log.error("导入 Mock 配置失败: source={}, 第 {} 行, 错误: {}", source, job.processed, e.getMessage());
+                job.finish(STATUS_FAILED, e.getMessage());
+            }
+            return complete(job, source);
+        }
+    }
+
+    /**
+     * 单次导入的执行状态（只在导入线程中访问）
+     */
+    private class ImportRun {
+
+        private final ImportJob job;
+
+        /**
+         * 写入配置的来源（mock_config.source），文件导入为 null
+         */
+        private final String source;
+
+        private Set<String> existingKeys = Set.of();
+
+        private int nextDisplayOrder;
+
+        /**
+         * 已解析、尚未执行的插入参数
+         */
+        private final List<Object[]> pending = new ArrayList<>();
+
+        /**
+         * 当前事务中尚未提交的行（行号 -> 请求），回滚时据此记录错误
+         */
+        private final Map<Integer, MockConfigRequest> uncommitted = new LinkedHashMap<>();
+
+        /**
+         * 当前事务中尚未提交的行的冲突键，回滚时从 existingKeys 中移除，之后相同的行可以重新导入
+         */
+        private final List<String> uncommittedKeys = new ArrayList<>();
+
+        private TransactionStatus transaction;
+
+        ImportRun(ImportJob job, String source) {
+            this.job = job;
+            this.source = source;
+        }
+
+        void accept(JsonNode node, int row) {
+            MockConfigRequest request = null;
+            List<MockResponseVariant> variants;
+            try {
+                request = objectMapper.treeToValue(node, MockConfigRequest.class);
+                validate(request);
+                variants = MockConfigService.toVariants(request.getVariants());
+            } catch (Exception e) {
+                job.fail(row, request, e.getMessage());
+                return;
+            }
+
+            String method = request.getMethod().toUpperCase();
+            String requestBody = MockConfigService.normalizeRequestBody(request.getRequestBody());
+            List<String> templateKeys = templateKeys(method, request.getPath());
+            if (!templateKeys.isEmpty() && existingKeys.contains(templateKeys.get(0))
+                    && !existingKeys.contains(templateKeys.get(1))) {
+                job.fail(row, request, "已存在等价的路径模板，请使用相同的写法: " + request.getPath());
+                return;
+            }
+            String key = conflictKey(method, request.getPath(), request.getRequestBodyMatchType(), requestBody);
+            if (!existingKeys.add(key)) {
+                job.skip();
+                return;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Object[] params = {
+                nextDisplayOrder,
+                request.getName(),
+                request.getPath(),
+                method,
+                request.getStatusCode() != null ? request.getStatusCode() : 200,
+                request.getContentType() != null ? request.getContentType() : "application/json",
+                requestBody,
+                RequestBodyMatcher.normalizeType(request.getRequestBodyMatchType()),
+                request.getResponseBody(),
+                request.getDelay() != null ? request.getDelay() : 0,
+                request.getEnabled() != null ? request.getEnabled() : true,
+                request.getDescription(),
+                request.getResponseType() != null ? request.getResponseType() : "JSON",
+                request.getProtoFileId(),
+                request.getProtoMessageType(),
+                VariantSelector.normalizeStrategy(request.getVariantStrategy()),
+                LatencyDistribution.normalizeType(request.getDelayDistribution()),
+                request.getDelayParams(),
+                request.getThrottleRate(),
+                request.getChunkSize(),
+                request.getChunkDelay(),
+                request.getStreamInterval(),
+                request.getStreamCount(),
+                request.getMaxConcurrency(),
+                request.getRateLimit(),
+                request.getMaxQueue(),
+                request.getQueueTimeout(),
+                request.getOverloadStatus(),
+                source,
+                now,
+                now
+            };
+            uncommitted.put(row, request);
+            uncommittedKeys.add(key);
+            for (String templateKey : templateKeys) {
+                if (existingKeys.add(templateKey)) {
+                    uncommittedKeys.add(templateKey);
+                }
+            }
+            nextDisplayOrder += DisplayOrders.GAP;
+            if (variants.isEmpty()) {
+                pending.add(params);
+            } else if (!insertWithVariants(params, variants, now)) {
+                return;
+            }
+
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+            if (uncommitted.size() >= commitInterval) {
+                commit();
+            }
+        }
+
+        private void validate(MockConfigRequest request) {
+            if (!StringUtils.hasText(request.getName())) {
+                throw new RuntimeException("Mock 名称不能为空");
+            }
+            if (!StringUtils.hasText(request.getPath())) {
+                throw new RuntimeException("Mock 路径不能为空");
+            }
+            if (!StringUtils.hasText(request.getMethod())) {
+                throw new RuntimeException("HTTP 方法不能为空");
+            }
+            MockConfigService.validateConfig(request);
+        }
+
+        /**
+         * 带响应变体的行单独插入（需要生成的配置 ID），变体按 JDBC batch 插入；
+         * 与批量插入在同一个事务中，失败时同样回滚当前事务
+         *
+         * @return 插入失败（事务已回滚）时返回 false
+         */
+        private boolean insertWithVariants(Object[] params, List<MockResponseVariant> variants, Timestamp now) {
+            beginTransaction();
+            try {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                    new ArgumentPreparedStatementSetter(params).setValues(statement);
+                    return statement;
+                }, keyHolder);
+                long mockConfigId = keyHolder.getKey().longValue();
+                List<Object[]> rows = new ArrayList<>(variants.size());
+                for (MockResponseVariant variant : variants) {
+                    rows.add(new Object[]{
+                        mockConfigId,
+                        variant.getVariantOrder(),
+                        variant.getName(),
+                        variant.getStatusCode(),
+                        variant.getContentType(),
+                        variant.getResponseBody(),
+                        variant.getDelay(),
+                        variant.getWeight(),
+                        variant.getEveryN(),
+                        now
+                    });
+                }
+                jdbcTemplate.batchUpdate(VARIANT_INSERT_SQL, rows);
+                return true;
+            } catch (DataAccessException e) {
+                log.warn("插入带变体的 Mock 配置失败，回滚 {} 行: {}", uncommitted.size(), e.getMostSpecificCause().getMessage());
+                rollback("写入失败: " + e.getMostSpecificCause().getMessage());
+                return false;
+            }
+        }
+
+        private void beginTransaction() {
+            if (transaction == null) {
+                transaction = transactionManager.getTransaction(
+                    new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+            }
+        }
+
+        /**
+         * 执行一批插入，失败时回滚当前事务，事务内所有未提交行记为失败
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            beginTransaction();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, pending);
+                pending.clear();
+            } catch (DataAccessException e) {
+                log.warn("批量插入 Mock 配置失败，回滚 {} 行: {}", uncommitted.size(), e.getMostSpecificCause().getMessage());
+                rollback("批量写入失败: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+
+        private void commit() {
+            flush();
+            if (transaction != null) {
+                transactionManager.commit(transaction);
+                transaction = null;
+                job.commit(uncommitted.size());
+                uncommitted.clear();
+                uncommittedKeys.clear();
+                log.info("导入进度: jobId={}, 已处理 {}, 成功 {}, 跳过 {}, 失败 {}",
+                    job.jobId, job.processed, job.imported, job.skipped, job.failed);
+            }
+        }
+
+        private void rollback(String message) {
+            if (transaction != null) {
+                try {
+                    transactionManager.rollback(transaction);
+                } catch (Exception e) {
+                    log.warn("回滚导入事务失败: {}", e.getMessage());
+                }
+                transaction = null;
+            }
+            uncommitted.forEach((row, request) -> job.fail(row, request, message));
+            uncommitted.clear();
+            uncommittedKeys.forEach(existingKeys::remove);
+            uncommittedKeys.clear();
+            pending.clear();
+        }
+
+        void abort(Exception cause) {
+            if (transaction != null || !uncommitted.isEmpty()) {
+                rollback("导入中止，未提交: " + cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 导入任务进度，由导入线程更新、查询线程读取快照
+     */
+    private static class ImportJob {
+
+        private final String jobId;
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final long startNanos = System.nanoTime();
+
+        private final List<MockImportResult.RowError> errors = new ArrayList<>();
+
+        private volatile String status = STATUS_RUNNING;
+
+        private volatile int processed;
+
+        private volatile int imported;
+
+        private volatile int skipped;
+
+        private volatile int failed;
+
+        private String errorMessage;
+
+        private LocalDateTime finishedAt;
+
+        private long durationMs;
+
+        ImportJob(String jobId) {
+            this.jobId = jobId;
+        }
+
+        int nextRow() {
+            return ++processed;
+        }
+
+        void skip() {
+            skipped++;
+        }
+
+        void commit(int rows) {
+            imported += rows;
+        }
+
+        synchronized void fail(int row, MockConfigRequest request, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS) {
+                MockImportResult.RowError error = new MockImportResult.RowError();
+                error.setRow(row);
+                if (request != null) {
+                    error.setMethod(request.getMethod());
+                    error.setPath(request.getPath());
+                }
+                error.setMessage(message);
+                errors.add(error);
+            }
+        }
+
+        synchronized void finish(String status, String errorMessage) {
+            this.errorMessage = errorMessage;
+            this.finishedAt = LocalDateTime.now();
+            this.durationMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            this.status = status;
+        }
+
+        synchronized MockImportResult snapshot() {
+            MockImportResult result = new MockImportResult();
+            result.setJobId(jobId);
+            result.setStatus(status);
+            result.setProcessed(processed);
+            result.setImported(imported);
+            result.setSkipped(skipped);
+            result.setFailed(failed);
+            result.setErrors(new ArrayList<>(errors));
+            result.setErrorMessage(errorMessage);
+            result.setStartedAt(startedAt);
+            result.setFinishedAt(finishedAt);
+            result.setDuration(finishedAt != null ? durationMs
+                : Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.mock.service.service;
+
+import com.mock.service.route.EventScript;
+import com.mock.service.route.PreparedResponse;
+import com.mock.service.route.ResponseTemplate;
+import com.mock.service.route.ResponseThrottle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流式响应输出器
+ * <p>
+ * 负责两类在一个连接上持续输出的响应：
+ * <ul>
+ *   <li>限速响应：按 {@link ResponseThrottle} 把响应体切成小块慢速输出，用于测试客户端超时和流式解析</li>
+ *   <li>事件流：按 {@link EventScript} 以固定间隔发送 SSE 或 NDJSON 事件</li>
+ * </ul>
+ * 使用 Servlet 异步 + 非阻塞写（{@link WriteListener}），响应使用分块传输编码：请求线程立即释放，
+ * 每一块由 {@link MockDelayScheduler} 的共享定时器按间隔触发写出，不在连接上 sleep，
+ * 数千个并发的流式响应只需要少量定时器线程。
+ * </p>
+ * <p>
+ * 背压：每个连接同一时刻最多有一块待写出。输出流暂不可写（客户端读得慢）时不再生成后续内容，
+ * 等容器回调 {@link WriteListener#onWritePossible()} 写出后才开始计算下一块的间隔，
+ * 慢客户端只会让自己的流变慢，不会在服务端堆积数据。
+ * 并发流数量超过 mock.stream.max-concurrent 时拒绝新的流。
+ * </p>
+ * <p>
+ * 指标：
+ * <ul>
+ *   <li>mock.stream.active：正在输出的流式响应数量</li>
+ *   <li>mock.stream.aborted：客户端断开或超时而中止的流式响应次数</li>
+ *   <li>mock.stream.rejected：因并发流数量达到上限而拒绝的次数</li>
+ * </ul>
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockResponseStreamer {
+
+    /**
+     * 异步请求超时相对预计输出时长的余量（毫秒）
+     */
+    private static final long TIMEOUT_MARGIN_MS = 30_000;
+
+    private final MockDelayScheduler mockDelayScheduler;
+
+    /**
+     * 并发流数量上限
+     */
+    private final int maxConcurrent;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final Counter abortedCounter;
+
+    private final Counter rejectedCounter;
+
+    public MockResponseStreamer(MockDelayScheduler mockDelayScheduler, MeterRegistry meterRegistry,
+                                @Value("${mock.stream.max-concurrent:10000}") int maxConcurrent) {
+        this.mockDelayScheduler = mockDelayScheduler;
+        this.maxConcurrent = maxConcurrent;
+        Gauge.builder("mock.stream.active", active, AtomicInteger::get)
+            .description("正在输出的 Mock 流式响应数量")
+            .register(meterRegistry);
+        this.abortedCounter = Counter.builder("mock.stream.aborted")
+            .description("客户端断开或超时而中止的 Mock 流式响应次数")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("mock.stream.rejected")
+            .description("因并发流数量达到上限而拒绝的 Mock 流式响应次数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 开始限速输出响应，成功时请求进入异步模式，方法立即返回
+     *
+     * @param request Servlet 请求
+     * @param response Servlet 响应
+     * @param prepared 要输出的响应
+     * @param throttle 限速配置
+     * @param delayMs 输出第一块之前的延迟（毫秒）
+     * @param onFinish 输出结束（包括中止）后执行的回调（如归还容量限制的并发许可）
+     * @return 并发流数量已达上限时返回 false，此时未写出任何内容，也不会执行 onFinish
+     */
+    public boolean stream(HttpServletRequest request, HttpServletResponse response, PreparedResponse prepared,
+                          ResponseThrottle throttle, long delayMs, Runnable onFinish) throws IOException {
+        if (!tryAcquire()) {
+            return false;
+        }
+        response.setStatus(prepared.getStatus());
+        response.setContentType(prepared.getMediaType().toString());
+        if (prepared.getEtag() != null) {
+            response.setHeader(HttpHeaders.ETAG, prepared.getEtag());
+        }
+
+        byte[] body = prepared.getBody();
+        int chunkSize = throttle.getChunkSize();
+        long chunks = (body.length + chunkSize - 1) / chunkSize;
+        long expectedMs = delayMs + TimeUnit.NANOSECONDS.toMillis(chunks * throttle.getIntervalNanos());
+
+        start(request, response, new ChunkSource() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < body.length;
+            }
+
+            @Override
+            public void writeNext(ServletOutputStream out) throws IOException {
+                int length = Math.min(chunkSize, body.length - position);
+                out.write(body, position, length);
+                position += length;
+            }
+        }, throttle.getIntervalNanos(), delayMs, expectedMs + TIMEOUT_MARGIN_MS, onFinish);
+        return true;
+    }
+
+    /**
+     * 开始发送事件流，成功时请求进入异步模式，方法立即返回
+     *
+     * @param request Servlet 请求
+     * @param response Servlet 响应
+     * @param status 响应状态码
+     * @param script 事件流脚本
+     * @param context 事件模板渲染上下文
+     * @param count 发送的事件数，超出脚本长度时循环；0 表示一直发送直到客户端断开
+     * @param intervalMs 相邻两个事件的间隔（毫秒）
+     * @param delayMs 发送第一个事件之前的延迟（毫秒）
+     * @param onFinish 发送结束（包括中止）后执行的回调（如归还容量限制的并发许可）
+     * @return 并发流数量已达上限时返回 false，此时未写出任何内容，也不会执行 onFinish
+     */
+    public boolean streamEvents(HttpServletRequest request, HttpServletResponse response, int status,
+                                EventScript script, ResponseTemplate.Context context, long count,
+                                long intervalMs, long delayMs, Runnable onFinish) throws IOException {
+        if (!tryAcquire()) {
+            return false;
+        }
+        response.setStatus(status);
+        response.setContentType(script.getMediaType().toString());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // 提示反向代理（如 Nginx）不要缓冲事件流
+        response.setHeader("X-Accel-Buffering", "no");
+
+        long timeoutMs = count > 0 ? delayMs + count * intervalMs + TIMEOUT_MARGIN_MS : 0;
+        start(request, response, new ChunkSource() {
+            private long index;
+
+            @Override
+            public boolean hasNext() {
+                return count <= 0 || index < count;
+            }
+
+            @Override
+            public void writeNext(ServletOutputStream out) throws IOException {
+                out.write(script.frame(index++, context));
+            }
+        }, TimeUnit.MILLISECONDS.toNanos(intervalMs), delayMs, timeoutMs, onFinish);
+        return true;
+    }
+
+    /**
+     * 获取正在输出的流式响应数量
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    private boolean tryAcquire() {
+        if (active.incrementAndGet() > maxConcurrent) {
+            active.decrementAndGet();
+            rejectedCounter.increment();
+            log.debug("并发流式响应数量已达上限 {}，拒绝新的流", maxConcurrent);
+            return false;
+        }
+        return true;
+    }
+
+    private void start(HttpServletRequest request, HttpServletResponse response, ChunkSource source,
+                       long intervalNanos, long delayMs, long timeoutMs, Runnable onFinish) throws IOException {
+        Drip drip = null;
+        try {
+            AsyncContext asyncContext = request.startAsync(request, response);
+            asyncContext.setTimeout(timeoutMs);
+            drip = new Drip(asyncContext, response.getOutputStream(), source, intervalNanos, onFinish);
+            asyncContext.addListener(drip);
+            drip.start(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        } catch (IOException | RuntimeException e) {
+            if (drip != null) {
+                drip.finish(true);
+            } else {
+                active.decrementAndGet();
+                onFinish.run();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 按块生成的输出内容，只在写出线程中调用
+     */
+    private interface ChunkSource {
+
+        boolean hasNext();
+
+        /**
+         * 生成并写出下一块
+         */
+        void writeNext(ServletOutputStream out) throws IOException;
+    }
+
+    /**
+     * 单个流式响应的输出状态
+     * <p>
+     * 定时器到期时标记“下一块已到期”并尝试写出；输出流暂不可写时由容器在可写后回调
+     * {@link #onWritePossible()} 继续。一块写出后输出流仍不可写（数据还积压在容器中）时不安排下一块，
+     * 等 onWritePossible 回调后才开始计算间隔。两条路径在实例上同步，同一时刻只有一个线程写。
+     * </p>
+     */
+    private final class Drip implements WriteListener, AsyncListener {
+
+        private final AsyncContext asyncContext;
+
+        private final ServletOutputStream out;
+
+        private final ChunkSource source;
+
+        private final long intervalNanos;
+
+        private final Runnable onFinish;
+
+        /**
+         * 下一块已到输出时间但尚未写出
+         */
+        private boolean due;
+
+        /**
+         * 上一块已写出但输出流暂不可写，等待可写后再安排下一块
+         */
+        private boolean draining;
+
+        private boolean done;
+
+        private ScheduledFuture<?> next;
+
+        private Drip(AsyncContext asyncContext, ServletOutputStream out, ChunkSource source, long intervalNanos,
+                     Runnable onFinish) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+            this.source = source;
+            this.intervalNanos = intervalNanos;
+            this.onFinish = onFinish;
+        }
+
+        private synchronized void start(long delayNanos) {
+            out.setWriteListener(this);
+            if (delayNanos > 0) {
+                next = mockDelayScheduler.schedule(this::tick, delayNanos);
+            } else {
+                due = true;
+            }
+        }
+
+        private synchronized void tick() {
+            if (done) {
+                return;
+            }
+            due = true;
+            writeIfReady();
+        }
+
+        @Override
+        public synchronized void onWritePossible() {
+            writeIfReady();
+        }
+
+        private void writeIfReady() {
+            if (done || !out.isReady()) {
+                return;
+            }
+            if (draining) {
+                // 上一块已全部交给连接，从现在开始计算下一块的间隔
+                draining = false;
+                next = mockDelayScheduler.schedule(this::tick, intervalNanos);
+                return;
+            }
+            if (!due) {
+                return;
+            }
+            try {
+                if (source.hasNext()) {
+                    source.writeNext(out);
+                }
+                due = false;
+                if (!source.hasNext()) {
+                    finish(false);
+                    return;
+                }
+                if (out.isReady()) {
+                    out.flush();
+                }
+                if (out.isReady()) {
+                    next = mockDelayScheduler.schedule(this::tick, intervalNanos);
+                } else {
+                    draining = true;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("流式响应输出失败: {}", e.getMessage());
+                finish(true);
+            }
+        }
+
+        private synchronized void finish(boolean aborted) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+            active.decrementAndGet();
+            onFinish.run();
+            if (aborted) {
+                abortedCounter.increment();
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // 请求已结束（超时或客户端断开后由容器完成）
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            finish(true);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finish(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
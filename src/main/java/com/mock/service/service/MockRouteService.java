@@ -0,0 +1,356 @@
+package com.mock.service.service;
+
+import com.mock.service.entity.ConfigChangeLog;
+import com.mock.service.entity.MockConfig;
+import com.mock.service.entity.MockResponseVariant;
+import com.mock.service.repository.ConfigChangeLogRepository;
+import com.mock.service.repository.MockConfigRepository;
+import com.mock.service.repository.MockResponseVariantRepository;
+import com.mock.service.route.MockConfigChangedEvent;
+import com.mock.service.route.MockRoute;
+import com.mock.service.route.MockRouteTable;
+import com.mock.service.route.PathTemplateRouter.RouteMatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mock 路由服务
+ * <p>
+ * 在内存中维护一份不可变的 {@link MockRouteTable}，供 DynamicMockController 查找 Mock 配置，
+ * 请求热路径不再访问数据库。
+ * </p>
+ * <p>
+ * 路由表版本号即配置变更日志（{@link ConfigChangeLog}）的版本号。同步时机：
+ * <ul>
+ *   <li>应用启动完成后全量加载一次</li>
+ *   <li>本节点的变更事务提交后（{@link MockConfigChangedEvent}）立即增量同步</li>
+ *   <li>定时轮询变更日志（mock.cluster.poll-interval-ms），同步其他节点的变更</li>
+ * </ul>
+ * 加载配置时一并批量加载其响应变体（mock_response_variant），编译进路由表。
+ * 增量同步只查询新的变更ID，再按ID加载变更的配置行，在当前路由表基础上生成新表后原子替换；
+ * 变更日志中出现批量变更（RELOAD）或待处理变更过多时退化为全量加载。
+ * Proto 文件变更会清除本节点的 Proto 缓存。
+ * </p>
+ * <p>
+ * 自增ID在并发事务下可能乱序提交（小ID晚于大ID可见），因此每次轮询都会回看最近
+ * mock.cluster.reorder-window 个版本号，跳过已处理过的ID。
+ * </p>
+ * <p>
+ * 指标：mock.route.table.staleness（距最近一次成功同步的时间，超过 mock.cluster.max-staleness-ms
+ * 时强制全量加载）、mock.route.table.changes（已应用的变更数）、mock.route.table.sync.failures
+ * </p>
+ *
+ * @see MockRouteTable
+ * @see ConfigChangeLogService
+ */
+@Slf4j
+@Service
+public class MockRouteService {
+
+    private final MockConfigRepository mockConfigRepository;
+
+    private final ConfigChangeLogRepository changeLogRepository;
+
+    private final MockResponseVariantRepository variantRepository;
+
+    private final ProtoService protoService;
+
+    /**
+     * 只读的独立事务，保证加载出来的实体与调用方的持久化上下文隔离
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * 当前生效的路由表
+     */
+    private final AtomicReference<MockRouteTable> routeTable = new AtomicReference<>(MockRouteTable.empty());
+
+    /**
+     * 回看窗口内已处理过的变更ID（只在同步方法内访问）
+     */
+    private final NavigableSet<Long> seenVersions = new TreeSet<>();
+
+    private final int reorderWindow;
+
+    private final int maxIncrementalChanges;
+
+    private final long maxStalenessMs;
+
+    /**
+     * 最近一次成功同步的时间（毫秒），0 表示尚未加载
+     */
+    private volatile long lastSyncMillis;
+
+    /**
+     * 路由表构建耗时
+     */
+    private final Timer buildTimer;
+
+    private final Counter changesCounter;
+
+    private final Counter syncFailureCounter;
+
+    public MockRouteService(MockConfigRepository mockConfigRepository,
+                            ConfigChangeLogRepository changeLogRepository,
+                            MockResponseVariantRepository variantRepository,
+                            ProtoService protoService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${mock.cluster.reorder-window:100}") int reorderWindow,
+                            @Value("${mock.cluster.max-incremental-changes:500}") int maxIncrementalChanges,
+                            @Value("${mock.cluster.max-staleness-ms:5000}") long maxStalenessMs) {
+        this.mockConfigRepository = mockConfigRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.variantRepository = variantRepository;
+        this.protoService = protoService;
+        this.reorderWindow = reorderWindow;
+        this.maxIncrementalChanges = maxIncrementalChanges;
+        this.maxStalenessMs = maxStalenessMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.buildTimer = Timer.builder("mock.route.table.build")
+            .description("Mock 路由表构建耗时")
+            .register(meterRegistry);
+        Gauge.builder("mock.route.table.size", routeTable, ref -> ref.get().size())
+            .description("Mock 路由表中的路由数量")
+            .register(meterRegistry);
+        Gauge.builder("mock.route.table.version", routeTable, ref -> ref.get().getVersion())
+            .description("Mock 路由表对应的配置版本号")
+            .register(meterRegistry);
+        Gauge.builder("mock.route.table.staleness", this, service -> service.getStalenessMs() / 1000.0)
+            .description("距最近一次成功同步配置变更的时间")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.changesCounter = Counter.builder("mock.route.table.changes")
+            .description("增量应用到路由表的配置变更数")
+            .register(meterRegistry);
+        this.syncFailureCounter = Counter.builder("mock.route.table.sync.failures")
+            .description("同步配置变更失败次数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动完成后加载路由表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh("startup");
+    }
+
+    /**
+     * 本节点的 Mock 配置变更事务提交后立即同步
+     * <p>
+     * 不在事务中发布的事件（fallbackExecution）同样立即同步。
+     * </p>
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMockConfigChanged(MockConfigChangedEvent event) {
+        sync(event.reason());
+    }
+
+    /**
+     * 定时轮询变更日志，同步其他节点的变更；超过最大陈旧时间时强制全量加载
+     */
+    @Scheduled(fixedDelayString = "${mock.cluster.poll-interval-ms:1000}",
+            initialDelayString = "${mock.cluster.poll-interval-ms:1000}")
+    public void poll() {
+        if (lastSyncMillis == 0) {
+            return;
+        }
+        long staleness = getStalenessMs();
+        if (staleness > maxStalenessMs) {
+            log.warn("Mock 路由表已 {}ms 未同步（上限 {}ms），尝试全量加载", staleness, maxStalenessMs);
+            try {
+                refresh("stale");
+            } catch (Exception e) {
+                syncFailureCounter.increment();
+                log.error("Mock 路由表全量加载失败: {}", e.getMessage());
+            }
+            return;
+        }
+        sync("poll");
+    }
+
+    /**
+     * 从数据库全量重建路由表并原子替换
+     * <p>
+     * 同步执行，保证后开始的刷新一定能看到先提交的变更。
+     * 先读取当前版本号再加载配置，之后提交的变更会在下次同步时重新应用。
+     * </p>
+     *
+     * @param reason 刷新原因（用于日志）
+     */
+    public synchronized void refresh(String reason) {
+        long start = System.nanoTime();
+        FullSnapshot snapshot = readOnlyTransaction.execute(status -> {
+            long version = changeLogRepository.findMaxId();
+            List<Long> recentIds = changeLogRepository.findIdsAfter(version - reorderWindow);
+            List<MockConfig> configs = mockConfigRepository.findByEnabledTrue();
+            attachVariants(configs, variantRepository.findAllByOrderByMockConfigIdAscVariantOrderAscIdAsc());
+            return new FullSnapshot(version, recentIds, configs);
+        });
+        MockRouteTable table = MockRouteTable.build(snapshot.configs(), snapshot.version());
+        seenVersions.clear();
+        snapshot.recentIds().stream().filter(id -> id <= snapshot.version()).forEach(seenVersions::add);
+        routeTable.set(table);
+        lastSyncMillis = System.currentTimeMillis();
+
+        long elapsed = System.nanoTime() - start;
+        buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Mock 路由表已全量刷新: reason={}, version={}, routes={}, 耗时={}ms",
+            reason, table.getVersion(), table.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * 增量同步变更日志中尚未处理的变更
+     *
+     * @param reason 同步原因（用于日志）
+     */
+    public synchronized void sync(String reason) {
+        if (lastSyncMillis == 0) {
+            return;
+        }
+        try {
+            MockRouteTable current = routeTable.get();
+            List<Long> ids = readOnlyTransaction.execute(status ->
+                changeLogRepository.findIdsAfter(current.getVersion() - reorderWindow));
+            List<Long> pending = ids.stream().filter(id -> !seenVersions.contains(id)).toList();
+            if (pending.isEmpty()) {
+                lastSyncMillis = System.currentTimeMillis();
+                return;
+            }
+            if (pending.size() > maxIncrementalChanges) {
+                refresh(reason + ":bulk");
+                return;
+            }
+
+            long start = System.nanoTime();
+            IncrementalSnapshot snapshot = readOnlyTransaction.execute(status -> loadChanges(pending));
+            if (snapshot.reload()) {
+                refresh(reason + ":reload");
+                return;
+            }
+            snapshot.protoFileIds().forEach(protoService::evictCache);
+
+            long version = Math.max(current.getVersion(), pending.get(pending.size() - 1));
+            MockRouteTable table = current.apply(snapshot.configs(), snapshot.removedIds(), version);
+            routeTable.set(table);
+            seenVersions.addAll(pending);
+            seenVersions.headSet(version - reorderWindow, true).clear();
+            lastSyncMillis = System.currentTimeMillis();
+
+            long elapsed = System.nanoTime() - start;
+            buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            changesCounter.increment(pending.size());
+            log.info("Mock 路由表已增量同步: reason={}, version={}, 变更={}, 更新配置={}, 移除配置={}, 耗时={}ms",
+                reason, version, pending.size(), snapshot.configs().size(), snapshot.removedIds().size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (Exception e) {
+            syncFailureCounter.increment();
+            log.error("同步 Mock 配置变更失败: reason={}, 错误: {}", reason, e.getMessage());
+        }
+    }
+
+    /**
+     * 根据路径和方法查找启用的 Mock 路由（纯内存查找）
+     * <p>
+     * 同一路径下可能有多个按请求体区分的配置，调用方需再通过
+     * {@link MockRoute#select(String)} 选出具体的 Mock 配置。
+     * </p>
+     *
+     * @param path 请求路径
+     * @param method HTTP方法
+     * @return 匹配结果（路由及路径变量），未找到返回 null
+     */
+    public RouteMatch<MockRoute> findRoute(String path, String method) {
+        return routeTable.get().find(method, path);
+    }
+
+    /**
+     * 获取当前路由表快照
+     */
+    public MockRouteTable getRouteTable() {
+        return routeTable.get();
+    }
+
+    /**
+     * 距最近一次成功同步的时间（毫秒），尚未加载时返回 0
+     */
+    public long getStalenessMs() {
+        long last = lastSyncMillis;
+        return last == 0 ? 0 : System.currentTimeMillis() - last;
+    }
+
+    /**
+     * 按变更ID加载变更记录及变更后的配置行
+     */
+    private IncrementalSnapshot loadChanges(List<Long> changeIds) {
+        Set<Long> mockIds = new HashSet<>();
+        Set<Long> protoFileIds = new HashSet<>();
+        boolean reload = false;
+        for (ConfigChangeLog change : changeLogRepository.findAllById(changeIds)) {
+            if (ConfigChangeLog.CHANGE_RELOAD.equals(change.getChangeType())) {
+                reload = true;
+            } else if (ConfigChangeLog.ENTITY_PROTO_FILE.equals(change.getEntityType())) {
+                protoFileIds.add(change.getEntityId());
+            } else if (change.getEntityId() != null) {
+                mockIds.add(change.getEntityId());
+            }
+        }
+        if (reload) {
+            return new IncrementalSnapshot(true, List.of(), Set.of(), Set.of());
+        }
+        List<MockConfig> configs = mockConfigRepository.findAllById(mockIds);
+        if (!mockIds.isEmpty()) {
+            attachVariants(configs, variantRepository.findByMockConfigIdInOrderByMockConfigIdAscVariantOrderAscIdAsc(mockIds));
+        }
+        Set<Long> removedIds = new HashSet<>(mockIds);
+        configs.forEach(config -> removedIds.remove(config.getId()));
+        return new IncrementalSnapshot(false, configs, removedIds, protoFileIds);
+    }
+
+    /**
+     * 把批量查询出的响应变体挂到所属配置上（与配置一起编译进路由表）
+     */
+    private void attachVariants(List<MockConfig> configs, List<MockResponseVariant> variants) {
+        Map<Long, List<MockResponseVariant>> grouped = new HashMap<>();
+        for (MockResponseVariant variant : variants) {
+            grouped.computeIfAbsent(variant.getMockConfigId(), id -> new ArrayList<>()).add(variant);
+        }
+        for (MockConfig config : configs) {
+            config.setVariants(grouped.getOrDefault(config.getId(), List.of()));
+        }
+    }
+
+    private record FullSnapshot(long version, List<Long> recentIds, List<MockConfig> configs) {
+    }
+
+    private record IncrementalSnapshot(boolean reload, List<MockConfig> configs, Set<Long> removedIds,
+                                       Set<Long> protoFileIds) {
+    }
+}
@@ -0,0 +1,281 @@
+package com.mock.service.service;
+
+import com.mock.service.dto.MockMissSnapshot;
+import com.mock.service.dto.MockStatsSnapshot;
+import com.mock.service.entity.MockConfig;
+import com.mock.service.stats.LatencyHistogram;
+import com.mock.service.stats.MockStats;
+import com.mock.service.stats.RateWindow;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mock 实时统计服务
+ * <p>
+ * 在内存中维护每个 Mock 配置的命中次数、延迟直方图（p50/p90/p99/max）、滑动窗口 RPS、容量限制的排队数和拒绝次数，
+ * 以及未匹配请求（404）按路径的计数。所有写入都是无锁的，查询不访问历史记录表，
+ * 替代通过 COUNT(*) 统计调用次数。统计从应用启动（或手动重置）开始累计，不持久化。
+ * </p>
+ * <p>
+ * 未匹配路径可能来自任意客户端输入，统计的不同路径数受 mock.stats.max-miss-paths 限制，
+ * 超出后计入路径为 "*" 的汇总项。
+ * </p>
+ * <p>
+ * 同时向 Micrometer 汇报全局指标（不按 Mock 打标签，避免 Prometheus 时间序列膨胀）：
+ * <ul>
+ *   <li>mock.request{outcome=match|miss|error}：Mock 请求处理耗时与匹配/未匹配次数</li>
+ *   <li>mock.response.size：Mock 响应体字节数</li>
+ * </ul>
+ * </p>
+ */
+@Slf4j
+@Service
+public class MockStatsService {
+
+    /**
+     * 超出路径数上限后的汇总项路径
+     */
+    private static final String OTHER_PATH = "*";
+
+    private final Map<Long, MockStats> mockStats = new ConcurrentHashMap<>();
+
+    private final Map<String, MissStats> missStats = new ConcurrentHashMap<>();
+
+    private final int maxMissPaths;
+
+    private final Timer matchTimer;
+
+    private final Timer missTimer;
+
+    private final Timer errorTimer;
+
+    private final DistributionSummary responseSize;
+
+    public MockStatsService(MeterRegistry meterRegistry,
+                            @Value("${mock.stats.max-miss-paths:1000}") int maxMissPaths) {
+        this.maxMissPaths = maxMissPaths;
+        this.matchTimer = requestTimer(meterRegistry, "match");
+        this.missTimer = requestTimer(meterRegistry, "miss");
+        this.errorTimer = requestTimer(meterRegistry, "error");
+        this.responseSize = DistributionSummary.builder("mock.response.size")
+            .description("Mock 响应体字节数")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次 Mock 命中
+     *
+     * @param config 命中的 Mock 配置
+     * @param status 响应状态码
+     * @param responseBytes 响应体字节数
+     * @param latencyNanos 响应耗时（纳秒）
+     */
+    public void recordHit(MockConfig config, int status, int responseBytes, long latencyNanos) {
+        statsFor(config).record(status, latencyNanos / 1000, System.currentTimeMillis());
+        matchTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        responseSize.record(responseBytes);
+    }
+
+    /**
+     * 记录一次因容量限制而拒绝的请求（拒绝的响应另外通过 {@link #recordHit} 记录）
+     *
+     * @param config 拒绝请求的 Mock 配置
+     */
+    public void recordRejected(MockConfig config) {
+        statsFor(config).recordRejected();
+    }
+
+    /**
+     * 记录一个请求因容量限制进入队列
+     */
+    public void queueEntered(MockConfig config) {
+        statsFor(config).addQueued(1);
+    }
+
+    /**
+     * 记录一个排队中的请求离开队列（准入、超时或客户端断开）
+     */
+    public void queueLeft(MockConfig config) {
+        statsFor(config).addQueued(-1);
+    }
+
+    private MockStats statsFor(MockConfig config) {
+        MockStats stats = mockStats.get(config.getId());
+        if (stats == null) {
+            stats = mockStats.computeIfAbsent(config.getId(), MockStats::new);
+        }
+        // 路由表重建后配置对象会被替换，只在引用变化时写入
+        if (stats.getConfig() != config) {
+            stats.setConfig(config);
+        }
+        return stats;
+    }
+
+    /**
+     * 记录一次未匹配的请求
+     *
+     * @param method HTTP 方法
+     * @param path 请求路径
+     * @param latencyNanos 处理耗时（纳秒）
+     */
+    public void recordMiss(String method, String path, long latencyNanos) {
+        String key = method + " " + path;
+        MissStats stats = missStats.get(key);
+        if (stats == null) {
+            stats = missStats.size() < maxMissPaths
+                ? missStats.computeIfAbsent(key, k -> new MissStats(method, path))
+                : missStats.computeIfAbsent(method + " " + OTHER_PATH, k -> new MissStats(method, OTHER_PATH));
+        }
+        stats.record(System.currentTimeMillis());
+        missTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次处理失败的请求
+     *
+     * @param latencyNanos 处理耗时（纳秒）
+     */
+    public void recordError(long latencyNanos) {
+        errorTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取所有 Mock 的统计，按命中次数降序
+     */
+    public List<MockStatsSnapshot> getAllStats() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        return mockStats.values().stream()
+            .map(stats -> toSnapshot(stats, nowSecond))
+            .sorted(Comparator.comparing(MockStatsSnapshot::getHits).reversed())
+            .toList();
+    }
+
+    /**
+     * 获取指定 Mock 的统计
+     *
+     * @return 统计快照，尚未被调用过时返回 null
+     */
+    public MockStatsSnapshot getStats(Long mockConfigId) {
+        MockStats stats = mockStats.get(mockConfigId);
+        return stats != null ? toSnapshot(stats, System.currentTimeMillis() / 1000) : null;
+    }
+
+    /**
+     * 获取未匹配请求的统计，按次数降序
+     */
+    public List<MockMissSnapshot> getMissStats() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        return missStats.values().stream()
+            .map(stats -> stats.toSnapshot(nowSecond))
+            .sorted(Comparator.comparing(MockMissSnapshot::getCount).reversed())
+            .toList();
+    }
+
+    /**
+     * 删除指定 Mock 的统计（配置删除时调用）
+     */
+    public void remove(Long mockConfigId) {
+        mockStats.remove(mockConfigId);
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        mockStats.clear();
+        missStats.clear();
+        log.info("Mock 实时统计已重置");
+    }
+
+    private MockStatsSnapshot toSnapshot(MockStats stats, long nowSecond) {
+        LatencyHistogram latency = stats.getLatency();
+        RateWindow rate = stats.getRate();
+
+        MockStatsSnapshot snapshot = new MockStatsSnapshot();
+        snapshot.setMockConfigId(stats.getMockConfigId());
+        MockConfig config = stats.getConfig();
+        if (config != null) {
+            snapshot.setName(config.getName());
+            snapshot.setMethod(config.getMethod());
+            snapshot.setPath(config.getPath());
+        }
+        snapshot.setHits(stats.getHits());
+        snapshot.setClientErrors(stats.getClientErrors());
+        snapshot.setServerErrors(stats.getServerErrors());
+        snapshot.setRejected(stats.getRejected());
+        snapshot.setQueued(stats.getQueued());
+        snapshot.setRps1s(rate.rate(1, nowSecond));
+        snapshot.setRps10s(rate.rate(10, nowSecond));
+        snapshot.setRps60s(rate.rate(60, nowSecond));
+        snapshot.setMeanMs(latency.getMeanMicros() / 1000.0);
+        snapshot.setP50Ms(latency.percentileMicros(50) / 1000.0);
+        snapshot.setP90Ms(latency.percentileMicros(90) / 1000.0);
+        snapshot.setP99Ms(latency.percentileMicros(99) / 1000.0);
+        snapshot.setMaxMs(latency.getMaxMicros() / 1000.0);
+        snapshot.setLastHitAt(toDateTime(stats.getLastHitAt()));
+        return snapshot;
+    }
+
+    private static Timer requestTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("mock.request")
+            .description("Mock 请求处理耗时（包含配置的延迟）")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return epochMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 单个未匹配路径的统计
+     */
+    private static final class MissStats {
+
+        private final String method;
+
+        private final String path;
+
+        private final LongAdder count = new LongAdder();
+
+        private final RateWindow rate = new RateWindow();
+
+        private volatile long lastSeenAt;
+
+        private MissStats(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        private void record(long nowMillis) {
+            count.increment();
+            rate.record(nowMillis / 1000);
+            lastSeenAt = nowMillis;
+        }
+
+        private MockMissSnapshot toSnapshot(long nowSecond) {
+            MockMissSnapshot snapshot = new MockMissSnapshot();
+            snapshot.setMethod(method);
+            snapshot.setPath(path);
+            snapshot.setCount(count.sum());
+            snapshot.setRps60s(rate.rate(RateWindow.MAX_WINDOW_SECONDS, nowSecond));
+            snapshot.setLastSeenAt(toDateTime(lastSeenAt));
+            return snapshot;
+        }
+    }
+}
@@ -8,8 +8,13 @@ import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.util.JsonFormat;
 import com.mock.service.dto.ProtoFileRequest;
+import com.mock.service.entity.ConfigChangeLog;
 import com.mock.service.entity.ProtoFile;
 import com.mock.service.repository.ProtoFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Proto 核心服务
@@ -30,6 +36,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * 负责 .proto 文件的编译、FileDescriptor 的解析、JSON 到 Protobuf 二进制的转换。
  * 使用内存缓存已解析的 FileDescriptor 以提升性能。
  * </p>
+ * <p>
+ * 指标：mock.proto.convert（JSON 转 Protobuf 耗时）、mock.proto.convert.errors（转换失败次数）
+ * </p>
  */
 @Slf4j
 @Service
@@ -38,12 +47,28 @@ public class ProtoService {
 
     private final ProtoFileRepository protoFileRepository;
     private final ObjectMapper objectMapper;
+    private final ProtobufResponseCache protobufResponseCache;
+    private final MeterRegistry meterRegistry;
+    private final ConfigChangeLogService changeLogService;
+
+    private Timer convertTimer;
+    private Counter convertErrorCounter;
 
     /**
      * 缓存已解析的 FileDescriptor，key = protoFileId
      */
     private final Map<Long, Descriptors.FileDescriptor> descriptorCache = new ConcurrentHashMap<>();
 
+    @PostConstruct
+    public void initMetrics() {
+        convertTimer = Timer.builder("mock.proto.convert")
+                .description("JSON 转 Protobuf 耗时")
+                .register(meterRegistry);
+        convertErrorCounter = Counter.builder("mock.proto.convert.errors")
+                .description("JSON 转 Protobuf 失败次数")
+                .register(meterRegistry);
+    }
+
     /**
      * 创建并编译 Proto 文件
      */
@@ -62,7 +87,9 @@ public class ProtoService {
         // 编译 .proto 文件
         compileAndFill(protoFile);
 
-        return protoFileRepository.save(protoFile);
+        ProtoFile saved = protoFileRepository.save(protoFile);
+        changeLogService.recordProtoChange(saved.getId(), ConfigChangeLog.CHANGE_UPSERT);
+        return saved;
     }
 
     /**
@@ -85,8 +112,9 @@ public class ProtoService {
         // 重新编译
         compileAndFill(protoFile);
 
-        // 清除缓存
+        // 清除缓存，并通知集群内其他节点
         evictCache(id);
+        changeLogService.recordProtoChange(id, ConfigChangeLog.CHANGE_UPSERT);
 
         return protoFileRepository.save(protoFile);
     }
@@ -98,6 +126,7 @@ public class ProtoService {
     public void deleteProtoFile(Long id) {
         evictCache(id);
         protoFileRepository.deleteById(id);
+        changeLogService.recordProtoChange(id, ConfigChangeLog.CHANGE_DELETE);
     }
 
     /**
@@ -139,6 +168,7 @@ public class ProtoService {
      * @return protobuf 二进制字节数组
      */
     public byte[] jsonToProtobuf(Long protoFileId, String messageType, String jsonData) {
+        long start = System.nanoTime();
         try {
             Descriptors.FileDescriptor fileDescriptor = getOrLoadDescriptor(protoFileId);
 
@@ -168,17 +198,22 @@ public class ProtoService {
 
             return result;
         } catch (RuntimeException e) {
+            convertErrorCounter.increment();
             throw e;
         } catch (Exception e) {
+            convertErrorCounter.increment();
             throw new RuntimeException("JSON 转 Protobuf 失败: " + e.getMessage(), e);
+        } finally {
+            convertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
     /**
-     * 清除指定 Proto 文件的缓存
+     * 清除指定 Proto 文件的缓存（包括描述符和使用该文件的 Protobuf 响应）
      */
     public void evictCache(Long protoFileId) {
         descriptorCache.remove(protoFileId);
+        protobufResponseCache.evictProtoFile(protoFileId);
         log.debug("已清除 Proto 缓存: id={}", protoFileId);
     }
 
@@ -0,0 +1,185 @@
+package com.mock.service.service;
+
+import com.mock.service.entity.MockConfig;
+import com.mock.service.route.PreparedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Protobuf 响应缓存
+ * <p>
+ * Protobuf Mock 的响应体 JSON 和 Proto 描述符都是静态的，
+ * 编码结果按 (mockConfigId, 配置 updatedAt, protoFileId) 缓存为 {@link PreparedResponse}，
+ * 命中时与静态 JSON 响应一样直接写出字节，不再经过 JsonFormat 解析和 DynamicMessage 序列化。
+ * </p>
+ * <p>
+ * 按响应体总字节数做近似 LRU 淘汰（mock.proto.response-cache.max-bytes）：条目放在 ConcurrentHashMap 中，
+ * 命中只更新条目的最近访问时间，不加锁；写入后超出上限时按最近访问时间淘汰最久未用的条目。
+ * Mock 配置更新/删除、Proto 文件更新/删除时主动清除对应条目。
+ * </p>
+ * <p>
+ * 指标：mock.proto.response.cache{result=hit|miss}、mock.proto.response.cache.size、
+ * mock.proto.response.cache.bytes
+ * </p>
+ */
+@Service
+public class ProtobufResponseCache {
+
+    public static final MediaType PROTOBUF_MEDIA_TYPE = MediaType.parseMediaType("application/x-protobuf");
+
+    private final long maxBytes;
+
+    private final ConcurrentHashMap<ResponseKey, Slot> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * 淘汰锁：同一时刻只有一个线程执行淘汰，命中路径不经过
+     */
+    private final Object evictionLock = new Object();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public ProtobufResponseCache(MeterRegistry meterRegistry,
+                                 @Value("${mock.proto.response-cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.hitCounter = Counter.builder("mock.proto.response.cache")
+            .description("Protobuf 响应缓存命中次数")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("mock.proto.response.cache")
+            .description("Protobuf 响应缓存未命中次数")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        Gauge.builder("mock.proto.response.cache.size", this, ProtobufResponseCache::size)
+            .description("Protobuf 响应缓存条目数")
+            .register(meterRegistry);
+        Gauge.builder("mock.proto.response.cache.bytes", this, ProtobufResponseCache::bytes)
+            .description("Protobuf 响应缓存占用字节数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 获取 Mock 配置的 Protobuf 响应，未命中时调用 encoder 编码并缓存
+     *
+     * @param config Mock 配置（需包含 id、updatedAt、protoFileId）
+     * @param encoder 将响应体 JSON 编码为 Protobuf 字节的函数，编码失败时抛出的异常不会被缓存
+     * @return 预编码的 Protobuf 响应
+     */
+    public PreparedResponse get(MockConfig config, Supplier<byte[]> encoder) {
+        ResponseKey key = new ResponseKey(config.getId(), config.getUpdatedAt(), config.getProtoFileId());
+        Slot cached = entries.get(key);
+        if (cached != null) {
+            cached.lastAccess = System.nanoTime();
+            hitCounter.increment();
+            return cached.response;
+        }
+        missCounter.increment();
+
+        // 并发未命中时可能重复编码，结果相同
+        PreparedResponse prepared = PreparedResponse.of(config.getStatusCode(), PROTOBUF_MEDIA_TYPE, encoder.get());
+        if (prepared.getContentLength() <= maxBytes) {
+            Slot previous = entries.put(key, new Slot(prepared));
+            totalBytes.addAndGet(prepared.getContentLength() - (previous != null ? previous.response.getContentLength() : 0));
+            if (totalBytes.get() > maxBytes) {
+                trim();
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * 清除指定 Mock 配置的缓存（配置更新或删除时调用）
+     */
+    public void evictMock(Long mockConfigId) {
+        removeIf(key -> key.mockConfigId().equals(mockConfigId));
+    }
+
+    /**
+     * 清除使用指定 Proto 文件的缓存（Proto 文件更新或删除时调用）
+     */
+    public void evictProtoFile(Long protoFileId) {
+        removeIf(key -> protoFileId.equals(key.protoFileId()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long bytes() {
+        return totalBytes.get();
+    }
+
+    private void removeIf(Predicate<ResponseKey> predicate) {
+        entries.forEach((key, slot) -> {
+            if (predicate.test(key)) {
+                remove(key, slot);
+            }
+        });
+    }
+
+    /**
+     * 移除条目并扣减字节数；条目已被替换或移除时不做任何事
+     */
+    private void remove(ResponseKey key, Slot slot) {
+        if (entries.remove(key, slot)) {
+            totalBytes.addAndGet(-slot.response.getContentLength());
+        }
+    }
+
+    /**
+     * 超出字节上限时按最近访问时间淘汰最久未用的条目（近似 LRU：访问时间在淘汰期间仍可能被更新）
+     */
+    private void trim() {
+        synchronized (evictionLock) {
+            if (totalBytes.get() <= maxBytes) {
+                return;
+            }
+            // 先固定访问时间再排序，排序期间的并发访问不影响比较结果
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, slot) -> candidates.add(new Candidate(key, slot, slot.lastAccess)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            Iterator<Candidate> it = candidates.iterator();
+            while (totalBytes.get() > maxBytes && it.hasNext()) {
+                Candidate candidate = it.next();
+                remove(candidate.key(), candidate.slot());
+            }
+        }
+    }
+
+    /**
+     * 缓存条目：预编码的响应和最近访问时间
+     */
+    private static final class Slot {
+
+        private final PreparedResponse response;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private Slot(PreparedResponse response) {
+            this.response = response;
+        }
+    }
+
+    private record Candidate(ResponseKey key, Slot slot, long lastAccess) {
+    }
+
+    private record ResponseKey(Long mockConfigId, LocalDateTime updatedAt, Long protoFileId) {
+    }
+}
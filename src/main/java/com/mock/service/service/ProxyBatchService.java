@@ -0,0 +1,304 @@
+package com.mock.service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mock.service.dto.ProxyBatchResult;
+import com.mock.service.dto.ProxyBatchSummary;
+import com.mock.service.dto.ProxyRequest;
+import com.mock.service.dto.ProxyResponse;
+import com.mock.service.http.HostLimits;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量代理服务
+ * <p>
+ * 并发执行一批 {@link ProxyRequest}，每完成一个请求立即推送一条 {@link ProxyBatchResult}（完成顺序，不是提交顺序），
+ * 全部完成后推送 {@link ProxyBatchSummary}。输出格式为 NDJSON（每行一个 JSON）或 SSE（事件名 result / done），
+ * 一批请求的总耗时接近其中最慢的请求，而不是所有请求耗时之和。
+ * </p>
+ * <p>
+ * 并发控制：
+ * <ul>
+ *   <li>所有批量请求共用一个固定大小的线程池（mock.proxy.batch.max-concurrency），限制同时执行的代理请求总数；
+ *       开启虚拟线程时线程池使用虚拟线程</li>
+ *   <li>同一批中发往同一主机（{@link HostLimits#hostKey(String)}）的请求最多同时执行 mock.proxy.batch.max-per-host 个，
+ *       每个主机的请求排成一队，一个完成后再提交下一个，避免一批请求压垮同一个上游</li>
+ * </ul>
+ * 客户端断开或超时（mock.proxy.batch.timeout-ms）后，尚未开始的请求不再执行。
+ * </p>
+ * <p>
+ * 指标：mock.proxy.batch.active（正在执行的请求数）、mock.proxy.batch.queued（在线程池中等待的请求数）、
+ * mock.proxy.batch.wait（请求从批量开始到开始执行的等待时间）
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProxyBatchService {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ProxyService proxyService;
+
+    /**
+     * 单行输出的 JSON 序列化（全局配置开启了缩进，NDJSON 每条结果必须在一行内）
+     */
+    private final ObjectWriter jsonWriter;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxPerHost;
+
+    private final int maxRequests;
+
+    private final long timeoutMs;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final Timer waitTimer;
+
+    public ProxyBatchService(ProxyService proxyService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${mock.proxy.batch.max-concurrency:32}") int maxConcurrency,
+                             @Value("${mock.proxy.batch.max-per-host:8}") int maxPerHost,
+                             @Value("${mock.proxy.batch.max-requests:500}") int maxRequests,
+                             @Value("${mock.proxy.batch.timeout-ms:600000}") long timeoutMs,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.proxyService = proxyService;
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.maxPerHost = maxPerHost;
+        this.maxRequests = maxRequests;
+        this.timeoutMs = timeoutMs;
+
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), builder.name("proxy-batch-", 1).factory());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("mock.proxy.batch.active", active, AtomicInteger::get)
+            .description("批量代理中正在执行的请求数")
+            .register(meterRegistry);
+        Gauge.builder("mock.proxy.batch.queued", executor, e -> e.getQueue().size())
+            .description("批量代理中等待线程池执行的请求数")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("mock.proxy.batch.wait")
+            .description("批量代理请求从批量开始到开始执行的等待时间")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        log.info("批量代理: maxConcurrency={}, maxPerHost={}, maxRequests={}, virtualThread={}",
+            maxConcurrency, maxPerHost, maxRequests, virtualThreads);
+    }
+
+    /**
+     * 开始执行一批代理请求
+     *
+     * @param requests 代理请求
+     * @param sse true 时输出 SSE，否则输出 NDJSON
+     * @return 推送结果的 emitter，由调用方作为响应返回
+     */
+    public ResponseBodyEmitter execute(List<ProxyRequest> requests, boolean sse) {
+        ResponseBodyEmitter emitter = sse ? new SseEmitter(timeoutMs) : new ResponseBodyEmitter(timeoutMs);
+        Batch batch = new Batch(requests, emitter, sse);
+        emitter.onTimeout(batch::cancel);
+        emitter.onError(e -> batch.cancel());
+        emitter.onCompletion(batch::cancel);
+
+        String error = validate(requests);
+        if (error != null) {
+            ProxyBatchSummary summary = new ProxyBatchSummary();
+            summary.setTotal(0);
+            summary.setErrorMessage(error);
+            batch.send(summary);
+            emitter.complete();
+            return emitter;
+        }
+
+        log.info("批量代理开始: {} 个请求", requests.size());
+        batch.start();
+        return emitter;
+    }
+
+    private String validate(List<ProxyRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return "批量请求不能为空";
+        }
+        if (requests.size() > maxRequests) {
+            return "批量请求数 " + requests.size() + " 超过上限 " + maxRequests;
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            ProxyRequest request = requests.get(i);
+            if (request == null || request.getUrl() == null || request.getMethod() == null) {
+                return "第 " + i + " 个请求缺少 url 或 method";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 输出格式对应的响应 Content-Type
+     */
+    public static MediaType contentType(boolean sse) {
+        return sse ? MediaType.TEXT_EVENT_STREAM : NDJSON;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一次批量请求的执行状态
+     */
+    private final class Batch {
+
+        private final List<ProxyRequest> requests;
+
+        private final ResponseBodyEmitter emitter;
+
+        private final boolean sse;
+
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * 每个主机尚未提交的请求下标
+         */
+        private final Map<String, Queue<Integer>> pendingByHost = new LinkedHashMap<>();
+
+        private final AtomicInteger remaining;
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private final AtomicLong sumDurationMs = new AtomicLong();
+
+        private volatile boolean cancelled;
+
+        private Batch(List<ProxyRequest> requests, ResponseBodyEmitter emitter, boolean sse) {
+            this.requests = requests;
+            this.emitter = emitter;
+            this.sse = sse;
+            this.remaining = new AtomicInteger(requests != null ? requests.size() : 0);
+        }
+
+        /**
+         * 按主机分组，每个主机先提交 maxPerHost 个请求
+         */
+        private void start() {
+            for (int i = 0; i < requests.size(); i++) {
+                pendingByHost.computeIfAbsent(HostLimits.hostKey(requests.get(i).getUrl()), k -> new ConcurrentLinkedQueue<>())
+                    .add(i);
+            }
+            pendingByHost.values().forEach(pending -> {
+                for (int i = 0; i < maxPerHost; i++) {
+                    submitNext(pending);
+                }
+            });
+        }
+
+        private void submitNext(Queue<Integer> pending) {
+            Integer index = pending.poll();
+            if (index != null) {
+                executor.execute(() -> run(index, pending));
+            }
+        }
+
+        private void run(int index, Queue<Integer> pending) {
+            if (cancelled) {
+                return;
+            }
+            long start = System.nanoTime();
+            waitTimer.record(start - startNanos, TimeUnit.NANOSECONDS);
+            ProxyRequest request = requests.get(index);
+
+            active.incrementAndGet();
+            ProxyResponse response;
+            try {
+                response = proxyService.execute(request);
+            } finally {
+                active.decrementAndGet();
+            }
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            ProxyBatchResult result = new ProxyBatchResult();
+            result.setIndex(index);
+            result.setMethod(request.getMethod());
+            result.setUrl(request.getUrl());
+            result.setQueuedMs(TimeUnit.NANOSECONDS.toMillis(start - startNanos));
+            result.setDurationMs(durationMs);
+            result.setResponse(response);
+            if (response.getStatus() >= 400) {
+                failed.incrementAndGet();
+            }
+            sumDurationMs.addAndGet(durationMs);
+            send(result);
+
+            // 同一主机的下一个请求排到线程池队尾，多个批量请求之间轮流执行
+            submitNext(pending);
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            ProxyBatchSummary summary = new ProxyBatchSummary();
+            summary.setTotal(requests.size());
+            summary.setFailed(failed.get());
+            summary.setSucceeded(requests.size() - failed.get());
+            summary.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            summary.setSumDurationMs(sumDurationMs.get());
+            send(summary);
+            if (!cancelled) {
+                emitter.complete();
+            }
+            log.info("批量代理完成: {} 个请求, 失败 {}, 总耗时 {}ms, 请求耗时之和 {}ms",
+                summary.getTotal(), summary.getFailed(), summary.getElapsedMs(), summary.getSumDurationMs());
+        }
+
+        /**
+         * 推送一条结果；客户端已断开时取消剩余请求
+         */
+        private void send(Object event) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                String json = jsonWriter.writeValueAsString(event);
+                if (sse) {
+                    String name = event instanceof ProxyBatchSummary ? "done" : "result";
+                    emitter.send(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON));
+                } else {
+                    emitter.send(json + "\n", NDJSON);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("批量代理结果序列化失败: {}", e.getMessage());
+            } catch (IOException | IllegalStateException e) {
+                log.warn("批量代理客户端已断开，取消剩余请求: {}", e.getMessage());
+                cancel();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.mock.service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 透传代理服务
+ * <p>
+ * 把客户端请求原样转发到目标地址，并把上游响应的状态码、响应头和响应体直接流式写回客户端：
+ * 请求体和响应体都通过固定大小的缓冲区边读边写，不转换为字符串、不包装为 Result，
+ * 二进制内容和压缩内容（Content-Encoding）按原始字节转发。
+ * 响应体在上游暂时没有更多数据时立即 flush，SSE 等推送类接口也可以透传。
+ * </p>
+ * <p>
+ * 请求体和响应体分别受 mock.proxy.passthrough.max-request-bytes / max-response-bytes 限制：
+ * 声明的 Content-Length 超出上限时直接返回 413 / 502；分块传输的内容在转发过程中超出上限时中止连接。
+ * </p>
+ * <p>
+ * 逐跳头（Connection、Transfer-Encoding 等）和 Host 不转发；上游的 CORS 响应头不转发，由本服务统一添加。
+ * </p>
+ * <p>
+ * 指标：mock.proxy.passthrough.bytes{direction=request|response}：每次透传的请求体和响应体字节数。
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProxyPassthroughService {
+
+    /**
+     * 指定目标地址的查询参数
+     */
+    private static final String URL_PARAM = "url";
+
+    /**
+     * 不转发的请求头和响应头（小写）
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+        "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "proxy-connection",
+        "te", "trailer", "transfer-encoding", "upgrade", "host");
+
+    private static final String CORS_HEADER_PREFIX = "access-control-";
+
+    private final RestTemplate restTemplate;
+
+    private final long maxRequestBytes;
+
+    private final long maxResponseBytes;
+
+    private final int bufferSize;
+
+    private final DistributionSummary requestBytes;
+
+    private final DistributionSummary responseBytes;
+
+    public ProxyPassthroughService(@Qualifier("passthroughRestTemplate") RestTemplate restTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${mock.proxy.passthrough.max-request-bytes:52428800}") long maxRequestBytes,
+                                   @Value("${mock.proxy.passthrough.max-response-bytes:104857600}") long maxResponseBytes,
+                                   @Value("${mock.proxy.passthrough.buffer-size:8192}") int bufferSize) {
+        this.restTemplate = restTemplate;
+        this.maxRequestBytes = maxRequestBytes;
+        this.maxResponseBytes = maxResponseBytes;
+        this.bufferSize = bufferSize;
+        this.requestBytes = bytesSummary(meterRegistry, "request");
+        this.responseBytes = bytesSummary(meterRegistry, "response");
+    }
+
+    /**
+     * 透传一次请求
+     * <p>
+     * 目标地址来自查询参数 url（需 URL 编码），其余请求内容（方法、请求头、请求体）原样转发。
+     * 目标地址从原始查询字符串中解析，不调用 {@link HttpServletRequest#getParameter}，避免表单请求体被提前读取。
+     * </p>
+     *
+     * @param request 客户端请求
+     * @param response 客户端响应，上游响应直接写入
+     */
+    public void forward(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        URI target;
+        try {
+            target = targetUri(request);
+        } catch (IllegalArgumentException e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "目标地址无效: " + e.getMessage());
+            return;
+        }
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "请求体超过上限 " + maxRequestBytes + " 字节");
+            return;
+        }
+
+        log.info("透传代理: {} {}", request.getMethod(), target);
+        try {
+            restTemplate.execute(target, HttpMethod.valueOf(request.getMethod()),
+                upstream -> writeRequest(request, upstream),
+                upstream -> {
+                    copyResponse(upstream, response);
+                    return null;
+                });
+        } catch (ResourceAccessException e) {
+            Throwable cause = e.getCause();
+            if (response.isCommitted()) {
+                // 响应头已发出，只能中止连接，让客户端感知到响应不完整
+                log.warn("透传代理中止: {} {}, 错误: {}", request.getMethod(), target, e.getMessage());
+                throw e;
+            }
+            if (cause instanceof LimitExceededException limitExceeded) {
+                writeError(response, limitExceeded.status, cause.getMessage());
+            } else if (cause instanceof SocketTimeoutException) {
+                writeError(response, HttpServletResponse.SC_GATEWAY_TIMEOUT, "上游响应超时: " + cause.getMessage());
+            } else {
+                log.error("透传代理失败: {} {}, 错误: {}", request.getMethod(), target, e.getMessage());
+                writeError(response, HttpServletResponse.SC_BAD_GATEWAY, "上游请求失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从原始查询字符串解析目标地址，只允许 http/https
+     */
+    private URI targetUri(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String url = query != null
+            ? UriComponentsBuilder.fromUriString("?" + query).build().getQueryParams().getFirst(URL_PARAM)
+            : null;
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("缺少查询参数 " + URL_PARAM);
+        }
+        URI uri = URI.create(UriUtils.decode(url, StandardCharsets.UTF_8));
+        if (uri.getHost() == null
+            || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            throw new IllegalArgumentException("只支持 http/https 绝对地址: " + url);
+        }
+        return uri;
+    }
+
+    /**
+     * 转发请求头，并把请求体流式写入上游请求
+     */
+    private void writeRequest(HttpServletRequest request, ClientHttpRequest upstream) throws IOException {
+        HttpHeaders headers = upstream.getHeaders();
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        boolean hasBody = request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+        if (!hasBody) {
+            return;
+        }
+        InputStream in = request.getInputStream();
+        if (upstream instanceof StreamingHttpOutputMessage streaming) {
+            // 由 HTTP 客户端在发送时回调写出，请求体不在内存中缓冲
+            streaming.setBody(out -> requestBytes.record(copy(in, out, maxRequestBytes, Body.REQUEST, false)));
+        } else {
+            requestBytes.record(copy(in, upstream.getBody(), maxRequestBytes, Body.REQUEST, false));
+        }
+    }
+
+    /**
+     * 把上游响应的状态码、响应头和响应体写回客户端
+     */
+    private void copyResponse(ClientHttpResponse upstream, HttpServletResponse response) throws IOException {
+        HttpHeaders headers = upstream.getHeaders();
+        if (headers.getContentLength() > maxResponseBytes) {
+            writeError(response, HttpServletResponse.SC_BAD_GATEWAY, "上游响应体超过上限 " + maxResponseBytes + " 字节");
+            return;
+        }
+        response.setStatus(upstream.getStatusCode().value());
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!HOP_BY_HOP_HEADERS.contains(lower) && !lower.startsWith(CORS_HEADER_PREFIX)) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        try (InputStream in = upstream.getBody()) {
+            responseBytes.record(copy(in, response.getOutputStream(), maxResponseBytes, Body.RESPONSE, true));
+        }
+    }
+
+    /**
+     * 通过固定大小的缓冲区复制数据
+     *
+     * @param limit 最多复制的字节数，超出时抛出 {@link LimitExceededException}
+     * @param body 复制的内容，决定超限时的状态码和错误信息
+     * @param flushWhenIdle 输入暂时没有更多数据时是否立即 flush 输出
+     * @return 复制的字节数
+     */
+    private long copy(InputStream in, OutputStream out, long limit, Body body, boolean flushWhenIdle)
+        throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                throw new LimitExceededException(body.limitStatus, body.label + "超过上限 " + limit + " 字节");
+            }
+            out.write(buffer, 0, read);
+            if (flushWhenIdle && in.available() == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return total;
+    }
+
+    /**
+     * 返回错误响应
+     * <p>
+     * 上游响应的状态码和响应头可能已经写入（但尚未提交），先清空响应再写错误，只保留本服务添加的 CORS 响应头；
+     * copyResponse 可能已经取得输出流，错误内容同样通过输出流写出，不能再调用 getWriter()。
+     * </p>
+     */
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        Map<String, List<String>> corsHeaders = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (name.toLowerCase(Locale.ROOT).startsWith(CORS_HEADER_PREFIX)) {
+                corsHeaders.put(name, List.copyOf(response.getHeaders(name)));
+            }
+        }
+        response.reset();
+        corsHeaders.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+
+        byte[] body = ("{\"error\": \"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static DistributionSummary bytesSummary(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("mock.proxy.passthrough.bytes")
+            .description("透传代理转发的请求体/响应体字节数")
+            .baseUnit("bytes")
+            .tag("direction", direction)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 透传的内容
+     */
+    private enum Body {
+
+        REQUEST("请求体", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE),
+
+        RESPONSE("上游响应体", HttpServletResponse.SC_BAD_GATEWAY);
+
+        private final String label;
+
+        /**
+         * 超过大小上限时的状态码：请求体超限为 413，响应体超限为 502
+         */
+        private final int limitStatus;
+
+        Body(String label, int limitStatus) {
+            this.label = label;
+            this.limitStatus = limitStatus;
+        }
+    }
+
+    /**
+     * 请求体或响应体超过大小上限
+     */
+    private static final class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 尚未开始返回上游响应时使用的状态码：请求体超限为 413，响应体超限为 502
+         */
+        private final int status;
+
+        private LimitExceededException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.mock.service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mock.service.dto.MockConfigRequest;
+import com.mock.service.dto.MockImportResult;
+import com.mock.service.dto.ProxyRecordingStatus;
+import com.mock.service.dto.ProxyResponse;
+import com.mock.service.entity.MockConfig;
+import com.mock.service.route.CompiledMock;
+import com.mock.service.route.CompiledResponse;
+import com.mock.service.route.MockRoute;
+import com.mock.service.route.PathTemplateRouter.RouteMatch;
+import com.mock.service.route.RequestBodyMatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 代理录制与回放服务
+ * <p>
+ * 工作模式（mock.proxy.recording.mode，运行时可通过 PUT /proxy/recording 切换）：
+ * <ul>
+ *   <li>OFF：不录制、不回放（默认）</li>
+ *   <li>RECORD：每次代理请求照常访问上游，并把上游响应录制为 Mock 配置</li>
+ *   <li>REPLAY：（方法、路径、请求体）命中录制的 Mock 配置时直接从内存路由表返回，不访问上游；
+ *       未命中时访问上游并录制，后续相同请求即可回放。手工创建的 Mock 配置不参与回放，
+ *       录制的配置按来源字段（{@link MockConfig#getSource()} 为 {@value #SOURCE}）识别，修改名称或描述不影响回放；
+ *       回放原样返回录制的响应体，不渲染模板、不选择变体</li>
+ * </ul>
+ * 录制的配置以方法、URL 路径和请求体（EXACT 匹配，JSON 规范化后比较）为键，不区分上游主机和查询参数，
+ * 同一个键只保留第一次录制的响应；上游返回 5xx 时不录制（避免回放一直返回临时错误），该键之后的成功响应仍会录制。
+ * </p>
+ * <p>
+ * 去重：按键记录最近录制响应的内容摘要（状态码、Content-Type、响应体的 SHA-256；请求体按与 EXACT 匹配相同的指纹计入键），相同内容的重复请求不再进入写入队列；
+ * 同一个键的响应内容发生变化时同样不覆盖已录制的配置，只计数。
+ * </p>
+ * <p>
+ * 写入：录制在请求线程中只做摘要计算和入队，由后台线程按批（mock.proxy.recording.batch-size）
+ * 通过 {@link MockImportService} 的增量导入通道以 JDBC batch 写入（不登记导入任务，
+ * 已有配置的冲突键在批次之间保留），数据库中已存在的键记为跳过；
+ * 每批写入后路由表刷新一次，新配置随即可以回放。队列满时丢弃新录制的请求。
+ * </p>
+ * <p>
+ * 指标：mock.proxy.recording{result=captured|deduplicated|changed|dropped|replayed}、
+ * mock.proxy.recording.queue.size
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProxyRecordingService {
+
+    /**
+     * 工作模式
+     */
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    /**
+     * 标明响应来自录制的 Mock 的响应头，值为 Mock 配置 ID
+     */
+    public static final String REPLAY_HEADER = "X-Proxy-Replay";
+
+    /**
+     * 导入来源：写入录制配置的 source 字段（回放据此识别录制的配置），也是录制写入后路由表刷新事件的原因
+     */
+    private static final String SOURCE = "proxy-recording";
+
+    private static final String NAME_PREFIX = "[录制] ";
+
+    /**
+     * 录制配置的描述前缀（只用于展示，回放按 source 字段识别录制的配置）
+     */
+    private static final String DESCRIPTION_PREFIX = "代理录制: ";
+
+    private static final int MAX_NAME_LENGTH = 200;
+
+    private static final int MAX_PATH_LENGTH = 500;
+
+    private static final int MAX_CONTENT_TYPE_LENGTH = 100;
+
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private final MockRouteService mockRouteService;
+
+    /**
+     * 录制配置的写入通道（不登记导入任务，冲突键集合在批次之间保留）
+     */
+    private final MockImportService.Appender importAppender;
+
+    /**
+     * 请求体不是字符串时按单行 JSON 序列化（全局配置开启了缩进）
+     */
+    private final ObjectWriter jsonWriter;
+
+    private final BlockingQueue<MockConfigRequest> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalMs;
+
+    private final int maxBodyChars;
+
+    private final int maxKeys;
+
+    private final boolean virtualThreads;
+
+    private volatile Mode mode;
+
+    private volatile boolean running = true;
+
+    private Thread writerThread;
+
+    /**
+     * 键 -> 最近录制响应的内容摘要（LRU，最多 maxKeys 个）
+     */
+    private final LinkedHashMap<String, String> recorded;
+
+    private final AtomicLong imported = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final Counter capturedCounter;
+
+    private final Counter deduplicatedCounter;
+
+    private final Counter changedCounter;
+
+    private final Counter droppedCounter;
+
+    private final Counter replayedCounter;
+
+    public ProxyRecordingService(MockRouteService mockRouteService,
+                                 MockImportService mockImportService,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${mock.proxy.recording.mode:OFF}") Mode mode,
+                                 @Value("${mock.proxy.recording.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${mock.proxy.recording.batch-size:200}") int batchSize,
+                                 @Value("${mock.proxy.recording.flush-interval-ms:1000}") long flushIntervalMs,
+                                 @Value("${mock.proxy.recording.max-body-chars:1048576}") int maxBodyChars,
+                                 @Value("${mock.proxy.recording.max-keys:10000}") int maxKeys,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mockRouteService = mockRouteService;
+        this.importAppender = mockImportService.openAppender(SOURCE);
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.mode = mode;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBodyChars = maxBodyChars;
+        this.maxKeys = maxKeys;
+        this.virtualThreads = virtualThreads;
+        this.recorded = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > ProxyRecordingService.this.maxKeys;
+            }
+        };
+
+        this.capturedCounter = resultCounter(meterRegistry, "captured");
+        this.deduplicatedCounter = resultCounter(meterRegistry, "deduplicated");
+        this.changedCounter = resultCounter(meterRegistry, "changed");
+        this.droppedCounter = resultCounter(meterRegistry, "dropped");
+        this.replayedCounter = resultCounter(meterRegistry, "replayed");
+        Gauge.builder("mock.proxy.recording.queue.size", queue, BlockingQueue::size)
+            .description("等待写入的录制 Mock 配置数量")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writerThread = builder.name("proxy-recording-writer").start(this::runLoop);
+        log.info("代理录制: mode={}, batchSize={}, flushInterval={}ms", mode, batchSize, flushIntervalMs);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        log.info("代理录制模式切换: {} -> {}", this.mode, mode);
+        this.mode = mode;
+    }
+
+    /**
+     * 回放模式下查找录制的 Mock（纯内存查找），只返回本服务录制的配置
+     *
+     * @param method 请求方法
+     * @param url 完整请求地址
+     * @param body 请求体（字符串或可序列化为 JSON 的对象），可为 null
+     * @return Mock 响应；不在回放模式或未命中时返回 null
+     */
+    public ProxyResponse replay(HttpMethod method, String url, Object body) {
+        if (mode != Mode.REPLAY) {
+            return null;
+        }
+        String path = pathOf(url);
+        RouteMatch<MockRoute> match = path != null ? mockRouteService.findRoute(path, method.name()) : null;
+        if (match == null) {
+            return null;
+        }
+        CompiledMock mock = match.value().select(bodyString(body));
+        // 只回放录制的普通响应；手工配置的 Mock、事件流和 Protobuf 等响应仍访问上游
+        if (mock == null || !isRecorded(mock.getConfig())
+            || !"JSON".equalsIgnoreCase(mock.getConfig().getResponseType())) {
+            return null;
+        }
+        CompiledResponse response = mock.getDefaultResponse();
+
+        ProxyResponse proxyResponse = new ProxyResponse();
+        proxyResponse.setStatus(response.getStatusCode());
+        proxyResponse.setStatusText(HttpStatusCode.valueOf(response.getStatusCode()).toString());
+        Map<String, String> headers = new HashMap<>();
+        if (mock.getConfig().getContentType() != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, mock.getConfig().getContentType());
+        }
+        headers.put(REPLAY_HEADER, String.valueOf(mock.getConfig().getId()));
+        proxyResponse.setHeaders(headers);
+        proxyResponse.setData(response.getResponseBody());
+        replayedCounter.increment();
+        log.info("代理回放: {} {} -> Mock {}", method, url, mock.getConfig().getId());
+        return proxyResponse;
+    }
+
+    /**
+     * 录制一次上游响应（只计算摘要并入队，不访问数据库）
+     *
+     * @param method 请求方法
+     * @param url 完整请求地址
+     * @param body 请求体（字符串或可序列化为 JSON 的对象），可为 null
+     * @param response 上游响应
+     */
+    public void capture(HttpMethod method, String url, Object body, ResponseEntity<String> response) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        int status = response.getStatusCode().value();
+        String responseBody = response.getBody();
+        // 上游 5xx 是临时故障，不录制，否则回放会一直返回该错误；之后成功的响应仍可录制
+        if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value() || status == HttpStatus.NOT_MODIFIED.value()
+            || (responseBody != null && responseBody.length() > maxBodyChars)) {
+            return;
+        }
+        String path = pathOf(url);
+        if (path == null || path.length() > MAX_PATH_LENGTH) {
+            return;
+        }
+        String requestBody = bodyString(body);
+        String contentType = contentTypeOf(response.getHeaders().getContentType());
+
+        String key = method.name() + ' ' + path + ' '
+            + (requestBody == null || requestBody.isBlank() ? "" : RequestBodyMatcher.fingerprint(requestBody));
+        String contentHash = sha256(status + "\n" + contentType + "\n" + (responseBody != null ? responseBody : ""));
+        String previous;
+        synchronized (recorded) {
+            previous = recorded.putIfAbsent(key, contentHash);
+        }
+        if (previous != null) {
+            (previous.equals(contentHash) ? deduplicatedCounter : changedCounter).increment();
+            return;
+        }
+
+        MockConfigRequest config = new MockConfigRequest();
+        config.setName(truncate(NAME_PREFIX + method.name() + " " + path, MAX_NAME_LENGTH));
+        config.setPath(path);
+        config.setMethod(method.name());
+        config.setStatusCode(status);
+        config.setContentType(contentType);
+        config.setRequestBody(requestBody == null || requestBody.isBlank() ? null : requestBody);
+        config.setResponseBody(responseBody);
+        config.setDescription(truncate(DESCRIPTION_PREFIX + url + "（" + LocalDateTime.now() + "）", MAX_DESCRIPTION_LENGTH));
+        if (!running || !queue.offer(config)) {
+            // 未写入的键允许之后重新录制
+            synchronized (recorded) {
+                recorded.remove(key, contentHash);
+            }
+            droppedCounter.increment();
+            return;
+        }
+        capturedCounter.increment();
+    }
+
+    /**
+     * 录制状态
+     */
+    public ProxyRecordingStatus getStatus() {
+        ProxyRecordingStatus status = new ProxyRecordingStatus();
+        status.setMode(mode.name());
+        status.setPending(queue.size());
+        status.setCaptured((long) capturedCounter.count());
+        status.setDeduplicated((long) deduplicatedCounter.count());
+        status.setChanged((long) changedCounter.count());
+        status.setDropped((long) droppedCounter.count());
+        status.setReplayed((long) replayedCounter.count());
+        status.setImported(imported.get());
+        status.setSkipped(skipped.get());
+        return status;
+    }
+
+    /**
+     * 停止录制，写完队列中剩余的配置后退出
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(flushIntervalMs + 10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("代理录制写入线程关闭超时，{} 条录制未写入", queue.size());
+        }
+    }
+
+    private void runLoop() {
+        List<MockConfigRequest> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                MockConfigRequest first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                MockImportResult result = importAppender.append(batch);
+                imported.addAndGet(result.getImported());
+                skipped.addAndGet(result.getSkipped());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("写入录制的 Mock 配置失败: {} 条, 错误: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static boolean isRecorded(MockConfig config) {
+        return SOURCE.equals(config.getSource());
+    }
+
+    private String bodyString(Object body) {
+        if (body == null || body instanceof String) {
+            return (String) body;
+        }
+        try {
+            return jsonWriter.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            return body.toString();
+        }
+    }
+
+    /**
+     * URL 路径（不含主机和查询参数），地址无效时返回 null
+     */
+    private static String pathOf(String url) {
+        try {
+            String path = URI.create(url).getRawPath();
+            return path == null || path.isEmpty() ? "/" : path;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String contentTypeOf(MediaType mediaType) {
+        if (mediaType == null) {
+            return MediaType.APPLICATION_JSON_VALUE;
+        }
+        String value = mediaType.toString();
+        return value.length() <= MAX_CONTENT_TYPE_LENGTH ? value : mediaType.getType() + "/" + mediaType.getSubtype();
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mock.proxy.recording")
+            .description("代理录制与回放次数")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
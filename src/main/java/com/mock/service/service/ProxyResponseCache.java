@@ -0,0 +1,588 @@
+package com.mock.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 代理响应缓存
+ * <p>
+ * 位于 ApiProxyController 的 GET 请求和上游之间（mock.proxy.cache.enabled 开启时生效），按 HTTP 缓存语义工作：
+ * <ul>
+ *   <li>只缓存 200 响应；响应 Cache-Control 为 no-store、private 或 Vary: * 时不缓存</li>
+ *   <li>新鲜期取 s-maxage、max-age（扣除 Age）或 Expires - Date；新鲜期内直接返回缓存，不访问上游</li>
+ *   <li>过期（或 no-cache）且带 ETag / Last-Modified 的条目用 If-None-Match / If-Modified-Since 条件请求重新验证，
+ *       上游返回 304 时刷新新鲜期并返回缓存的响应体</li>
+ *   <li>请求 Cache-Control: no-cache 时强制重新验证，no-store 时绕过缓存</li>
+ *   <li>客户端自己的 If-None-Match / If-Modified-Since 不转发给上游（上游只会收到缓存条目的验证器），
+ *       由缓存的或上游返回的完整响应判断：验证器匹配时返回 304，否则返回完整响应</li>
+ * </ul>
+ * 缓存键为 URL 加请求头（不含缓存控制和条件请求头），不同认证信息的请求互不共享缓存。
+ * 相同缓存键的并发未命中或重新验证合并为一次上游调用（single-flight），其余请求等待并共用结果。
+ * </p>
+ * <p>
+ * 按估算的占用字节数做 LRU 淘汰（mock.proxy.cache.max-bytes）。
+ * 返回的响应带 X-Proxy-Cache 头：HIT、REVALIDATED、COLLAPSED、MISS 或 BYPASS。
+ * </p>
+ * <p>
+ * 指标：mock.proxy.cache{result=hit|revalidated|collapsed|miss|bypass}、mock.proxy.cache.hit.ratio、
+ * mock.proxy.cache.bytes.saved（未从上游传输的响应体字节数，按响应字符集编码后的长度计）、mock.proxy.cache.size、
+ * mock.proxy.cache.bytes。命中率只把共用了缓存结果（上游返回 304）的合并请求计为命中，共用上游完整响应的不算
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProxyResponseCache {
+
+    /**
+     * 标明缓存处理结果的响应头
+     */
+    public static final String CACHE_STATUS_HEADER = "X-Proxy-Cache";
+
+    /**
+     * 不参与缓存键的请求头（小写）
+     */
+    private static final Set<String> NON_KEY_HEADERS = Set.of(
+        "cache-control", "pragma", "if-none-match", "if-modified-since", "content-length");
+
+    /**
+     * 每个条目除响应体和响应头之外的估算开销（字节）
+     */
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final boolean enabled;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes;
+
+    /**
+     * 正在访问上游的请求，相同缓存键的并发请求等待同一个结果
+     */
+    private final Map<CacheKey, CompletableFuture<Fetched>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+
+    private final Counter revalidatedCounter;
+
+    private final Counter collapsedCounter;
+
+    private final Counter missCounter;
+
+    private final Counter bypassCounter;
+
+    /**
+     * 共用的结果来自缓存（重新验证）的合并请求数，计入命中率
+     */
+    private final LongAdder collapsedFromCache = new LongAdder();
+
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public ProxyResponseCache(MeterRegistry meterRegistry,
+                              @Value("${mock.proxy.cache.enabled:false}") boolean enabled,
+                              @Value("${mock.proxy.cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.hitCounter = resultCounter(meterRegistry, "hit");
+        this.revalidatedCounter = resultCounter(meterRegistry, "revalidated");
+        this.collapsedCounter = resultCounter(meterRegistry, "collapsed");
+        this.missCounter = resultCounter(meterRegistry, "miss");
+        this.bypassCounter = resultCounter(meterRegistry, "bypass");
+        Gauge.builder("mock.proxy.cache.hit.ratio", this, ProxyResponseCache::hitRatio)
+            .description("代理响应缓存命中率（命中、重新验证和共用了缓存结果的合并请求占全部请求的比例）")
+            .register(meterRegistry);
+        FunctionCounter.builder("mock.proxy.cache.bytes.saved", bytesSaved, LongAdder::sum)
+            .description("由代理响应缓存返回、未从上游传输的响应体字节数")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("mock.proxy.cache.size", this, ProxyResponseCache::size)
+            .description("代理响应缓存条目数")
+            .register(meterRegistry);
+        Gauge.builder("mock.proxy.cache.bytes", this, ProxyResponseCache::bytes)
+            .description("代理响应缓存估算占用字节数")
+            .register(meterRegistry);
+        log.info("代理响应缓存: enabled={}, maxBytes={}", enabled, maxBytes);
+    }
+
+    /**
+     * 是否启用缓存
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 通过缓存执行一次 GET 请求
+     *
+     * @param url 完整请求地址（包含查询参数）
+     * @param requestHeaders 请求头
+     * @param upstream 用给定请求头访问上游的函数（重新验证时请求头中带有条件请求头）
+     * @return 上游或缓存的响应，带 X-Proxy-Cache 头
+     */
+    public ResponseEntity<String> exchange(String url, HttpHeaders requestHeaders,
+                                           Function<HttpHeaders, ResponseEntity<String>> upstream) {
+        Directives requestDirectives = Directives.parse(requestHeaders.getCacheControl());
+        if (requestDirectives.noStore) {
+            bypassCounter.increment();
+            return withCacheStatus(upstream.apply(requestHeaders), "BYPASS");
+        }
+
+        CacheKey key = CacheKey.of(url, requestHeaders);
+        Entry entry = lookup(key);
+        if (entry != null && !requestDirectives.noCache && entry.isFresh(System.currentTimeMillis())) {
+            hitCounter.increment();
+            bytesSaved.add(entry.bodyBytes);
+            return conditionalResponse(entry.toResponse("HIT"), requestHeaders);
+        }
+
+        // 未命中或需要重新验证：相同缓存键的并发请求合并为一次上游调用
+        CompletableFuture<Fetched> mine = new CompletableFuture<>();
+        CompletableFuture<Fetched> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            Fetched shared = await(existing);
+            collapsedCounter.increment();
+            if (shared.fromCache) {
+                collapsedFromCache.increment();
+            }
+            bytesSaved.add(shared.bodyBytes());
+            return conditionalResponse(withCacheStatus(shared.response, "COLLAPSED"), requestHeaders);
+        }
+        try {
+            Fetched result = fetch(key, entry, requestHeaders, upstream);
+            mine.complete(result);
+            return conditionalResponse(result.response, requestHeaders);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 访问上游：有可重新验证的缓存条目时发送条件请求
+     * <p>
+     * 客户端的条件请求头不转发，上游只会对缓存条目的验证器返回 304，
+     * 返回的总是完整响应（合并等待的请求也可以共用），再由各请求按自己的条件请求头决定是否返回 304。
+     * </p>
+     */
+    private Fetched fetch(CacheKey key, Entry entry, HttpHeaders requestHeaders,
+                          Function<HttpHeaders, ResponseEntity<String>> upstream) {
+        boolean conditional = entry != null && entry.hasValidator();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(requestHeaders);
+        headers.remove(HttpHeaders.IF_NONE_MATCH);
+        headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        if (conditional) {
+            if (entry.etag != null) {
+                headers.setIfNoneMatch(entry.etag);
+            }
+            if (entry.lastModified >= 0) {
+                headers.setIfModifiedSince(entry.lastModified);
+            }
+        }
+
+        ResponseEntity<String> response = upstream.apply(headers);
+        long now = System.currentTimeMillis();
+        if (conditional && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            Entry refreshed = entry.revalidated(response.getHeaders(), now);
+            store(key, refreshed);
+            revalidatedCounter.increment();
+            bytesSaved.add(entry.bodyBytes);
+            return new Fetched(refreshed.toResponse("REVALIDATED"), true, entry.bodyBytes);
+        }
+
+        missCounter.increment();
+        Entry created = Entry.from(response.getStatusCode(), response.getHeaders(), response.getBody(), now);
+        if (created != null) {
+            store(key, created);
+        } else if (entry != null && response.getStatusCode().value() != HttpStatus.NOT_MODIFIED.value()) {
+            remove(key);
+        }
+        return new Fetched(withCacheStatus(response, "MISS"), false, created != null ? created.bodyBytes : -1);
+    }
+
+    /**
+     * 按客户端的条件请求头回答：完整的 200 响应满足 If-None-Match（优先）或 If-Modified-Since 时改为 304
+     */
+    private static ResponseEntity<String> conditionalResponse(ResponseEntity<String> response,
+                                                              HttpHeaders requestHeaders) {
+        if (response.getStatusCode().value() != HttpStatus.OK.value()) {
+            return response;
+        }
+        HttpHeaders headers = response.getHeaders();
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        boolean notModified;
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = headers.getETag();
+            notModified = etag != null && ifNoneMatch.stream()
+                .anyMatch(tag -> "*".equals(tag) || opaqueTag(tag).equals(opaqueTag(etag)));
+        } else {
+            long ifModifiedSince = requestHeaders.getIfModifiedSince();
+            long lastModified = headers.getLastModified();
+            notModified = ifModifiedSince >= 0 && lastModified >= 0 && lastModified <= ifModifiedSince;
+        }
+        if (!notModified) {
+            return response;
+        }
+        HttpHeaders notModifiedHeaders = new HttpHeaders();
+        notModifiedHeaders.putAll(headers);
+        notModifiedHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+        return new ResponseEntity<>(notModifiedHeaders, HttpStatus.NOT_MODIFIED);
+    }
+
+    /**
+     * 弱比较用的实体标签：去掉 W/ 前缀
+     */
+    private static String opaqueTag(String tag) {
+        String trimmed = tag.trim();
+        return trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        log.info("代理响应缓存已清空");
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    private double hitRatio() {
+        double served = hitCounter.count() + revalidatedCounter.count() + collapsedFromCache.sum();
+        double total = served + missCounter.count() + bypassCounter.count();
+        return total == 0 ? 0 : served / total;
+    }
+
+    private synchronized Entry lookup(CacheKey key) {
+        return entries.get(key);
+    }
+
+    private synchronized void store(CacheKey key, Entry entry) {
+        if (entry.weight > maxBytes) {
+            remove(key);
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        totalBytes += entry.weight - (previous != null ? previous.weight : 0);
+        trim();
+    }
+
+    private synchronized void remove(CacheKey key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.weight;
+        }
+    }
+
+    /**
+     * 超出字节上限时按最近最少使用顺序淘汰
+     */
+    private void trim() {
+        Iterator<Map.Entry<CacheKey, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().getValue().weight;
+            it.remove();
+        }
+    }
+
+    private static Fetched await(CompletableFuture<Fetched> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 响应体的字节数：按 Content-Type 声明的字符集编码；未声明时与 StringHttpMessageConverter 解码时一致，
+     * JSON 为 UTF-8，其他为 ISO-8859-1
+     */
+    private static long encodedLength(HttpHeaders headers, String body) {
+        if (body == null) {
+            return 0;
+        }
+        Charset charset = StandardCharsets.ISO_8859_1;
+        try {
+            MediaType contentType = headers.getContentType();
+            if (contentType != null && contentType.getCharset() != null) {
+                charset = contentType.getCharset();
+            } else if (contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || contentType.getSubtype().endsWith("+json"))) {
+                charset = StandardCharsets.UTF_8;
+            }
+        } catch (InvalidMediaTypeException e) {
+            charset = StandardCharsets.UTF_8;
+        }
+        return body.getBytes(charset).length;
+    }
+
+    private static ResponseEntity<String> withCacheStatus(ResponseEntity<String> response, String status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.set(CACHE_STATUS_HEADER, status);
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mock.proxy.cache")
+            .description("代理响应缓存请求次数")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 缓存键：URL 和排序后的请求头
+     */
+    private record CacheKey(String url, String headers) {
+
+        private static CacheKey of(String url, HttpHeaders requestHeaders) {
+            TreeMap<String, List<String>> sorted = new TreeMap<>();
+            requestHeaders.forEach((name, values) -> {
+                String lower = name.toLowerCase(Locale.ROOT);
+                if (!NON_KEY_HEADERS.contains(lower)) {
+                    sorted.put(lower, values);
+                }
+            });
+            return new CacheKey(url, sorted.toString());
+        }
+    }
+
+    /**
+     * Cache-Control 指令
+     */
+    private static final class Directives {
+
+        private boolean noStore;
+
+        private boolean noCache;
+
+        private boolean isPrivate;
+
+        private long maxAge = -1;
+
+        private long sMaxAge = -1;
+
+        private static Directives parse(String cacheControl) {
+            Directives directives = new Directives();
+            if (cacheControl == null) {
+                return directives;
+            }
+            for (String token : cacheControl.split(",")) {
+                String directive = token.trim().toLowerCase(Locale.ROOT);
+                int eq = directive.indexOf('=');
+                String name = eq < 0 ? directive : directive.substring(0, eq).trim();
+                String value = eq < 0 ? null : directive.substring(eq + 1).trim().replace("\"", "");
+                switch (name) {
+                    case "no-store" -> directives.noStore = true;
+                    case "no-cache" -> directives.noCache = true;
+                    case "private" -> directives.isPrivate = true;
+                    case "max-age" -> directives.maxAge = seconds(value);
+                    case "s-maxage" -> directives.sMaxAge = seconds(value);
+                    default -> {
+                    }
+                }
+            }
+            return directives;
+        }
+
+        private static long seconds(String value) {
+            try {
+                return value != null ? Long.parseLong(value) : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 一次上游访问的结果，合并等待的请求共用
+     */
+    private static final class Fetched {
+
+        private final ResponseEntity<String> response;
+
+        /**
+         * 结果来自缓存（上游返回 304，响应体取自缓存条目）
+         */
+        private final boolean fromCache;
+
+        /**
+         * 响应体编码后的字节数，小于 0 表示尚未计算（只有合并等待的请求需要）
+         */
+        private volatile long bodyBytes;
+
+        private Fetched(ResponseEntity<String> response, boolean fromCache, long bodyBytes) {
+            this.response = response;
+            this.fromCache = fromCache;
+            this.bodyBytes = bodyBytes;
+        }
+
+        private long bodyBytes() {
+            long bytes = bodyBytes;
+            if (bytes < 0) {
+                bytes = encodedLength(response.getHeaders(), response.getBody());
+                bodyBytes = bytes;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * 缓存条目（不可变，重新验证时替换为新条目）
+     */
+    private static final class Entry {
+
+        private final HttpStatusCode status;
+
+        private final HttpHeaders headers;
+
+        private final String body;
+
+        private final String etag;
+
+        private final long lastModified;
+
+        /**
+         * 新鲜期截止时间（毫秒），之后需要重新验证
+         */
+        private final long freshUntil;
+
+        private final long weight;
+
+        /**
+         * 响应体编码后的字节数
+         */
+        private final long bodyBytes;
+
+        private Entry(HttpStatusCode status, HttpHeaders headers, String body, long freshUntil) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.etag = headers.getETag();
+            this.lastModified = headers.getLastModified();
+            this.freshUntil = freshUntil;
+            long headerChars = headers.entrySet().stream()
+                .mapToLong(e -> e.getKey().length() + e.getValue().stream().mapToLong(String::length).sum())
+                .sum();
+            this.weight = ENTRY_OVERHEAD + 2 * (headerChars + (body != null ? body.length() : 0));
+            this.bodyBytes = encodedLength(headers, body);
+        }
+
+        /**
+         * 按响应创建缓存条目
+         *
+         * @return 不可缓存时返回 null
+         */
+        private static Entry from(HttpStatusCode status, HttpHeaders responseHeaders, String body, long now) {
+            if (status.value() != HttpStatus.OK.value()) {
+                return null;
+            }
+            Directives directives = Directives.parse(responseHeaders.getCacheControl());
+            if (directives.noStore || directives.isPrivate || responseHeaders.getVary().contains("*")) {
+                return null;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(responseHeaders);
+            headers.remove(CACHE_STATUS_HEADER);
+            long freshUntil = now + freshnessMillis(directives, headers, now);
+            Entry entry = new Entry(status, headers, body, freshUntil);
+            // 没有新鲜期也无法重新验证的响应缓存了也用不上
+            return entry.isFresh(now) || entry.hasValidator() ? entry : null;
+        }
+
+        /**
+         * 新鲜期（毫秒）：s-maxage 优先于 max-age，其次为 Expires - Date；no-cache 时为 0
+         */
+        private static long freshnessMillis(Directives directives, HttpHeaders headers, long now) {
+            if (directives.noCache) {
+                return 0;
+            }
+            long age = 0;
+            String ageHeader = headers.getFirst(HttpHeaders.AGE);
+            if (ageHeader != null) {
+                age = Math.max(0, Directives.seconds(ageHeader.trim())) * 1000;
+            }
+            if (directives.sMaxAge >= 0) {
+                return Math.max(0, directives.sMaxAge * 1000 - age);
+            }
+            if (directives.maxAge >= 0) {
+                return Math.max(0, directives.maxAge * 1000 - age);
+            }
+            long expires = headers.getExpires();
+            if (expires >= 0) {
+                long date = headers.getDate() >= 0 ? headers.getDate() : now;
+                return Math.max(0, expires - date);
+            }
+            return 0;
+        }
+
+        /**
+         * 上游返回 304 后，用 304 响应中的头更新条目并重新计算新鲜期
+         */
+        private Entry revalidated(HttpHeaders notModifiedHeaders, long now) {
+            HttpHeaders merged = new HttpHeaders();
+            merged.putAll(headers);
+            notModifiedHeaders.forEach((name, values) -> {
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    merged.put(name, values);
+                }
+            });
+            Directives directives = Directives.parse(merged.getCacheControl());
+            return new Entry(status, merged, body, now + freshnessMillis(directives, merged, now));
+        }
+
+        private boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        private boolean hasValidator() {
+            return etag != null || lastModified >= 0;
+        }
+
+        private ResponseEntity<String> toResponse(String cacheStatus) {
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(headers);
+            copy.set(CACHE_STATUS_HEADER, cacheStatus);
+            return new ResponseEntity<>(body, copy, status);
+        }
+    }
+}
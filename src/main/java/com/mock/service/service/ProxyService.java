@@ -0,0 +1,135 @@
+package com.mock.service.service;
+
+import com.mock.service.dto.ProxyRequest;
+import com.mock.service.dto.ProxyResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代理请求服务
+ * <p>
+ * 执行一次 {@link ProxyRequest}：拼接查询参数、转发请求头和请求体，把上游响应转换为 {@link ProxyResponse}。
+ * 单个代理请求（/proxy）和批量代理请求（/proxy/batch）共用。
+ * 启用 {@link ProxyResponseCache} 时，不带请求体的 GET 请求经过响应缓存；
+ * 上游响应交给 {@link ProxyRecordingService} 录制，回放模式下命中录制的 Mock 时不访问上游。
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProxyService {
+
+    private final RestTemplate restTemplate;
+
+    private final ProxyResponseCache responseCache;
+
+    private final ProxyRecordingService recordingService;
+
+    public ProxyService(RestTemplate restTemplate, ProxyResponseCache responseCache,
+                        ProxyRecordingService recordingService) {
+        this.restTemplate = restTemplate;
+        this.responseCache = responseCache;
+        this.recordingService = recordingService;
+    }
+
+    /**
+     * 执行代理请求
+     *
+     * @param request 代理请求
+     * @return 上游响应；请求失败时返回状态码 500 和错误信息，不抛出异常
+     */
+    public ProxyResponse execute(ProxyRequest request) {
+        log.info("代理请求: {} {}", request.getMethod(), request.getUrl());
+
+        try {
+            // 构建 URL（包含 query 参数）
+            UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(request.getUrl());
+            if (request.getParams() != null) {
+                request.getParams().forEach(uriBuilder::queryParam);
+            }
+            String finalUrl = uriBuilder.toUriString();
+
+            // 构建请求头
+            HttpHeaders headers = new HttpHeaders();
+            if (request.getHeaders() != null) {
+                request.getHeaders().forEach(headers::add);
+            }
+
+            // 设置 Content-Type
+            if (request.getBody() != null) {
+                if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                }
+            }
+
+            // 构建请求实体
+            HttpEntity<Object> entity = new HttpEntity<>(request.getBody(), headers);
+            HttpMethod method = HttpMethod.valueOf(request.getMethod().toUpperCase());
+
+            // 回放模式：命中录制的 Mock 时直接返回
+            ProxyResponse replayed = recordingService.replay(method, finalUrl, request.getBody());
+            if (replayed != null) {
+                return replayed;
+            }
+
+            // 发送请求（启用缓存时，不带请求体的 GET 请求经过响应缓存）
+            ResponseEntity<String> response;
+            if (method == HttpMethod.GET && request.getBody() == null && responseCache.isEnabled()) {
+                response = responseCache.exchange(finalUrl, headers, requestHeaders -> restTemplate.exchange(
+                        finalUrl,
+                        method,
+                        new HttpEntity<>(requestHeaders),
+                        String.class
+                ));
+            } else {
+                response = restTemplate.exchange(
+                        finalUrl,
+                        method,
+                        entity,
+                        String.class
+                );
+            }
+            recordingService.capture(method, finalUrl, request.getBody(), response);
+
+            // 构建响应
+            ProxyResponse proxyResponse = new ProxyResponse();
+            proxyResponse.setStatus(response.getStatusCode().value());
+            proxyResponse.setStatusText(response.getStatusCode().toString());
+
+            // 转换响应头
+            Map<String, String> responseHeaders = new HashMap<>();
+            response.getHeaders().forEach((key, value) -> {
+                responseHeaders.put(key, String.join(", ", value));
+            });
+            proxyResponse.setHeaders(responseHeaders);
+            proxyResponse.setData(response.getBody());
+
+            log.info("代理请求成功: {} {}", response.getStatusCode(), finalUrl);
+            return proxyResponse;
+
+        } catch (Exception e) {
+            log.error("代理请求失败: {}", e.getMessage(), e);
+
+            // 构建错误响应
+            ProxyResponse errorResponse = new ProxyResponse();
+            errorResponse.setStatus(500);
+            errorResponse.setStatusText("Internal Server Error");
+            errorResponse.setHeaders(new HashMap<>());
+            errorResponse.setData(Map.of(
+                    "error", e.getClass().getSimpleName(),
+                    "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
+            ));
+
+            return errorResponse;
+        }
+    }
+}
@@ -6,11 +6,21 @@ import com.mock.service.entity.TestExecutionHistory;
 import com.mock.service.repository.TestExecutionHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 测试执行历史服务
@@ -20,8 +30,22 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class TestExecutionHistoryService {
 
+    private static final String INSERT_SQL = "INSERT INTO test_execution_history (scenario_id, scenario_name, "
+        + "environment_id, environment_name, success, total_steps, passed_steps, failed_steps, duration, "
+        + "result_detail, error_message, executed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] INSERT_ARG_TYPES = {Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.VARCHAR,
+        Types.BOOLEAN, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+        Types.TIMESTAMP};
+
+    /** 与 {@link TestExecutionHistory} 的列长度一致 */
+    private static final int MAX_SCENARIO_NAME_LENGTH = 200;
+    private static final int MAX_ENVIRONMENT_NAME_LENGTH = 100;
+
     private final TestExecutionHistoryRepository historyRepository;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * 保存测试执行历史
@@ -52,6 +76,68 @@ public class TestExecutionHistoryService {
         }
     }
 
+    /**
+     * 批量保存测试执行历史（一个事务内一次 JDBC batch 插入）
+     * <p>
+     * 用于测试套件并行执行多个场景后汇总写入，避免每个场景单独提交事务。
+     * 场景名称、环境名称超过列长度时截断；整批写入失败时（事务已回滚）改为逐行写入，跳过写不进去的行，
+     * 一行坏数据不会让同批其他场景的历史丢失。
+     * </p>
+     *
+     * @return 写入的行数
+     */
+    public int saveHistories(List<TestExecutionResult> results, Long environmentId, String environmentName) {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(results.size());
+        for (TestExecutionResult result : results) {
+            String resultDetail;
+            try {
+                resultDetail = objectMapper.writeValueAsString(result);
+            } catch (Exception e) {
+                log.warn("序列化测试执行结果失败: scenarioId={}, 错误: {}", result.getScenarioId(), e.getMessage());
+                resultDetail = null;
+            }
+            rows.add(new Object[]{
+                result.getScenarioId(),
+                truncate(result.getScenarioName(), MAX_SCENARIO_NAME_LENGTH),
+                environmentId,
+                truncate(environmentName, MAX_ENVIRONMENT_NAME_LENGTH),
+                Boolean.TRUE.equals(result.getSuccess()),
+                result.getTotalSteps(),
+                result.getPassedSteps(),
+                result.getFailedSteps(),
+                result.getDuration(),
+                resultDetail,
+                result.getErrorMessage(),
+                now
+            });
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_ARG_TYPES));
+            return rows.size();
+        } catch (DataAccessException e) {
+            log.warn("批量保存测试执行历史失败，改为逐行写入: {} 条, 错误: {}", rows.size(), e.getMessage());
+        }
+        int saved = 0;
+        for (Object[] row : rows) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, row, INSERT_ARG_TYPES);
+                saved++;
+            } catch (DataAccessException e) {
+                log.error("保存测试执行历史失败: scenarioId={}, 错误: {}", row[0], e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
     /**
      * 分页查询所有历史记录
      */
@@ -5,10 +5,15 @@ import com.mock.service.dto.StepExecutionResult;
 import com.mock.service.dto.TestExecutionResult;
 import com.mock.service.entity.TestScenario;
 import com.mock.service.entity.TestStep;
+import com.mock.service.http.HostLimits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -16,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 测试执行服务类
@@ -44,6 +50,15 @@ import java.util.Map;
  *   <li>汇总执行结果并保存历史</li>
  * </ol>
  * </p>
+ * <p>
+ * 步骤在调用方的请求线程中顺序执行；开启 spring.threads.virtual.enabled 后该线程为虚拟线程，
+ * 步骤延迟和 HTTP 请求等待期间不占用平台线程。
+ * 多个场景的并行执行见 {@link TestSuiteService}，它通过 {@link #runScenario} 执行场景并批量保存历史。
+ * </p>
+ * <p>
+ * 指标：mock.test.step{method,status}（每个步骤的 HTTP 请求耗时）、
+ * mock.test.step.result{result=passed|failed}（步骤执行结果）
+ * </p>
  *
  * @author Mock Service Team
  * @version 1.0
@@ -72,6 +87,9 @@ public class TestExecutionService {
     /** JSON序列化/反序列化工具 */
     private final ObjectMapper objectMapper;
 
+    /** 指标注册表，用于记录步骤耗时 */
+    private final MeterRegistry meterRegistry;
+
     /**
      * 执行测试场景（不带环境变量）
      * <p>
@@ -104,6 +122,38 @@ public class TestExecutionService {
      * @return 测试执行结果，包含整体状态、步骤结果、耗时等信息
      */
     public TestExecutionResult executeScenario(Long scenarioId, Long environmentId) {
+        TestExecutionResult result = runScenario(scenarioId, environmentId, null);
+
+        // 保存执行历史
+        try {
+            String environmentName = null;
+            if (environmentId != null) {
+                com.mock.service.entity.Environment environment = environmentService.getEnvironmentById(environmentId);
+                if (environment != null) {
+                    environmentName = environment.getName();
+                }
+            }
+            historyService.saveHistory(result, environmentId, environmentName);
+        } catch (Exception e) {
+            log.error("保存执行历史失败: {}", e.getMessage(), e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 执行测试场景，不保存执行历史
+     * <p>
+     * 由调用方决定如何保存历史：{@link #executeScenario(Long, Long)} 逐条保存，
+     * {@link TestSuiteService} 汇总多个场景的结果后批量保存。
+     * </p>
+     *
+     * @param scenarioId 场景ID
+     * @param environmentId 环境ID，如果为null则不进行变量替换
+     * @param hostLimits 按目标主机限制步骤 HTTP 请求的并发数，为 null 时不限制
+     * @return 测试执行结果
+     */
+    public TestExecutionResult runScenario(Long scenarioId, Long environmentId, HostLimits hostLimits) {
         long startTime = System.currentTimeMillis();
 
         TestExecutionResult result = new TestExecutionResult();
@@ -161,7 +211,7 @@ public class TestExecutionService {
                     Thread.sleep(step.getDelay());
                 }
 
-                StepExecutionResult stepResult = executeStep(step, environmentId);
+                StepExecutionResult stepResult = executeStep(step, environmentId, hostLimits);
                 stepResults.add(stepResult);
 
                 if (stepResult.getSuccess()) {
@@ -200,20 +250,6 @@ public class TestExecutionService {
             result.setDuration(System.currentTimeMillis() - startTime);
         }
 
-        // 保存执行历史
-        try {
-            String environmentName = null;
-            if (environmentId != null) {
-                com.mock.service.entity.Environment environment = environmentService.getEnvironmentById(environmentId);
-                if (environment != null) {
-                    environmentName = environment.getName();
-                }
-            }
-            historyService.saveHistory(result, environmentId, environmentName);
-        } catch (Exception e) {
-            log.error("保存执行历史失败: {}", e.getMessage(), e);
-        }
-
         return result;
     }
 
@@ -252,9 +288,10 @@ public class TestExecutionService {
      *
      * @param step 测试步骤配置
      * @param environmentId 环境ID，用于变量替换，可以为null
+     * @param hostLimits 按目标主机限制并发数，可以为null
      * @return 步骤执行结果，包含请求/响应详情、状态码匹配结果、断言结果等
      */
-    private StepExecutionResult executeStep(TestStep step, Long environmentId) {
+    private StepExecutionResult executeStep(TestStep step, Long environmentId, HostLimits hostLimits) {
         long startTime = System.currentTimeMillis();
 
         StepExecutionResult result = new StepExecutionResult();
@@ -348,12 +385,35 @@ public class TestExecutionService {
 
             // 发送请求
             HttpMethod method = HttpMethod.valueOf(step.getMethod().toUpperCase());
-            ResponseEntity<String> response = restTemplate.exchange(
-                    finalUrl,
-                    method,
-                    entity,
-                    String.class
-            );
+            ResponseEntity<String> response;
+            long httpStart = System.nanoTime();
+            String httpStatus = "ERROR";
+            HostLimits.Permit permit = null;
+            try {
+                if (hostLimits != null) {
+                    permit = hostLimits.acquire(finalUrl);
+                }
+                response = restTemplate.exchange(
+                        finalUrl,
+                        method,
+                        entity,
+                        String.class
+                );
+                httpStatus = String.valueOf(response.getStatusCode().value());
+            } catch (RestClientResponseException e) {
+                httpStatus = String.valueOf(e.getStatusCode().value());
+                throw e;
+            } finally {
+                if (permit != null) {
+                    permit.close();
+                }
+                Timer.builder("mock.test.step")
+                        .description("测试步骤 HTTP 请求耗时")
+                        .tag("method", method.name())
+                        .tag("status", httpStatus)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - httpStart, TimeUnit.NANOSECONDS);
+            }
 
             // 打印响应信息
             log.info("📥 收到响应:");
@@ -466,6 +526,11 @@ public class TestExecutionService {
             result.setErrorMessage(e.getMessage());
         } finally {
             result.setDuration(System.currentTimeMillis() - startTime);
+            Counter.builder("mock.test.step.result")
+                    .description("测试步骤执行结果")
+                    .tag("result", Boolean.TRUE.equals(result.getSuccess()) ? "passed" : "failed")
+                    .register(meterRegistry)
+                    .increment();
             log.info("========================================");
         }
 
@@ -0,0 +1,395 @@
+package com.mock.service.service;
+
+import com.mock.service.dto.TestExecutionResult;
+import com.mock.service.dto.TestSuiteRequest;
+import com.mock.service.dto.TestSuiteResult;
+import com.mock.service.entity.Environment;
+import com.mock.service.http.HostLimits;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试套件执行服务
+ * <p>
+ * 并行执行多个测试场景：每次套件执行创建一个固定大小的工作线程池（并行度由请求指定，
+ * 默认 mock.test.suite.parallelism，上限 mock.test.suite.max-parallelism），场景内的步骤仍按顺序执行。
+ * 同一套件中发往同一目标主机的步骤请求最多同时进行 maxPerHost 个（{@link HostLimits}），避免压垮被测服务。
+ * 开启虚拟线程时工作线程使用虚拟线程。
+ * </p>
+ * <p>
+ * 套件在后台执行，启动后立即返回 suiteId，进度通过 suiteId 查询：每完成一个场景汇总一次统计。
+ * 执行历史每累计 mock.test.suite.history-batch-size 个场景批量写入一次（{@link TestExecutionHistoryService#saveHistories}），
+ * 套件结束时写入剩余部分。取消时尚未开始的场景不再执行，正在执行的场景被中断，二者都不写入历史。
+ * 最近 {@value #MAX_SUITES} 个套件的结果保留在内存中，同时执行的套件数不超过 mock.test.suite.max-running。
+ * </p>
+ * <p>
+ * 指标：mock.test.suite.running（正在执行的场景数）、mock.test.suite（套件总耗时）
+ * </p>
+ */
+@Slf4j
+@Service
+public class TestSuiteService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 内存中保留的套件数上限
+     */
+    private static final int MAX_SUITES = 20;
+
+    private final TestExecutionService executionService;
+
+    private final TestExecutionHistoryService historyService;
+
+    private final EnvironmentService environmentService;
+
+    private final int defaultParallelism;
+
+    private final int maxParallelism;
+
+    private final int defaultMaxPerHost;
+
+    private final int maxRunning;
+
+    private final int historyBatchSize;
+
+    private final boolean virtualThreads;
+
+    private final AtomicInteger runningScenarios = new AtomicInteger();
+
+    private final Timer suiteTimer;
+
+    private final Map<String, SuiteRun> suites = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SuiteRun> eldest) {
+            return size() > MAX_SUITES && !STATUS_RUNNING.equals(eldest.getValue().status);
+        }
+    };
+
+    public TestSuiteService(TestExecutionService executionService,
+                            TestExecutionHistoryService historyService,
+                            EnvironmentService environmentService,
+                            MeterRegistry meterRegistry,
+                            @Value("${mock.test.suite.parallelism:8}") int defaultParallelism,
+                            @Value("${mock.test.suite.max-parallelism:64}") int maxParallelism,
+                            @Value("${mock.test.suite.max-per-host:8}") int defaultMaxPerHost,
+                            @Value("${mock.test.suite.max-running:4}") int maxRunning,
+                            @Value("${mock.test.suite.history-batch-size:50}") int historyBatchSize,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executionService = executionService;
+        this.historyService = historyService;
+        this.environmentService = environmentService;
+        this.defaultParallelism = defaultParallelism;
+        this.maxParallelism = maxParallelism;
+        this.defaultMaxPerHost = defaultMaxPerHost;
+        this.maxRunning = maxRunning;
+        this.historyBatchSize = Math.max(1, historyBatchSize);
+        this.virtualThreads = virtualThreads;
+
+        Gauge.builder("mock.test.suite.running", runningScenarios, AtomicInteger::get)
+            .description("测试套件中正在执行的场景数")
+            .register(meterRegistry);
+        this.suiteTimer = Timer.builder("mock.test.suite")
+            .description("测试套件执行总耗时")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 启动测试套件（后台执行）
+     *
+     * @param request 套件执行请求
+     * @return 刚启动的套件进度，包含 suiteId
+     * @throws RuntimeException 参数无效或同时执行的套件数已达上限时
+     */
+    public TestSuiteResult startSuite(TestSuiteRequest request) {
+        if (request.getScenarioIds() == null || request.getScenarioIds().isEmpty()) {
+            throw new RuntimeException("场景列表不能为空");
+        }
+        int parallelism = request.getParallelism() != null ? request.getParallelism() : defaultParallelism;
+        if (parallelism < 1 || parallelism > maxParallelism) {
+            throw new RuntimeException("并行度必须在 1 到 " + maxParallelism + " 之间");
+        }
+        int maxPerHost = request.getMaxPerHost() != null ? request.getMaxPerHost() : defaultMaxPerHost;
+        if (maxPerHost < 0) {
+            throw new RuntimeException("maxPerHost 不能为负数");
+        }
+        List<Long> scenarioIds = new ArrayList<>(new LinkedHashSet<>(request.getScenarioIds()));
+
+        SuiteRun run;
+        synchronized (suites) {
+            long active = suites.values().stream().filter(s -> STATUS_RUNNING.equals(s.status)).count();
+            if (active >= maxRunning) {
+                throw new RuntimeException("同时执行的测试套件数已达上限 " + maxRunning);
+            }
+            run = new SuiteRun(UUID.randomUUID().toString(), scenarioIds, request.getEnvironmentId(),
+                parallelism, maxPerHost > 0 ? new HostLimits(maxPerHost) : null);
+            suites.put(run.suiteId, run);
+        }
+
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        builder.name("test-suite-" + run.suiteId.substring(0, 8)).start(run::execute);
+        log.info("测试套件开始: suiteId={}, 场景数 {}, 并行度 {}, 每主机并发 {}",
+            run.suiteId, scenarioIds.size(), parallelism, maxPerHost);
+        return run.snapshot();
+    }
+
+    /**
+     * 查询测试套件进度
+     *
+     * @throws RuntimeException 如果套件不存在或已过期
+     */
+    public TestSuiteResult getSuite(String suiteId) {
+        return findSuite(suiteId).snapshot();
+    }
+
+    /**
+     * 取消测试套件：尚未开始的场景不再执行，正在执行的场景被中断
+     *
+     * @throws RuntimeException 如果套件不存在或已过期
+     */
+    public TestSuiteResult cancelSuite(String suiteId) {
+        SuiteRun run = findSuite(suiteId);
+        run.cancel();
+        return run.snapshot();
+    }
+
+    private SuiteRun findSuite(String suiteId) {
+        SuiteRun run;
+        synchronized (suites) {
+            run = suites.get(suiteId);
+        }
+        if (run == null) {
+            throw new RuntimeException("测试套件不存在: " + suiteId);
+        }
+        return run;
+    }
+
+    /**
+     * 一次套件执行，由协调线程汇总结果、工作线程执行场景、查询线程读取快照
+     */
+    private class SuiteRun {
+
+        private final String suiteId;
+
+        private final List<Long> scenarioIds;
+
+        private final Long environmentId;
+
+        private final int parallelism;
+
+        private final HostLimits hostLimits;
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final long startNanos = System.nanoTime();
+
+        private final List<TestSuiteResult.ScenarioOutcome> outcomes = new ArrayList<>();
+
+        private final List<Future<TestExecutionResult>> futures = new ArrayList<>();
+
+        private volatile String status = STATUS_RUNNING;
+
+        private volatile boolean cancelRequested;
+
+        private volatile int passed;
+
+        private volatile int failed;
+
+        private volatile int cancelled;
+
+        private volatile int savedHistories;
+
+        private volatile long sumDuration;
+
+        private String errorMessage;
+
+        private LocalDateTime finishedAt;
+
+        private long durationMs;
+
+        SuiteRun(String suiteId, List<Long> scenarioIds, Long environmentId, int parallelism, HostLimits hostLimits) {
+            this.suiteId = suiteId;
+            this.scenarioIds = scenarioIds;
+            this.environmentId = environmentId;
+            this.parallelism = parallelism;
+            this.hostLimits = hostLimits;
+        }
+
+        void execute() {
+            Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+            ThreadPoolExecutor workers = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), builder.name("test-suite-worker-", 1).factory());
+            CompletionService<TestExecutionResult> completion = new ExecutorCompletionService<>(workers);
+            List<TestExecutionResult> pendingHistory = new ArrayList<>(historyBatchSize);
+            String environmentName = null;
+            try {
+                environmentName = environmentName();
+                synchronized (futures) {
+                    for (Long scenarioId : scenarioIds) {
+                        futures.add(completion.submit(() -> runScenario(scenarioId)));
+                    }
+                    if (cancelRequested) {
+                        futures.forEach(future -> future.cancel(true));
+                    }
+                }
+
+                // 每个提交的场景在完成、取消时都会进入完成队列一次
+                for (int i = 0; i < scenarioIds.size(); i++) {
+                    TestExecutionResult result;
+                    try {
+                        result = completion.take().get();
+                    } catch (CancellationException e) {
+                        cancelled++;
+                        continue;
+                    } catch (ExecutionException e) {
+                        log.error("测试套件场景执行异常: suiteId={}, 错误: {}", suiteId, e.getCause().getMessage());
+                        failed++;
+                        continue;
+                    }
+                    record(result);
+                    pendingHistory.add(result);
+                    if (pendingHistory.size() >= historyBatchSize) {
+                        saveHistories(pendingHistory, environmentName);
+                    }
+                }
+                saveHistories(pendingHistory, environmentName);
+                finish(cancelRequested ? STATUS_CANCELLED : STATUS_COMPLETED, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                saveHistories(pendingHistory, environmentName);
+                finish(STATUS_FAILED, "套件执行被中断");
+            } catch (Exception e) {
+                log.error("测试套件执行失败: suiteId={}, 错误: {}", suiteId, e.getMessage(), e);
+                saveHistories(pendingHistory, environmentName);
+                finish(STATUS_FAILED, e.getMessage());
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        private TestExecutionResult runScenario(Long scenarioId) {
+            runningScenarios.incrementAndGet();
+            try {
+                return executionService.runScenario(scenarioId, environmentId, hostLimits);
+            } finally {
+                runningScenarios.decrementAndGet();
+            }
+        }
+
+        private String environmentName() {
+            if (environmentId == null) {
+                return null;
+            }
+            Environment environment = environmentService.getEnvironmentById(environmentId);
+            return environment != null ? environment.getName() : null;
+        }
+
+        private void record(TestExecutionResult result) {
+            TestSuiteResult.ScenarioOutcome outcome = new TestSuiteResult.ScenarioOutcome();
+            outcome.setScenarioId(result.getScenarioId());
+            outcome.setScenarioName(result.getScenarioName());
+            outcome.setSuccess(result.getSuccess());
+            outcome.setPassedSteps(result.getPassedSteps());
+            outcome.setFailedSteps(result.getFailedSteps());
+            outcome.setDuration(result.getDuration());
+            outcome.setErrorMessage(result.getErrorMessage());
+            synchronized (outcomes) {
+                outcomes.add(outcome);
+            }
+            if (Boolean.TRUE.equals(result.getSuccess())) {
+                passed++;
+            } else {
+                failed++;
+            }
+            if (result.getDuration() != null) {
+                sumDuration += result.getDuration();
+            }
+        }
+
+        /**
+         * 批量写入执行历史，失败时只记录日志，不影响套件继续执行
+         */
+        private void saveHistories(List<TestExecutionResult> results, String environmentName) {
+            if (results.isEmpty()) {
+                return;
+            }
+            try {
+                savedHistories += historyService.saveHistories(results, environmentId, environmentName);
+            } catch (Exception e) {
+                log.error("批量保存测试执行历史失败: suiteId={}, {} 条, 错误: {}", suiteId, results.size(), e.getMessage());
+            } finally {
+                results.clear();
+            }
+        }
+
+        void cancel() {
+            cancelRequested = true;
+            synchronized (futures) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        private void finish(String finalStatus, String message) {
+            synchronized (this) {
+                errorMessage = message;
+                finishedAt = LocalDateTime.now();
+                durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            }
+            status = finalStatus;
+            suiteTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            log.info("测试套件结束: suiteId={}, 状态 {}, 通过 {}, 失败 {}, 取消 {}, 总耗时 {}ms, 场景耗时之和 {}ms",
+                suiteId, finalStatus, passed, failed, cancelled, durationMs, sumDuration);
+        }
+
+        synchronized TestSuiteResult snapshot() {
+            TestSuiteResult result = new TestSuiteResult();
+            result.setSuiteId(suiteId);
+            result.setStatus(status);
+            result.setEnvironmentId(environmentId);
+            result.setParallelism(parallelism);
+            result.setTotal(scenarioIds.size());
+            result.setCompleted(passed + failed);
+            result.setPassed(passed);
+            result.setFailed(failed);
+            result.setCancelled(cancelled);
+            result.setSavedHistories(savedHistories);
+            synchronized (outcomes) {
+                result.setScenarios(new ArrayList<>(outcomes));
+            }
+            result.setErrorMessage(errorMessage);
+            result.setStartedAt(startedAt);
+            result.setFinishedAt(finishedAt);
+            result.setDuration(finishedAt != null ? durationMs
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            result.setSumDuration(sumDuration);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mock.service.stats;
+
+import com.mock.service.entity.MockConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 Mock 配置的实时统计
+ * <p>
+ * 命中次数、状态码分类计数、延迟直方图和滑动窗口 RPS 均为无锁结构，
+ * 由请求线程直接更新，不依赖历史记录表。
+ * </p>
+ */
+public final class MockStats {
+
+    private final Long mockConfigId;
+
+    /**
+     * 最近一次命中时的配置（用于展示名称、方法和路径）
+     */
+    private volatile MockConfig config;
+
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 状态码 4xx 的响应次数
+     */
+    private final LongAdder clientErrors = new LongAdder();
+
+    /**
+     * 状态码 5xx 的响应次数
+     */
+    private final LongAdder serverErrors = new LongAdder();
+
+    /**
+     * 因容量限制而拒绝的次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 因容量限制正在排队的请求数
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final RateWindow rate = new RateWindow();
+
+    private volatile long lastHitAt;
+
+    public MockStats(Long mockConfigId) {
+        this.mockConfigId = mockConfigId;
+    }
+
+    /**
+     * 记录一次命中
+     *
+     * @param status 响应状态码
+     * @param latencyMicros 响应耗时（微秒）
+     * @param nowMillis 当前时间（毫秒）
+     */
+    public void record(int status, long latencyMicros, long nowMillis) {
+        hits.increment();
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+        latency.record(latencyMicros);
+        rate.record(nowMillis / 1000);
+        lastHitAt = nowMillis;
+    }
+
+    /**
+     * 记录一次因容量限制而拒绝的请求（拒绝的响应另外按命中记录）
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 调整排队中的请求数
+     *
+     * @param delta 进入队列为 1，离开队列为 -1
+     */
+    public void addQueued(int delta) {
+        queued.addAndGet(delta);
+    }
+
+    public MockConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(MockConfig config) {
+        this.config = config;
+    }
+
+    public Long getMockConfigId() {
+        return mockConfigId;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getClientErrors() {
+        return clientErrors.sum();
+    }
+
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getQueued() {
+        // 重置统计时可能仍有请求在排队，离开队列后计数会短暂为负
+        return Math.max(0, queued.get());
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public RateWindow getRate() {
+        return rate;
+    }
+
+    public long getLastHitAt() {
+        return lastHitAt;
+    }
+}
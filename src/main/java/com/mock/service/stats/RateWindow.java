@@ -0,0 +1,63 @@
+package com.mock.service.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按秒分槽的滑动窗口计数器
+ * <p>
+ * 环形数组保存最近 {@value #SLOTS} 秒每秒的请求数，每个槽同时记录所属的秒，
+ * 跨秒时由第一个写入的线程通过 CAS 清零重用。记录只做原子操作，不加锁。
+ * 槽被重用的瞬间可能丢失极少量计数，用于观测足够准确。
+ * </p>
+ */
+public final class RateWindow {
+
+    private static final int SLOTS = 64;
+
+    /**
+     * 支持查询的最大窗口（秒），需小于槽数以排除当前正在累计的一秒
+     */
+    public static final int MAX_WINDOW_SECONDS = 60;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+    private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+    public RateWindow() {
+        for (int i = 0; i < SLOTS; i++) {
+            seconds.set(i, -1);
+        }
+    }
+
+    /**
+     * 记录一次事件
+     *
+     * @param epochSecond 当前时间（秒）
+     */
+    public void record(long epochSecond) {
+        int slot = (int) (epochSecond % SLOTS);
+        long stamp = seconds.get(slot);
+        if (stamp != epochSecond && seconds.compareAndSet(slot, stamp, epochSecond)) {
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    /**
+     * 计算最近若干个完整秒的平均每秒事件数（不含当前这一秒）
+     *
+     * @param windowSeconds 窗口大小（1 ~ {@value #MAX_WINDOW_SECONDS} 秒）
+     * @param epochSecond 当前时间（秒）
+     */
+    public double rate(int windowSeconds, long epochSecond) {
+        int window = Math.max(1, Math.min(MAX_WINDOW_SECONDS, windowSeconds));
+        long total = 0;
+        for (long second = epochSecond - window; second < epochSecond; second++) {
+            int slot = (int) (second % SLOTS);
+            if (seconds.get(slot) == second) {
+                total += counts.get(slot);
+            }
+        }
+        return (double) total / window;
+    }
+}
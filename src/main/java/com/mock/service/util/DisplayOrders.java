@@ -0,0 +1,47 @@
+package com.mock.service.util;
+
+/**
+ * 间隔排序号工具
+ * <p>
+ * 显示序号按固定间隔（{@link #GAP}）分配，新记录追加到当前最大序号之后，
+ * 删除记录不需要重排其他行，移动记录时取前后两个序号的中间值，只修改被移动的一行。
+ * 只有相邻序号之间没有空隙时才需要整体重新编号。
+ * </p>
+ */
+public final class DisplayOrders {
+
+    /**
+     * 相邻序号的默认间隔
+     */
+    public static final int GAP = 1024;
+
+    private DisplayOrders() {
+    }
+
+    /**
+     * 追加到末尾的序号
+     *
+     * @param maxOrder 当前最大序号，没有记录时为 null
+     */
+    public static int next(Integer maxOrder) {
+        return maxOrder == null ? GAP : maxOrder + GAP;
+    }
+
+    /**
+     * 两个序号之间的序号
+     *
+     * @param before 前一条记录的序号，移动到最前面时为 null
+     * @param after 后一条记录的序号，移动到最后面时为 null
+     * @return 中间序号；两者之间没有空隙时返回 null，需要重新编号
+     */
+    public static Integer between(Integer before, Integer after) {
+        if (after == null) {
+            return next(before);
+        }
+        int low = before == null ? 0 : before;
+        if (after - low < 2) {
+            return null;
+        }
+        return low + (after - low) / 2;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mock.service.util;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mock 接口 HTTP 压测
+ * <p>
+ * 用虚拟线程并发发起 N 个 GET 请求（默认 10k）到运行中服务的 Mock 地址，经过 {@code DynamicMockController}
+ * 完整处理（路由匹配、延迟、模板渲染、历史写入），输出成功数、失败数（5xx 或连接异常）、总耗时和吞吐量。
+ * 可分别在 spring.threads.virtual.enabled=false/true 下启动服务对比：
+ * <pre>
+ * // 先创建一个带 delay 的 Mock 配置
+ * java -cp target/classes com.mock.service.util.MockHttpBenchmark http://localhost:8080/api/mock/slow
+ * java -cp target/classes com.mock.service.util.MockHttpBenchmark http://localhost:8080/api/mock/slow 10000
+ * </pre>
+ * 注意：Mock 延迟本身已由共享定时器异步完成，两种模式的差异主要来自连接处理和历史写入等其余等待。
+ * </p>
+ */
+public class MockHttpBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: MockHttpBenchmark <mock url> [请求数]");
+            return;
+        }
+        runHttp(args.length > 1 ? Integer.parseInt(args[1]) : 10_000, args[0]);
+    }
+
+    private static void runHttp(int requests, String url) throws Exception {
+        System.out.println("========== HTTP 压测 ==========");
+        System.out.printf("目标: %s, 并发请求数: %d%n", url, requests);
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                 .connectTimeout(Duration.ofSeconds(10))
+                 .executor(executor)
+                 .build()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(120))
+                .GET()
+                .build();
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        (response.statusCode() < 500 ? ok : failed).incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("成功: %d, 失败: %d%n", ok.get(), failed.get());
+        report("http", requests, elapsed);
+    }
+
+    private static void report(String name, int requests, long elapsedMs) {
+        System.out.printf("%-28s %-12d %-12.0f%n", name, elapsedMs, requests * 1000.0 / Math.max(1, elapsedMs));
+    }
+}
@@ -0,0 +1,79 @@
+package com.mock.service.util;
+
+import com.mock.service.route.PathTemplateRouter;
+
+import java.util.Random;
+
+/**
+ * 路径模板路由器基准测试
+ * <p>
+ * 分别注册 100、1k、10k、100k 条路由（一半字面量，一半带变量/正则的模板），
+ * 随机查找并输出平均每次查找耗时，用于验证查找耗时不随路由数量增长。
+ * </p>
+ * <p>
+ * 运行方式：mvn -q compile exec:java -Dexec.mainClass=com.mock.service.util.PathRouterBenchmark
+ * 或直接在 IDE 中运行 main 方法。
+ * </p>
+ */
+public class PathRouterBenchmark {
+
+    private static final int[] ROUTE_COUNTS = {100, 1_000, 10_000, 100_000};
+
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        System.out.println("========== PathTemplateRouter 查找基准 ==========");
+        System.out.printf("%-10s %-14s %-14s %-14s%n", "routes", "literal ns/op", "template ns/op", "miss ns/op");
+
+        for (int count : ROUTE_COUNTS) {
+            PathTemplateRouter<Integer> router = buildRouter(count);
+            String[] literalPaths = new String[1024];
+            String[] templatePaths = new String[1024];
+            String[] missPaths = new String[1024];
+            Random random = new Random(42);
+            for (int i = 0; i < 1024; i++) {
+                int n = random.nextInt(count / 2);
+                literalPaths[i] = "/service" + (n % 20) + "/static" + n + "/info";
+                templatePaths[i] = "/service" + (n % 20) + "/users" + n + "/" + random.nextInt(1_000_000) + "/orders/" + random.nextInt(100);
+                missPaths[i] = "/service" + (n % 20) + "/unknown" + n + "/x";
+            }
+
+            // 预热
+            run(router, literalPaths, LOOKUPS);
+            run(router, templatePaths, LOOKUPS);
+            run(router, missPaths, LOOKUPS);
+
+            double literal = run(router, literalPaths, LOOKUPS);
+            double template = run(router, templatePaths, LOOKUPS);
+            double miss = run(router, missPaths, LOOKUPS);
+            System.out.printf("%-10d %-14.1f %-14.1f %-14.1f%n", count, literal, template, miss);
+        }
+    }
+
+    private static PathTemplateRouter<Integer> buildRouter(int count) {
+        PathTemplateRouter.Builder<Integer> builder = PathTemplateRouter.builder();
+        for (int i = 0; i < count / 2; i++) {
+            builder.add("/service" + (i % 20) + "/static" + i + "/info", i);
+            builder.add("/service" + (i % 20) + "/users" + i + "/{id:\\d+}/orders/{orderId}", i);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return 平均每次查找耗时（纳秒）
+     */
+    private static double run(PathTemplateRouter<Integer> router, String[] paths, int lookups) {
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (router.match(paths[i & 1023]) != null) {
+                hits++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (hits < 0) {
+            System.out.println(hits);
+        }
+        return (double) elapsed / lookups;
+    }
+}
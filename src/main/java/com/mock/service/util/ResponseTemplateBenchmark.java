@@ -0,0 +1,135 @@
+package com.mock.service.util;
+
+import com.mock.service.entity.MockConfig;
+import com.mock.service.route.CompiledMock;
+import com.mock.service.route.CompiledResponse;
+import com.mock.service.route.PreparedResponse;
+import com.mock.service.route.ResponseTemplate;
+
+import java.util.Map;
+
+/**
+ * 响应模板渲染基准测试
+ * <p>
+ * 对比三种生成响应的方式，输出平均每次耗时和每次生成的响应字节数：
+ * <ul>
+ *   <li>static：预编码的静态响应（直接复用字节数组，作为基线）</li>
+ *   <li>replace：逐次对响应体做字符串替换，再解析 Content-Type、编码并计算 ETag（模板编译前的做法）</li>
+ *   <li>template：编译后的模板按片段直接编码进复用的字节缓冲区（文本片段已预编码），复制一次得到响应体（不计算 ETag）</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 运行方式：mvn -q compile exec:java -Dexec.mainClass=com.mock.service.util.ResponseTemplateBenchmark
+ * 或直接在 IDE 中运行 main 方法。
+ * </p>
+ */
+public class ResponseTemplateBenchmark {
+
+    private static final int ITERATIONS = 2_000_000;
+
+    private static final String STATIC_BODY = "{\"code\": 0, \"message\": \"success\", \"data\": {\"id\": \"42\", "
+        + "\"page\": 3, \"traceId\": \"abc-123\", \"name\": \"alice\", \"items\": [1, 2, 3, 4, 5, 6, 7, 8]}}";
+
+    private static final String TEMPLATE_BODY = "{\"code\": 0, \"message\": \"success\", \"data\": {\"id\": \"{{path.id}}\", "
+        + "\"page\": {{query.page:1}}, \"traceId\": \"{{header.X-Trace-Id}}\", \"name\": \"{{body.user.name}}\", "
+        + "\"items\": [1, 2, 3, 4, 5, 6, 7, 8]}}";
+
+    private static final String REPLACE_BODY = "{\"code\": 0, \"message\": \"success\", \"data\": {\"id\": \"{{path.id}}\", "
+        + "\"page\": {{path.page}}, \"traceId\": \"{{path.traceId}}\", \"name\": \"{{path.name}}\", "
+        + "\"items\": [1, 2, 3, 4, 5, 6, 7, 8]}}";
+
+    private static final Map<String, String> PATH_VARIABLES = Map.of("id", "42");
+
+    private static final Map<String, String> REPLACE_VARIABLES = Map.of(
+        "id", "42", "page", "3", "traceId", "abc-123", "name", "alice");
+
+    private static final String REQUEST_BODY = "{\"user\": {\"name\": \"alice\", \"age\": 30}}";
+
+    public static void main(String[] args) {
+        CompiledResponse staticResponse = CompiledMock.compile(config(STATIC_BODY)).getDefaultResponse();
+        CompiledResponse templateResponse = CompiledMock.compile(config(TEMPLATE_BODY)).getDefaultResponse();
+        ResponseTemplate template = templateResponse.getTemplate();
+
+        System.out.println("========== 响应生成基准 ==========");
+        System.out.printf("模板片段数: %d%n", template.size());
+        System.out.printf("%-10s %-12s %-12s%n", "mode", "ns/op", "bytes");
+
+        // 预热
+        for (int round = 0; round < 2; round++) {
+            runStatic(staticResponse, ITERATIONS);
+            runReplace(ITERATIONS);
+            runTemplate(templateResponse, ITERATIONS);
+        }
+
+        report("static", runStatic(staticResponse, ITERATIONS), staticResponse.getPreparedResponse().getContentLength());
+        report("replace", runReplace(ITERATIONS), replace().getContentLength());
+        report("template", runTemplate(templateResponse, ITERATIONS), render(templateResponse).getContentLength());
+    }
+
+    private static MockConfig config(String body) {
+        MockConfig config = new MockConfig();
+        config.setId(1L);
+        config.setStatusCode(200);
+        config.setContentType("application/json");
+        config.setResponseBody(body);
+        return config;
+    }
+
+    private static double runStatic(CompiledResponse mock, int iterations) {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += mock.getPreparedResponse().getContentLength();
+        }
+        return elapsed(start, iterations, bytes);
+    }
+
+    private static double runReplace(int iterations) {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += replace().getContentLength();
+        }
+        return elapsed(start, iterations, bytes);
+    }
+
+    private static double runTemplate(CompiledResponse mock, int iterations) {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += render(mock).getContentLength();
+        }
+        return elapsed(start, iterations, bytes);
+    }
+
+    /**
+     * 模板编译前的做法：逐个变量字符串替换，再完整编码一次响应
+     */
+    private static PreparedResponse replace() {
+        String result = REPLACE_BODY;
+        for (Map.Entry<String, String> entry : REPLACE_VARIABLES.entrySet()) {
+            result = result.replace("{{path." + entry.getKey() + "}}", entry.getValue());
+        }
+        return PreparedResponse.of(200, "application/json", result);
+    }
+
+    private static PreparedResponse render(CompiledResponse mock) {
+        ResponseTemplate.Context context = new ResponseTemplate.Context(PATH_VARIABLES,
+            name -> "page".equals(name) ? "3" : null,
+            name -> "X-Trace-Id".equals(name) ? "abc-123" : null,
+            REQUEST_BODY);
+        return mock.render(context);
+    }
+
+    private static double elapsed(long start, int iterations, long bytes) {
+        long elapsed = System.nanoTime() - start;
+        if (bytes < 0) {
+            System.out.println(bytes);
+        }
+        return (double) elapsed / iterations;
+    }
+
+    private static void report(String mode, double nsPerOp, int bytes) {
+        System.out.printf("%-10s %-12.1f %-12d%n", mode, nsPerOp, bytes);
+    }
+}
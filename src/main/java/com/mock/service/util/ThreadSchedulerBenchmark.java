@@ -0,0 +1,70 @@
+package com.mock.service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 平台线程与虚拟线程调度微基准
+ * <p>
+ * 只在进程内比较两种执行器调度阻塞任务的能力：提交 N 个任务（默认 10k），每个任务只执行
+ * {@code Thread.sleep(delay)}，分别交给与 Tomcat 默认配置相同的 200 个平台线程池和每任务一个虚拟线程的执行器，
+ * 输出总耗时和吞吐量。平台线程池受线程数限制只能分批完成，虚拟线程则几乎同时完成。
+ * </p>
+ * <p>
+ * 不启动服务，也不经过 {@code DynamicMockController}：结果只说明线程调度的上限，不代表 Mock 服务的吞吐量
+ * （Mock 延迟本身由共享定时器异步完成，并不阻塞请求线程）。对运行中的服务压测见 {@link MockHttpBenchmark}。
+ * <pre>
+ * java -cp target/classes com.mock.service.util.ThreadSchedulerBenchmark
+ * java -cp target/classes com.mock.service.util.ThreadSchedulerBenchmark 10000 1000
+ * </pre>
+ * </p>
+ */
+public class ThreadSchedulerBenchmark {
+
+    /**
+     * Tomcat 默认最大工作线程数
+     */
+    private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+
+        System.out.println("========== 平台线程 vs 虚拟线程（调度微基准） ==========");
+        System.out.printf("任务数: %d, 每个任务阻塞: %dms%n", requests, delayMs);
+        System.out.printf("%-28s %-12s %-12s%n", "executor", "elapsed ms", "req/s");
+
+        // 预热
+        run(Executors.newVirtualThreadPerTaskExecutor(), 1_000, 10);
+        run(Executors.newFixedThreadPool(TOMCAT_DEFAULT_MAX_THREADS), 1_000, 10);
+
+        report("platform (" + TOMCAT_DEFAULT_MAX_THREADS + " threads)", requests,
+            run(Executors.newFixedThreadPool(TOMCAT_DEFAULT_MAX_THREADS), requests, delayMs));
+        report("virtual (thread per task)", requests,
+            run(Executors.newVirtualThreadPerTaskExecutor(), requests, delayMs));
+    }
+
+    private static long run(ExecutorService executor, int requests, long delayMs) throws Exception {
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(delayMs);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void report(String name, int requests, long elapsedMs) {
+        System.out.printf("%-28s %-12d %-12.0f%n", name, elapsedMs, requests * 1000.0 / Math.max(1, elapsedMs));
+    }
+}